@@ -18,6 +18,14 @@ public class CodeGenerationOptions {
 
     private boolean useReasoner;
 
+    private int vocabularyShards;
+
+    private boolean compact;
+
+    private boolean generateBuilders = true;
+
+    private boolean generateQueries = true;
+
     public final static String FACTORY_CLASS_NAME_DEFAULT = "MyFactory";
     
     public final static String FACTORY_SUBPACKAGE_DEFAULT = "";
@@ -56,6 +64,18 @@ public class CodeGenerationOptions {
     public void setUseReasoner(boolean useReasoner) {
 		this.useReasoner = useReasoner;
 	}
+    
+    /**
+     * Splits the constants of the vocabulary into lazily initialized holder classes by entity kind and
+     * IRI hash.  Use it for ontologies whose vocabulary is too large for a single class initializer.
+     * @param vocabularyShards the number of holder classes for each entity kind or 0 for a single class.
+     */
+    public void setVocabularyShards(int vocabularyShards) {
+    	if (vocabularyShards < 0) {
+    		throw new IllegalArgumentException("The number of vocabulary shards cannot be negative");
+    	}
+		this.vocabularyShards = vocabularyShards;
+	}
 
     public String getFactoryClassName() {
         return factoryClassName;
@@ -77,6 +97,48 @@ public class CodeGenerationOptions {
 		return useReasoner;
 	}
     
+    public int getVocabularyShards() {
+		return vocabularyShards;
+	}
+    
+    /**
+     * Selects the compact profile, in which the implementation classes are thin bridges to the index based
+     * accessors of {@link org.protege.owl.codegeneration.impl.CompactIndividualImpl}.  The interfaces are
+     * the same in both profiles.  The compact profile does not generate the builder and query classes; call
+     * {@link #setGenerateBuilders(boolean)} or {@link #setGenerateQueries(boolean)} afterwards to add them.
+     */
+    public void setCompact(boolean compact) {
+		this.compact = compact;
+		generateBuilders = !compact;
+		generateQueries = !compact;
+	}
+    
+    public boolean isCompact() {
+		return compact;
+	}
+    
+    /**
+     * Generates a builder class for each class, started by the new methods of the factory.
+     */
+    public void setGenerateBuilders(boolean generateBuilders) {
+		this.generateBuilders = generateBuilders;
+	}
+    
+    public boolean generateBuilders() {
+		return generateBuilders;
+	}
+    
+    /**
+     * Generates a query class for each class, started by the query methods of the factory.
+     */
+    public void setGenerateQueries(boolean generateQueries) {
+		this.generateQueries = generateQueries;
+	}
+    
+    public boolean generateQueries() {
+		return generateQueries;
+	}
+    
     public String getVocabularyFqn() {
     	return getFactoryLikeFqn(Constants.VOCABULARY_CLASS_NAME);
     }
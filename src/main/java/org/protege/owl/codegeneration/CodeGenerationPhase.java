@@ -6,30 +6,72 @@ public enum CodeGenerationPhase {
 	CREATE_FUNCTIONAL_OBJECT_PROPERTY_INTERFACE("interface.functional.object.property"),
 	CREATE_DATA_PROPERTY_INTERFACE("interface.data.property"),
 	CREATE_FUNCTIONAL_DATA_PROPERTY_INTERFACE("interface.functional.data.property"),
+	CREATE_PRIMITIVE_DATA_PROPERTY_INTERFACE("interface.primitive.data.property"),
+	CREATE_FUNCTIONAL_PRIMITIVE_DATA_PROPERTY_INTERFACE("interface.functional.primitive.data.property"),
 	CREATE_INTERFACE_TAIL("interface.tail"),
-	CREATE_IMPLEMENTATION_HEADER("implementation.header"),
-	CREATE_OBJECT_PROPERTY_IMPLEMENTATION("implementation.object.property"),
-	CREATE_FUNCTIONAL_OBJECT_PROPERTY_IMPLEMENTATION("implementation.functional.object.property"),
-	CREATE_DATA_PROPERTY_IMPLEMENTATION("implementation.data.property"),
-	CREATE_FUNCTIONAL_DATA_PROPERTY_IMPLEMENTATION("implementation.functional.data.property"),
-	CREATE_IMPLEMENTATION_TAIL("implementation.tail"),
+	CREATE_IMPLEMENTATION_HEADER("implementation.header", "implementation.compact.header"),
+	CREATE_OBJECT_PROPERTY_IMPLEMENTATION("implementation.object.property", "implementation.compact.object.property"),
+	CREATE_FUNCTIONAL_OBJECT_PROPERTY_IMPLEMENTATION("implementation.functional.object.property", "implementation.compact.functional.object.property"),
+	CREATE_DATA_PROPERTY_IMPLEMENTATION("implementation.data.property", "implementation.compact.data.property"),
+	CREATE_FUNCTIONAL_DATA_PROPERTY_IMPLEMENTATION("implementation.functional.data.property", "implementation.compact.functional.data.property"),
+	CREATE_PRIMITIVE_DATA_PROPERTY_IMPLEMENTATION("implementation.primitive.data.property", "implementation.compact.primitive.data.property"),
+	CREATE_FUNCTIONAL_PRIMITIVE_DATA_PROPERTY_IMPLEMENTATION("implementation.functional.primitive.data.property", "implementation.compact.functional.primitive.data.property"),
+	CREATE_IMPLEMENTATION_TAIL("implementation.tail", "implementation.compact.tail"),
 	CREATE_VOCABULARY_HEADER("vocabulary.header"),
 	CREATE_CLASS_VOCABULARY("vocabulary.owlclass"),
 	CREATE_OBJECT_PROPERTY_VOCABULARY("vocabulary.object.property"),
 	CREATE_DATA_PROPERTY_VOCABULARY("vocabulary.data.property"),
 	CREATE_VOCABULARY_TAIL("vocabulary.tail"),
+	CREATE_SHARDED_VOCABULARY_HEADER("vocabulary.sharded.header"),
+	CREATE_VOCABULARY_SHARD_HEADER("vocabulary.shard.header"),
+	CREATE_SHARDED_CLASS_VOCABULARY("vocabulary.sharded.owlclass"),
+	CREATE_SHARDED_OBJECT_PROPERTY_VOCABULARY("vocabulary.sharded.object.property"),
+	CREATE_SHARDED_DATA_PROPERTY_VOCABULARY("vocabulary.sharded.data.property"),
+	CREATE_VOCABULARY_SHARD_TAIL("vocabulary.shard.tail"),
 	CREATE_FACTORY_HEADER("factory.header"),
 	CREATE_FACTORY_TAIL("factory.tail"),
-	CREATE_FACTORY_CLASS("factory.owlclass")
+	CREATE_FACTORY_CLASS("factory.owlclass"),
+	CREATE_FACTORY_BUILDER("factory.builder"),
+	CREATE_FACTORY_QUERY("factory.query"),
+	CREATE_FACTORY_INVERSE_OBJECT_PROPERTY("factory.inverse.object.property"),
+	CREATE_FACTORY_CLASS_MAPPING_HEADER("factory.class.mapping.header"),
+	CREATE_FACTORY_CLASS_MAPPING("factory.class.mapping"),
+	CREATE_FACTORY_CLASS_MAPPING_TAIL("factory.class.mapping.tail"),
+	CREATE_QUERY_HEADER("query.header"),
+	CREATE_OBJECT_PROPERTY_QUERY("query.object.property"),
+	CREATE_DATA_PROPERTY_QUERY("query.data.property"),
+	CREATE_ORDERED_DATA_PROPERTY_QUERY("query.ordered.data.property"),
+	CREATE_STRING_DATA_PROPERTY_QUERY("query.string.data.property"),
+	CREATE_QUERY_TAIL("query.tail"),
+	CREATE_BUILDER_HEADER("builder.header"),
+	CREATE_OBJECT_PROPERTY_BUILDER("builder.object.property"),
+	CREATE_FUNCTIONAL_OBJECT_PROPERTY_BUILDER("builder.functional.object.property"),
+	CREATE_DATA_PROPERTY_BUILDER("builder.data.property"),
+	CREATE_FUNCTIONAL_DATA_PROPERTY_BUILDER("builder.functional.data.property"),
+	CREATE_BUILDER_TAIL("builder.tail")
 	;
 	
 	private String templateName;
+	private String compactTemplateName;
 	
 	private CodeGenerationPhase(String templateName) {
+		this(templateName, templateName);
+	}
+	
+	private CodeGenerationPhase(String templateName, String compactTemplateName) {
 		this.templateName = templateName;
+		this.compactTemplateName = compactTemplateName;
 	}
 	
 	public String getTemplateName() {
 		return templateName;
 	}
+	
+	/**
+	 * @return the template used by the compact profile, which is the same as the default template for the 
+	 *         phases that the compact profile does not change.
+	 */
+	public String getCompactTemplateName() {
+		return compactTemplateName;
+	}
 }
@@ -31,7 +31,20 @@ public class Constants {
 	public static final String UNKNOWN_JAVA_DATA_TYPE = "Object";
 
 	public static final String VOCABULARY_CLASS_NAME = "Vocabulary";
+	/*
+	 * The names of the holder classes of a sharded vocabulary without the shard number.
+	 */
+	public static final String VOCABULARY_CLASS_SHARD = "Classes";
+	public static final String VOCABULARY_OBJECT_PROPERTY_SHARD = "ObjectProperties";
+	public static final String VOCABULARY_DATA_PROPERTY_SHARD = "DataProperties";
 	public static final String FACTORY_CLASS_NAME = "MyFactory";
+	/*
+	 * The name of the holder classes that fill the class mapping table of a factory without the chunk number, 
+	 * and the number of classes per holder.  Each class adds a few bytes of code to the holder's method, so 
+	 * the chunks stay well below the 64K limit on the size of a method.
+	 */
+	public static final String FACTORY_CLASS_MAPPING_CHUNK = "ClassMapping";
+	public static final int FACTORY_CLASS_MAPPING_CHUNK_SIZE = 256;
 
 	private Constants() {}
 }
@@ -0,0 +1,57 @@
+package org.protege.owl.codegeneration;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLDatatype;
+import org.semanticweb.owlapi.model.OWLLiteral;
+
+/**
+ * Converts between the literals of an OWL datatype and java objects.  Handlers are consulted through 
+ * the {@link DatatypeRegistry} both when the code is generated (to choose the java type of a data property) 
+ * and at runtime (to convert property values).  Additional handlers can be registered directly or through 
+ * a <code>META-INF/services/org.protege.owl.codegeneration.DatatypeHandler</code> file.
+ * <p>
+ * The same handlers must be available when the code is generated and when it is run.
+ * 
+ * @see HandledDatatypes
+ */
+public interface DatatypeHandler {
+	
+	/**
+	 * Returns the datatype IRI that this handler converts.
+	 */
+	IRI getIri();
+	
+	/**
+	 * Returns the java type used in generated declarations.  For primitive handlers this is the 
+	 * primitive name (e.g. int).  Classes outside java.lang should be fully qualified.
+	 */
+	String getJavaType();
+	
+	/**
+	 * Returns the java class used in generated declarations (e.g. Integer or java.math.BigDecimal).
+	 */
+	String getJavaClass();
+	
+	/**
+	 * Returns the class of the java objects that {@link #getLiteral(OWLDataFactory, Object)} accepts.
+	 */
+	Class<?> getRuntimeClass();
+	
+	/**
+	 * Returns true if the java type is a primitive type.  Only int, long, float, double, short, byte and 
+	 * boolean are supported because the generated primitive accessors call into 
+	 * {@link org.protege.owl.codegeneration.impl.CodeGenerationHelper}.
+	 */
+	boolean isPrimitive();
+	
+	boolean isMatch(OWLDatatype dt);
+	
+	Object getObject(OWLLiteral literal);
+	
+	/**
+	 * @return the literal for the object or null if the object is not handled.
+	 */
+	OWLLiteral getLiteral(OWLDataFactory factory, Object o);
+
+}
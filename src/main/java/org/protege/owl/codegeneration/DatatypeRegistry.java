@@ -0,0 +1,229 @@
+package org.protege.owl.codegeneration;
+
+import static org.semanticweb.owlapi.vocab.OWL2Datatype.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLDatatype;
+import org.semanticweb.owlapi.vocab.OWL2Datatype;
+
+/**
+ * The set of datatype handlers known to the code generator and the generated code.  The default 
+ * registry contains the {@link HandledDatatypes} and any handlers found by the java service loader.
+ * <p>
+ * Lookups by datatype IRI and by java class are hash lookups.  The results of the slower isMatch 
+ * scans (aliases such as xsd:int and subclasses of the runtime class) are remembered until the next 
+ * call to {@link #register(DatatypeHandler)}.
+ * <p>
+ * The handlers are kept in the order of the derivation of their datatypes in the OWL 2 datatype map, most 
+ * specific first, whatever the order in which they were registered.  Handlers of datatypes outside the map
+ * come after the others.
+ */
+public class DatatypeRegistry {
+	/*
+	 * The datatypes of the OWL 2 datatype map ordered so that each datatype comes before every datatype 
+	 * whose value space contains its own.  Datatypes of the map that are not listed are appended below.
+	 */
+	private static final List<OWL2Datatype> SPECIFICITY_ORDER = new ArrayList<OWL2Datatype>(Arrays.asList(
+			XSD_BYTE, XSD_UNSIGNED_BYTE, XSD_SHORT, XSD_UNSIGNED_SHORT, XSD_INT, XSD_UNSIGNED_INT, XSD_LONG, XSD_UNSIGNED_LONG,
+			XSD_POSITIVE_INTEGER, XSD_NON_NEGATIVE_INTEGER, XSD_NEGATIVE_INTEGER, XSD_NON_POSITIVE_INTEGER, 
+			XSD_INTEGER, XSD_DECIMAL, OWL_RATIONAL, OWL_REAL,
+			XSD_FLOAT, XSD_DOUBLE,
+			XSD_DATE_TIME_STAMP, XSD_DATE_TIME,
+			XSD_LANGUAGE, XSD_NCNAME, XSD_NAME, XSD_NMTOKEN, XSD_TOKEN, XSD_NORMALIZED_STRING, XSD_STRING, RDF_PLAIN_LITERAL,
+			XSD_BOOLEAN, XSD_ANY_URI, XSD_HEX_BINARY, XSD_BASE_64_BINARY, RDF_XML_LITERAL));
+	
+	static {
+		for (OWL2Datatype dt : OWL2Datatype.values()) {
+			if (!SPECIFICITY_ORDER.contains(dt) && dt != RDFS_LITERAL) {
+				SPECIFICITY_ORDER.add(dt);
+			}
+		}
+	}
+	
+	private volatile Handlers handlers;
+	
+	/*
+	 * The default registry is read on every literal conversion, so it is created by the class loader on 
+	 * first use instead of behind a lock.
+	 */
+	private static class DefaultRegistryHolder {
+		private static final DatatypeRegistry DEFAULT = createDefault();
+	}
+	
+	public static DatatypeRegistry getDefault() {
+		return DefaultRegistryHolder.DEFAULT;
+	}
+	
+	private static DatatypeRegistry createDefault() {
+		DatatypeRegistry registry = new DatatypeRegistry();
+		for (DatatypeHandler handler : ServiceLoader.load(DatatypeHandler.class)) {
+			registry.register(handler);
+		}
+		return registry;
+	}
+	
+	/**
+	 * Creates a registry containing the {@link HandledDatatypes}.
+	 */
+	public DatatypeRegistry() {
+		List<DatatypeHandler> ordered = new ArrayList<DatatypeHandler>();
+		List<DatatypeHandler> registered = new ArrayList<DatatypeHandler>();
+		for (HandledDatatypes handled : HandledDatatypes.values()) {
+			insertBySpecificity(ordered, handled);
+			registered.add(handled);
+		}
+		handlers = new Handlers(ordered, registered);
+	}
+	
+	/**
+	 * Registers a handler.  The handler is placed among the other handlers by the specificity of its 
+	 * datatype and takes precedence over previously registered handlers of the same datatype or java 
+	 * class.
+	 */
+	public synchronized void register(DatatypeHandler handler) {
+		List<DatatypeHandler> ordered = new ArrayList<DatatypeHandler>(handlers.ordered);
+		insertBySpecificity(ordered, handler);
+		List<DatatypeHandler> registered = new ArrayList<DatatypeHandler>();
+		registered.add(handler);
+		registered.addAll(handlers.registered);
+		handlers = new Handlers(ordered, registered);
+	}
+	
+	/*
+	 * Inserts the handler before the first handler whose datatype is not more specific, so that it comes 
+	 * before an earlier handler of the same datatype.
+	 */
+	private static void insertBySpecificity(List<DatatypeHandler> ordered, DatatypeHandler handler) {
+		int rank = getSpecificity(handler.getIri());
+		int index = 0;
+		while (index < ordered.size() && getSpecificity(ordered.get(index).getIri()) < rank) {
+			index++;
+		}
+		ordered.add(index, handler);
+	}
+	
+	private static int getSpecificity(IRI iri) {
+		for (int rank = 0; rank < SPECIFICITY_ORDER.size(); rank++) {
+			if (SPECIFICITY_ORDER.get(rank).getIRI().equals(iri)) {
+				return rank;
+			}
+		}
+		return SPECIFICITY_ORDER.size();
+	}
+	
+	/**
+	 * Returns the registered handlers, most specific datatypes first.
+	 */
+	public List<DatatypeHandler> getHandlers() {
+		return handlers.ordered;
+	}
+	
+	/**
+	 * Returns the datatypes of the OWL 2 datatype map that some handler matches, aliases such as xsd:int 
+	 * included, most specific first.  This is the order in which a reasoner should test candidate ranges: 
+	 * the first datatype that holds is the most specific one.
+	 */
+	public List<IRI> getCandidateRanges() {
+		return handlers.candidateRanges;
+	}
+	
+	public DatatypeHandler getHandler(OWLDatatype dt) {
+		if (dt == null) {
+			return null;
+		}
+		Handlers current = handlers;
+		IRI iri = dt.getIRI();
+		DatatypeHandler handler = current.byIri.get(iri);
+		if (handler == null && !current.unhandledIris.contains(iri)) {
+			for (DatatypeHandler candidate : current.ordered) {
+				if (candidate.isMatch(dt)) {
+					handler = candidate;
+					break;
+				}
+			}
+			if (handler != null) {
+				current.byIri.put(iri, handler);
+			}
+			else {
+				current.unhandledIris.add(iri);
+			}
+		}
+		return handler;
+	}
+	
+	/**
+	 * Finds the handler whose runtime class is the class of the value or one of its superclasses.
+	 * 
+	 * @return the handler or null if the value cannot be converted to a literal.
+	 */
+	public DatatypeHandler getHandlerForValue(Object o) {
+		if (o == null) {
+			return null;
+		}
+		Handlers current = handlers;
+		Class<?> valueClass = o.getClass();
+		DatatypeHandler handler = current.byClass.get(valueClass);
+		if (handler == null && !current.unhandledClasses.contains(valueClass)) {
+			for (Class<?> c = valueClass.getSuperclass(); c != null && handler == null; c = c.getSuperclass()) {
+				handler = current.byClass.get(c);
+			}
+			if (handler != null) {
+				current.byClass.put(valueClass, handler);
+			}
+			else {
+				current.unhandledClasses.add(valueClass);
+			}
+		}
+		return handler;
+	}
+	
+	/*
+	 * Replaced as a whole on registration so that lookups never see a partially updated registry.
+	 */
+	private static class Handlers {
+		private final List<DatatypeHandler> ordered;
+		private final List<DatatypeHandler> registered;
+		private final List<IRI> candidateRanges;
+		private final ConcurrentHashMap<IRI, DatatypeHandler> byIri = new ConcurrentHashMap<IRI, DatatypeHandler>();
+		private final ConcurrentHashMap<Class<?>, DatatypeHandler> byClass = new ConcurrentHashMap<Class<?>, DatatypeHandler>();
+		private final Set<IRI> unhandledIris = Collections.newSetFromMap(new ConcurrentHashMap<IRI, Boolean>());
+		private final Set<Class<?>> unhandledClasses = Collections.newSetFromMap(new ConcurrentHashMap<Class<?>, Boolean>());
+		
+		/**
+		 * @param ordered the handlers, most specific datatypes first.
+		 * @param registered the handlers, most recently registered first.
+		 */
+		public Handlers(List<DatatypeHandler> ordered, List<DatatypeHandler> registered) {
+			this.ordered = Collections.unmodifiableList(ordered);
+			this.registered = Collections.unmodifiableList(registered);
+			for (int index = registered.size() - 1; index >= 0; index--) {
+				DatatypeHandler handler = registered.get(index);
+				byIri.put(handler.getIri(), handler);
+				byClass.put(handler.getRuntimeClass(), handler);
+			}
+			OWLDataFactory factory = OWLManager.getOWLDataFactory();
+			List<IRI> candidates = new ArrayList<IRI>();
+			for (OWL2Datatype builtIn : SPECIFICITY_ORDER) {
+				OWLDatatype dt = factory.getOWLDatatype(builtIn.getIRI());
+				for (DatatypeHandler handler : ordered) {
+					if (handler.isMatch(dt)) {
+						candidates.add(dt.getIRI());
+						break;
+					}
+				}
+			}
+			candidateRanges = Collections.unmodifiableList(candidates);
+		}
+	}
+
+}
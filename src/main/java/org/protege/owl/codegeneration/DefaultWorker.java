@@ -13,6 +13,7 @@ import java.util.EnumMap;
 import java.util.Map;
 import java.util.TreeSet;
 
+import org.protege.owl.codegeneration.impl.VocabularyShards;
 import org.protege.owl.codegeneration.inference.CodeGenerationInference;
 import org.protege.owl.codegeneration.inference.SimpleInference;
 import org.protege.owl.codegeneration.names.CodeGenerationNames;
@@ -102,6 +103,14 @@ public class DefaultWorker implements Worker {
         }
         File implFile = new File(packageFile, "impl");
         implFile.mkdirs();
+        if (options.generateQueries()) {
+            File queryFile = new File(packageFile, "query");
+            queryFile.mkdirs();
+        }
+        if (options.generateBuilders()) {
+            File builderFile = new File(packageFile, "builder");
+            builderFile.mkdirs();
+        }
         String subPackage = options.getFactorySubPackage();
         String subPackagePath = subPackage.replace('.', '/');
         File factoryDirectory = new File(packageFile, subPackagePath);
@@ -118,11 +127,33 @@ public class DefaultWorker implements Worker {
     	return getImplementationFile(implName);
     }
     
+    public File getQueryFile(OWLClass owlClass) {
+    	String queryName = names.getInterfaceName(owlClass) + "Query";
+    	return getPackageFile("query/" + queryName);
+    }
+    
+    public File getBuilderFile(OWLClass owlClass) {
+    	String builderName = names.getInterfaceName(owlClass) + "Builder";
+    	return getPackageFile("builder/" + builderName);
+    }
+    
     public File getVocabularyFile() {
     	return new File(options.getOutputFolder(),
     			options.getVocabularyFqn().replace('.', '/') +".java");
     }
     
+    public int getVocabularyShards() {
+    	return options.getVocabularyShards();
+    }
+    
+    public boolean generateBuilders() {
+    	return options.generateBuilders();
+    }
+    
+    public boolean generateQueries() {
+    	return options.generateQueries();
+    }
+    
     public File getFactoryFile() {
     	return new File(options.getOutputFolder(),
     			options.getFactoryFqn().replace('.', '/')+".java");
@@ -130,7 +161,7 @@ public class DefaultWorker implements Worker {
 
 
 	public String getTemplate(CodeGenerationPhase phase, OWLClass owlClass, Object owlProperty) {
-    	String resource = "/" + phase.getTemplateName();
+    	String resource = "/" + (options.isCompact() ? phase.getCompactTemplateName() : phase.getTemplateName());
 		String template = templateMap.get(phase);
 		if (template == null) {
 			try {
@@ -163,19 +194,28 @@ public class DefaultWorker implements Worker {
 									   OWLEntity owlProperty) {
 		switch (phase) {
 		case CREATE_VOCABULARY_HEADER:
+		case CREATE_SHARDED_VOCABULARY_HEADER:
 		case CREATE_FACTORY_HEADER:
 			configureCommonSubstitutions(substitutions, owlClass, owlProperty);
 			break;
 		case CREATE_CLASS_VOCABULARY:
+		case CREATE_SHARDED_CLASS_VOCABULARY:
 		case CREATE_FACTORY_CLASS:
+		case CREATE_FACTORY_BUILDER:
+		case CREATE_FACTORY_QUERY:
+		case CREATE_FACTORY_CLASS_MAPPING:
 			configureClassSubstitutions(substitutions, owlClass);
 			break;
 		case CREATE_OBJECT_PROPERTY_VOCABULARY:
 		case CREATE_DATA_PROPERTY_VOCABULARY:
+		case CREATE_SHARDED_OBJECT_PROPERTY_VOCABULARY:
+		case CREATE_SHARDED_DATA_PROPERTY_VOCABULARY:
 			configurePropertySubstitutions(substitutions, owlProperty);
 			break;
 		case CREATE_INTERFACE_HEADER:
 		case CREATE_IMPLEMENTATION_HEADER:
+		case CREATE_QUERY_HEADER:
+		case CREATE_BUILDER_HEADER:
 			configureCommonSubstitutions(substitutions, owlClass, owlProperty);
 			configureClassSubstitutions(substitutions, owlClass);
 			break;
@@ -183,10 +223,23 @@ public class DefaultWorker implements Worker {
 		case CREATE_FUNCTIONAL_DATA_PROPERTY_INTERFACE:
 		case CREATE_DATA_PROPERTY_IMPLEMENTATION:
 		case CREATE_FUNCTIONAL_DATA_PROPERTY_IMPLEMENTATION:
+		case CREATE_PRIMITIVE_DATA_PROPERTY_INTERFACE:
+		case CREATE_FUNCTIONAL_PRIMITIVE_DATA_PROPERTY_INTERFACE:
+		case CREATE_PRIMITIVE_DATA_PROPERTY_IMPLEMENTATION:
+		case CREATE_FUNCTIONAL_PRIMITIVE_DATA_PROPERTY_IMPLEMENTATION:
 		case CREATE_OBJECT_PROPERTY_INTERFACE:
 		case CREATE_FUNCTIONAL_OBJECT_PROPERTY_INTERFACE:
 		case CREATE_OBJECT_PROPERTY_IMPLEMENTATION:
 		case CREATE_FUNCTIONAL_OBJECT_PROPERTY_IMPLEMENTATION:
+		case CREATE_FACTORY_INVERSE_OBJECT_PROPERTY:
+		case CREATE_OBJECT_PROPERTY_QUERY:
+		case CREATE_DATA_PROPERTY_QUERY:
+		case CREATE_ORDERED_DATA_PROPERTY_QUERY:
+		case CREATE_STRING_DATA_PROPERTY_QUERY:
+		case CREATE_OBJECT_PROPERTY_BUILDER:
+		case CREATE_FUNCTIONAL_OBJECT_PROPERTY_BUILDER:
+		case CREATE_DATA_PROPERTY_BUILDER:
+		case CREATE_FUNCTIONAL_DATA_PROPERTY_BUILDER:
 			configureClassSubstitutions(substitutions, owlClass);
 			configurePropertySubstitutions(substitutions, owlProperty);
 	        propertyDeclarations.get(owlClass, owlProperty).configureSubstitutions(substitutions);
@@ -194,7 +247,13 @@ public class DefaultWorker implements Worker {
 		case CREATE_FACTORY_TAIL:
 		case CREATE_IMPLEMENTATION_TAIL:
 		case CREATE_INTERFACE_TAIL:
+		case CREATE_QUERY_TAIL:
+		case CREATE_BUILDER_TAIL:
 		case CREATE_VOCABULARY_TAIL:
+		case CREATE_VOCABULARY_SHARD_HEADER:
+		case CREATE_VOCABULARY_SHARD_TAIL:
+		case CREATE_FACTORY_CLASS_MAPPING_HEADER:
+		case CREATE_FACTORY_CLASS_MAPPING_TAIL:
 			break;
 		default:
 			break;
@@ -221,7 +280,8 @@ public class DefaultWorker implements Worker {
         substitutions.put(IMPLEMENTATION_NAME, names.getImplementationName(owlClass));
         substitutions.put(JAVADOC, getJavadoc(owlClass));
         substitutions.put(UPPERCASE_CLASS, upperCaseClassName);
-        substitutions.put(SubstitutionVariable.VOCABULARY_CLASS, "CLASS_" + upperCaseClassName);
+        substitutions.put(SubstitutionVariable.VOCABULARY_CLASS, 
+                          getVocabularyConstant(Constants.VOCABULARY_CLASS_SHARD, "CLASS_" + upperCaseClassName, owlClass));
         substitutions.put(CLASS_IRI, owlClass.getIRI().toString());
         substitutions.put(INTERFACE_LIST, getSuperInterfaceList(owlClass));
     }
@@ -240,10 +300,12 @@ public class DefaultWorker implements Worker {
         String propertyCapitalized = NamingUtilities.convertInitialLetterToUpperCase(propertyName);
         String propertyUpperCase = propertyName.toUpperCase();
         if (owlProperty instanceof OWLObjectProperty) {
-            substitutions.put(SubstitutionVariable.VOCABULARY_PROPERTY, "OBJECT_PROPERTY_" + propertyUpperCase);
+            substitutions.put(SubstitutionVariable.VOCABULARY_PROPERTY, 
+                              getVocabularyConstant(Constants.VOCABULARY_OBJECT_PROPERTY_SHARD, "OBJECT_PROPERTY_" + propertyUpperCase, owlProperty));
         }
         else {
-            substitutions.put(SubstitutionVariable.VOCABULARY_PROPERTY, "DATA_PROPERTY_" + propertyUpperCase);
+            substitutions.put(SubstitutionVariable.VOCABULARY_PROPERTY, 
+                              getVocabularyConstant(Constants.VOCABULARY_DATA_PROPERTY_SHARD, "DATA_PROPERTY_" + propertyUpperCase, owlProperty));
         }
         substitutions.put(JAVADOC, getJavadoc(owlProperty));
         substitutions.put(PROPERTY, propertyName);
@@ -254,6 +316,18 @@ public class DefaultWorker implements Worker {
 	
 
 	
+	/*
+	 * The name of a vocabulary constant relative to the vocabulary class.  In a sharded vocabulary the constant
+	 * is in the holder class of its shard.
+	 */
+	private String getVocabularyConstant(String shardPrefix, String constant, OWLEntity entity) {
+		int shards = options.getVocabularyShards();
+		if (shards == 0) {
+			return constant;
+		}
+		return shardPrefix + VocabularyShards.getShard(entity.getIRI().toString(), shards) + "." + constant;
+	}
+	
 	/* ******************************************************************************
 	 * 
 	 */
@@ -298,13 +372,17 @@ public class DefaultWorker implements Worker {
     }
 
 	private File getImplementationFile(String implName) {
+	    return getPackageFile("impl/" + implName);
+	}
+	
+	private File getPackageFile(String relativeName) {
 	    String pack = options.getPackage();
 	    if (pack != null) {
 	        pack = pack.replace('.', '/') + "/";
 	    } else {
 	        pack = "";
 	    }
-	    return new File(options.getOutputFolder(), pack + "impl/" + implName + ".java");
+	    return new File(options.getOutputFolder(), pack + relativeName + ".java");
 	}
 	
 	private String getJavadoc(OWLEntity e) {
@@ -1,5 +1,13 @@
 package org.protege.owl.codegeneration;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import javax.xml.datatype.DatatypeConfigurationException;
 import javax.xml.datatype.DatatypeFactory;
 import javax.xml.datatype.XMLGregorianCalendar;
@@ -11,8 +19,12 @@ import org.semanticweb.owlapi.model.OWLLiteral;
 import org.semanticweb.owlapi.vocab.OWL2Datatype;
 import org.semanticweb.owlapi.vocab.XSDVocabulary;
 
-public enum HandledDatatypes {
-	STRING(XSDVocabulary.STRING.getIRI(), "String", "String") {
+/**
+ * The built-in datatype handlers.  The {@link DatatypeRegistry} orders them by the derivation of their
+ * datatypes, so the order of the constants does not matter.
+ */
+public enum HandledDatatypes implements DatatypeHandler {
+	STRING(XSDVocabulary.STRING.getIRI(), "String", "String", String.class) {
 		
 		public Object getObject(OWLLiteral literal) {
 			return literal.getLiteral();
@@ -27,7 +39,7 @@ public enum HandledDatatypes {
 			}
 		}
 	},
-	FLOAT(XSDVocabulary.FLOAT.getIRI(), "float", "Float") {
+	FLOAT(XSDVocabulary.FLOAT.getIRI(), "float", "Float", Float.class) {
 	
 		public Object getObject(OWLLiteral literal) {
 			return Float.parseFloat(literal.getLiteral());
@@ -42,7 +54,7 @@ public enum HandledDatatypes {
 			}
 		}
 	},
-	BOOLEAN(XSDVocabulary.BOOLEAN.getIRI(), "boolean", "Boolean") {
+	BOOLEAN(XSDVocabulary.BOOLEAN.getIRI(), "boolean", "Boolean", Boolean.class) {
 		
 		public Object getObject(OWLLiteral literal) {
 			return Boolean.parseBoolean(literal.getLiteral());
@@ -57,27 +69,52 @@ public enum HandledDatatypes {
 			}
 		}
 	},
-	INTEGER(XSDVocabulary.INTEGER.getIRI(), "int", "Integer") {
+	BYTE(XSDVocabulary.BYTE.getIRI(), "byte", "Byte", Byte.class) {
 		
 		public Object getObject(OWLLiteral literal) {
-			return Integer.parseInt(literal.getLiteral());
+			return Byte.parseByte(literal.getLiteral());
 		}
 		
 		public OWLLiteral getLiteral(OWLDataFactory factory, Object o) {
-			if (o instanceof Integer) {
-				return factory.getOWLLiteral((Integer) o);
+			if (o instanceof Byte) {
+				return factory.getOWLLiteral(o.toString(), OWL2Datatype.XSD_BYTE);
 			}
 			else {
 				return null;
 			}
 		}
+	},
+	SHORT(XSDVocabulary.SHORT.getIRI(), "short", "Short", Short.class) {
 		
-		@Override
-		public boolean isMatch(OWLDatatype dt) {
-			return dt.getIRI().equals(XSDVocabulary.INT.getIRI()) || dt.getIRI().equals(XSDVocabulary.INTEGER.getIRI());
+		public Object getObject(OWLLiteral literal) {
+			return Short.parseShort(literal.getLiteral());
+		}
+		
+		public OWLLiteral getLiteral(OWLDataFactory factory, Object o) {
+			if (o instanceof Short) {
+				return factory.getOWLLiteral(o.toString(), OWL2Datatype.XSD_SHORT);
+			}
+			else {
+				return null;
+			}
+		}
+	},
+	NON_NEGATIVE_INTEGER(XSDVocabulary.NON_NEGATIVE_INTEGER.getIRI(), "java.math.BigInteger", "java.math.BigInteger", BigInteger.class) {
+		
+		public Object getObject(OWLLiteral literal) {
+			return new BigInteger(literal.getLiteral());
+		}
+		
+		public OWLLiteral getLiteral(OWLDataFactory factory, Object o) {
+			if (o instanceof BigInteger && ((BigInteger) o).signum() >= 0) {
+				return factory.getOWLLiteral(o.toString(), OWL2Datatype.XSD_NON_NEGATIVE_INTEGER);
+			}
+			else {
+				return null;
+			}
 		}
 	},
-	LONG(XSDVocabulary.LONG.getIRI(), "long", "Long") {
+	LONG(XSDVocabulary.LONG.getIRI(), "long", "Long", Long.class) {
 		
 		public Object getObject(OWLLiteral literal) {
 			return Long.parseLong(literal.getLiteral());
@@ -97,7 +134,57 @@ public enum HandledDatatypes {
 			return dt.getIRI().equals(XSDVocabulary.LONG.getIRI());
 		}
 	},
-	URI(XSDVocabulary.ANY_URI.getIRI(), "URI", "URI") {
+	INTEGER(XSDVocabulary.INTEGER.getIRI(), "int", "Integer", Integer.class) {
+		
+		public Object getObject(OWLLiteral literal) {
+			return Integer.parseInt(literal.getLiteral());
+		}
+		
+		public OWLLiteral getLiteral(OWLDataFactory factory, Object o) {
+			if (o instanceof Integer) {
+				return factory.getOWLLiteral((Integer) o);
+			}
+			else {
+				return null;
+			}
+		}
+		
+		@Override
+		public boolean isMatch(OWLDatatype dt) {
+			return dt.getIRI().equals(XSDVocabulary.INT.getIRI()) || dt.getIRI().equals(XSDVocabulary.INTEGER.getIRI());
+		}
+	},
+	DECIMAL(XSDVocabulary.DECIMAL.getIRI(), "java.math.BigDecimal", "java.math.BigDecimal", BigDecimal.class) {
+		
+		public Object getObject(OWLLiteral literal) {
+			return new BigDecimal(literal.getLiteral());
+		}
+		
+		public OWLLiteral getLiteral(OWLDataFactory factory, Object o) {
+			if (o instanceof BigDecimal) {
+				return factory.getOWLLiteral(((BigDecimal) o).toPlainString(), OWL2Datatype.XSD_DECIMAL);
+			}
+			else {
+				return null;
+			}
+		}
+	},
+	DOUBLE(XSDVocabulary.DOUBLE.getIRI(), "double", "Double", Double.class) {
+		
+		public Object getObject(OWLLiteral literal) {
+			return literal.parseDouble();
+		}
+		
+		public OWLLiteral getLiteral(OWLDataFactory factory, Object o) {
+			if (o instanceof Double) {
+				return factory.getOWLLiteral((Double) o);
+			}
+			else {
+				return null;
+			}
+		}
+	},
+	URI(XSDVocabulary.ANY_URI.getIRI(), "URI", "URI", java.net.URI.class) {
 
 		public Object getObject(OWLLiteral literal) {
 			return java.net.URI.create(literal.getLiteral());
@@ -117,14 +204,39 @@ public enum HandledDatatypes {
 			return dt.getIRI().equals(XSDVocabulary.ANY_URI.getIRI());
 		}
 	},
-	DATE_TIME(XSDVocabulary.DATE_TIME.getIRI(), "XMLGregorianCalendar", "XMLGregorianCalendar") {
+	DATE_TIME_STAMP(XSDVocabulary.DATE_TIME_STAMP.getIRI(), "java.time.OffsetDateTime", "java.time.OffsetDateTime", OffsetDateTime.class) {
+		
+		public Object getObject(OWLLiteral literal) {
+			return OffsetDateTime.parse(literal.getLiteral());
+		}
+		
+		public OWLLiteral getLiteral(OWLDataFactory factory, Object o) {
+			if (o instanceof OffsetDateTime) {
+				return factory.getOWLLiteral(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format((OffsetDateTime) o), OWL2Datatype.XSD_DATE_TIME_STAMP);
+			}
+			else {
+				return null;
+			}
+		}
+	},
+	DATE_TIME(XSDVocabulary.DATE_TIME.getIRI(), "XMLGregorianCalendar", "XMLGregorianCalendar", XMLGregorianCalendar.class) {
 
+		/*
+		 * XMLGregorianCalendar is mutable so the cached value is never handed out directly.
+		 */
 		public Object getObject(OWLLiteral literal) {
-			try {
-				return DatatypeFactory.newInstance().newXMLGregorianCalendar(literal.getLiteral());
-			} catch (DatatypeConfigurationException e) {
-				throw new RuntimeException(e);
+			String lexicalForm = literal.getLiteral();
+			XMLGregorianCalendar calendar;
+			synchronized (CALENDAR_CACHE) {
+				calendar = CALENDAR_CACHE.get(lexicalForm);
 			}
+			if (calendar == null) {
+				calendar = DATATYPE_FACTORY.get().newXMLGregorianCalendar(lexicalForm);
+				synchronized (CALENDAR_CACHE) {
+					CALENDAR_CACHE.put(lexicalForm, calendar);
+				}
+			}
+			return calendar.clone();
 		}
 
 		public OWLLiteral getLiteral(OWLDataFactory factory, Object o) {
@@ -140,17 +252,63 @@ public enum HandledDatatypes {
 		public boolean isMatch(OWLDatatype dt) {
 			return dt.getIRI().equals(XSDVocabulary.DATE_TIME.getIRI());
 		}
+	},
+	/*
+	 * xsd:date is not part of the OWL 2 datatype map, so reasoners will not infer it as a range; 
+	 * it is only found through declared ranges.  A time zone in the lexical form is dropped.
+	 */
+	DATE(XSDVocabulary.DATE.getIRI(), "java.time.LocalDate", "java.time.LocalDate", LocalDate.class) {
+		
+		public Object getObject(OWLLiteral literal) {
+			return LocalDate.parse(literal.getLiteral(), DateTimeFormatter.ISO_DATE);
+		}
+		
+		public OWLLiteral getLiteral(OWLDataFactory factory, Object o) {
+			if (o instanceof LocalDate) {
+				return factory.getOWLLiteral(o.toString(), factory.getOWLDatatype(XSDVocabulary.DATE.getIRI()));
+			}
+			else {
+				return null;
+			}
+		}
 	}
 	;
 	
+	private static final int CALENDAR_CACHE_SIZE = 256;
+	
+	/*
+	 * DatatypeFactory.newInstance() goes through the service loader on every call and the 
+	 * DatatypeFactory api does not promise thread safety, so each thread keeps its own instance.
+	 */
+	private static final ThreadLocal<DatatypeFactory> DATATYPE_FACTORY = new ThreadLocal<DatatypeFactory>() {
+		@Override
+		protected DatatypeFactory initialValue() {
+			try {
+				return DatatypeFactory.newInstance();
+			} catch (DatatypeConfigurationException e) {
+				throw new CodeGenerationRuntimeException(e);
+			}
+		}
+	};
+	
+	@SuppressWarnings("serial")
+	private static final Map<String, XMLGregorianCalendar> CALENDAR_CACHE = new LinkedHashMap<String, XMLGregorianCalendar>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, XMLGregorianCalendar> eldest) {
+			return size() > CALENDAR_CACHE_SIZE;
+		}
+	};
+	
 	private IRI iri;
 	private String javaType;
 	private String javaClass;
+	private Class<?> runtimeClass;
 	
-	private HandledDatatypes(IRI iri, String javaType, String javaClass) {
+	private HandledDatatypes(IRI iri, String javaType, String javaClass, Class<?> runtimeClass) {
 		this.iri = iri;
 		this.javaType = javaType;
 		this.javaClass = javaClass;
+		this.runtimeClass = runtimeClass;
 	}
 	
 	public IRI getIri() {
@@ -164,11 +322,46 @@ public enum HandledDatatypes {
 	public String getJavaClass() {
 		return javaClass;
 	}
+	
+	/**
+	 * Returns the class of the java objects handled by this datatype.  Values may also be instances 
+	 * of a subclass (e.g. the implementation class of XMLGregorianCalendar).
+	 */
+	public Class<?> getRuntimeClass() {
+		return runtimeClass;
+	}
+
+	/**
+	 * Returns true if the java type of this datatype is a primitive type (e.g. int) rather than the 
+	 * java class (e.g. Integer).  Properties with such a range get primitive accessors that read the 
+	 * lexical form of the literal directly.
+	 */
+	public boolean isPrimitive() {
+		return !javaType.equals(javaClass);
+	}
 
 	public boolean isMatch(OWLDatatype dt) {
 		return dt.getIRI().equals(iri);
 	}
 	
+	/**
+	 * Finds the handler of a datatype in the default {@link DatatypeRegistry}, which includes the 
+	 * registered handlers.
+	 */
+	public static DatatypeHandler getHandledDatatype(OWLDatatype dt) {
+		return DatatypeRegistry.getDefault().getHandler(dt);
+	}
+	
+	/**
+	 * Finds the handler in the default {@link DatatypeRegistry} whose runtime class is the class of the 
+	 * value or one of its superclasses.
+	 * 
+	 * @return the handler or null if the value cannot be converted to a literal.
+	 */
+	public static DatatypeHandler getHandledDatatypeForValue(Object o) {
+		return DatatypeRegistry.getDefault().getHandlerForValue(o);
+	}
+	
 	public abstract Object getObject(OWLLiteral literal);
 	
 	public abstract OWLLiteral getLiteral(OWLDataFactory factory, Object o);
@@ -1,13 +1,25 @@
 package org.protege.owl.codegeneration;
 
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_BUILDER_HEADER;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_BUILDER_TAIL;
 import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_CLASS_VOCABULARY;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_DATA_PROPERTY_BUILDER;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_FUNCTIONAL_DATA_PROPERTY_BUILDER;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_FUNCTIONAL_OBJECT_PROPERTY_BUILDER;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_OBJECT_PROPERTY_BUILDER;
 import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_DATA_PROPERTY_IMPLEMENTATION;
 import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_FUNCTIONAL_DATA_PROPERTY_IMPLEMENTATION;
 import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_DATA_PROPERTY_INTERFACE;
 import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_FUNCTIONAL_DATA_PROPERTY_INTERFACE;
 import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_DATA_PROPERTY_VOCABULARY;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_FACTORY_BUILDER;
 import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_FACTORY_CLASS;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_FACTORY_CLASS_MAPPING;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_FACTORY_CLASS_MAPPING_HEADER;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_FACTORY_CLASS_MAPPING_TAIL;
 import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_FACTORY_HEADER;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_FACTORY_INVERSE_OBJECT_PROPERTY;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_FACTORY_QUERY;
 import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_FACTORY_TAIL;
 import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_IMPLEMENTATION_HEADER;
 import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_IMPLEMENTATION_TAIL;
@@ -18,18 +30,42 @@ import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_FUNCTION
 import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_OBJECT_PROPERTY_INTERFACE;
 import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_FUNCTIONAL_OBJECT_PROPERTY_INTERFACE;
 import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_OBJECT_PROPERTY_VOCABULARY;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_PRIMITIVE_DATA_PROPERTY_IMPLEMENTATION;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_DATA_PROPERTY_QUERY;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_OBJECT_PROPERTY_QUERY;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_ORDERED_DATA_PROPERTY_QUERY;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_QUERY_HEADER;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_QUERY_TAIL;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_STRING_DATA_PROPERTY_QUERY;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_FUNCTIONAL_PRIMITIVE_DATA_PROPERTY_IMPLEMENTATION;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_PRIMITIVE_DATA_PROPERTY_INTERFACE;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_FUNCTIONAL_PRIMITIVE_DATA_PROPERTY_INTERFACE;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_SHARDED_CLASS_VOCABULARY;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_SHARDED_DATA_PROPERTY_VOCABULARY;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_SHARDED_OBJECT_PROPERTY_VOCABULARY;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_SHARDED_VOCABULARY_HEADER;
 import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_VOCABULARY_HEADER;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_VOCABULARY_SHARD_HEADER;
+import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_VOCABULARY_SHARD_TAIL;
 import static org.protege.owl.codegeneration.CodeGenerationPhase.CREATE_VOCABULARY_TAIL;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.protege.owl.codegeneration.impl.VocabularyShards;
 import org.protege.owl.codegeneration.inference.CodeGenerationInference;
 import org.semanticweb.owlapi.model.OWLClass;
 import org.semanticweb.owlapi.model.OWLDataProperty;
@@ -67,6 +103,12 @@ public class JavaCodeGenerator {
         for (OWLClass owlClass : owlClassList) {
             createInterface(owlClass);
             createImplementation(owlClass);
+            if (worker.generateQueries()) {
+                createQuery(owlClass);
+            }
+            if (worker.generateBuilders()) {
+                createBuilder(owlClass);
+            }
         }
     }
 
@@ -111,11 +153,18 @@ public class JavaCodeGenerator {
         }
         
         for (OWLDataProperty owlDataProperty :owlDataProperties) {
+        	boolean primitive = hasPrimitiveJavaType(owlClass, owlDataProperty);
         	if (inference.isFunctional(owlDataProperty)) {
         		fillAndWriteTemplate(printWriter, CREATE_FUNCTIONAL_DATA_PROPERTY_INTERFACE, substitutions, owlClass, owlDataProperty);
+        		if (primitive) {
+        			fillAndWriteTemplate(printWriter, CREATE_FUNCTIONAL_PRIMITIVE_DATA_PROPERTY_INTERFACE, substitutions, owlClass, owlDataProperty);
+        		}
         	}
         	else {
         		fillAndWriteTemplate(printWriter, CREATE_DATA_PROPERTY_INTERFACE, substitutions, owlClass, owlDataProperty);
+        		if (primitive) {
+        			fillAndWriteTemplate(printWriter, CREATE_PRIMITIVE_DATA_PROPERTY_INTERFACE, substitutions, owlClass, owlDataProperty);
+        		}
         	}
         }
     	
@@ -139,28 +188,126 @@ public class JavaCodeGenerator {
         
     	fillAndWriteTemplate(printWriter, CREATE_IMPLEMENTATION_HEADER, substitutions, owlClass, null);
         
+    	/*
+    	 * The compact templates refer to the properties by their index in a table written by the tail.
+    	 */
+    	StringBuilder propertyTable = new StringBuilder();
+    	int propertyIndex = 0;
     	for (OWLObjectProperty owlObjectProperty : owlObjectProperties) {
+    		substitutions.put(SubstitutionVariable.PROPERTY_INDEX, Integer.toString(propertyIndex++));
     		if (inference.isFunctional(owlObjectProperty)) {
                 fillAndWriteTemplate(printWriter, CREATE_FUNCTIONAL_OBJECT_PROPERTY_IMPLEMENTATION, substitutions, owlClass, owlObjectProperty);    		
     		}
     		else {
     			fillAndWriteTemplate(printWriter, CREATE_OBJECT_PROPERTY_IMPLEMENTATION, substitutions, owlClass, owlObjectProperty);
     		}
+    		addToPropertyTable(propertyTable, substitutions);
         }
         
         for (OWLDataProperty owlDataProperty :owlDataProperties) {
+    		substitutions.put(SubstitutionVariable.PROPERTY_INDEX, Integer.toString(propertyIndex++));
+        	boolean primitive = hasPrimitiveJavaType(owlClass, owlDataProperty);
         	if (inference.isFunctional(owlDataProperty)) {
                 fillAndWriteTemplate(printWriter, CREATE_FUNCTIONAL_DATA_PROPERTY_IMPLEMENTATION, substitutions, owlClass, owlDataProperty);        		
+                if (primitive) {
+                	fillAndWriteTemplate(printWriter, CREATE_FUNCTIONAL_PRIMITIVE_DATA_PROPERTY_IMPLEMENTATION, substitutions, owlClass, owlDataProperty);
+                }
         	}
         	else {
         		fillAndWriteTemplate(printWriter, CREATE_DATA_PROPERTY_IMPLEMENTATION, substitutions, owlClass, owlDataProperty);
+        		if (primitive) {
+        			fillAndWriteTemplate(printWriter, CREATE_PRIMITIVE_DATA_PROPERTY_IMPLEMENTATION, substitutions, owlClass, owlDataProperty);
+        		}
         	}
+    		addToPropertyTable(propertyTable, substitutions);
         }
         
+        substitutions.put(SubstitutionVariable.PROPERTY_TABLE, propertyTable.toString());
         fillAndWriteTemplate(printWriter, CREATE_IMPLEMENTATION_TAIL, substitutions, owlClass, null);
     }
 
+    private static void addToPropertyTable(StringBuilder propertyTable, Map<SubstitutionVariable, String> substitutions) {
+        if (propertyTable.length() > 0) {
+            propertyTable.append(", ");
+        }
+        propertyTable.append(Constants.VOCABULARY_CLASS_NAME).append('.').append(substitutions.get(SubstitutionVariable.VOCABULARY_PROPERTY));
+    }
+
+
+
+    private void createQuery(OWLClass owlClass) throws IOException {
+        File baseFile = worker.getQueryFile(owlClass);
+        FileWriter fileWriter = new FileWriter(baseFile);
+        PrintWriter printWriter = new PrintWriter(fileWriter);
+        printQueryCode(owlClass, printWriter);
+        printWriter.close();
+    }
+
+    private void printQueryCode(OWLClass owlClass, PrintWriter printWriter) {
+        Map<SubstitutionVariable, String> substitutions = new EnumMap<SubstitutionVariable, String>(SubstitutionVariable.class);
+
+        fillAndWriteTemplate(printWriter, CREATE_QUERY_HEADER, substitutions, owlClass, null);
+
+        for (OWLObjectProperty owlObjectProperty : worker.getObjectPropertiesForClass(owlClass)) {
+            fillAndWriteTemplate(printWriter, CREATE_OBJECT_PROPERTY_QUERY, substitutions, owlClass, owlObjectProperty);
+        }
+
+        for (OWLDataProperty owlDataProperty : worker.getDataPropertiesForClass(owlClass)) {
+            fillAndWriteTemplate(printWriter, CREATE_DATA_PROPERTY_QUERY, substitutions, owlClass, owlDataProperty);
+            DatatypeHandler handled = DatatypeRegistry.getDefault().getHandler(inference.getRange(owlClass, owlDataProperty));
+            if (handled != null && isOrdered(handled.getRuntimeClass())) {
+                fillAndWriteTemplate(printWriter, CREATE_ORDERED_DATA_PROPERTY_QUERY, substitutions, owlClass, owlDataProperty);
+            }
+            else if (handled != null && handled.getRuntimeClass().equals(String.class)) {
+                fillAndWriteTemplate(printWriter, CREATE_STRING_DATA_PROPERTY_QUERY, substitutions, owlClass, owlDataProperty);
+            }
+        }
+
+        fillAndWriteTemplate(printWriter, CREATE_QUERY_TAIL, substitutions, owlClass, null);
+    }
+
+    private void createBuilder(OWLClass owlClass) throws IOException {
+        File baseFile = worker.getBuilderFile(owlClass);
+        FileWriter fileWriter = new FileWriter(baseFile);
+        PrintWriter printWriter = new PrintWriter(fileWriter);
+        printBuilderCode(owlClass, printWriter);
+        printWriter.close();
+    }
+
+    private void printBuilderCode(OWLClass owlClass, PrintWriter printWriter) {
+        Map<SubstitutionVariable, String> substitutions = new EnumMap<SubstitutionVariable, String>(SubstitutionVariable.class);
+
+        fillAndWriteTemplate(printWriter, CREATE_BUILDER_HEADER, substitutions, owlClass, null);
+
+        for (OWLObjectProperty owlObjectProperty : worker.getObjectPropertiesForClass(owlClass)) {
+            if (inference.isFunctional(owlObjectProperty)) {
+                fillAndWriteTemplate(printWriter, CREATE_FUNCTIONAL_OBJECT_PROPERTY_BUILDER, substitutions, owlClass, owlObjectProperty);
+            }
+            else {
+                fillAndWriteTemplate(printWriter, CREATE_OBJECT_PROPERTY_BUILDER, substitutions, owlClass, owlObjectProperty);
+            }
+        }
+
+        for (OWLDataProperty owlDataProperty : worker.getDataPropertiesForClass(owlClass)) {
+            if (inference.isFunctional(owlDataProperty)) {
+                fillAndWriteTemplate(printWriter, CREATE_FUNCTIONAL_DATA_PROPERTY_BUILDER, substitutions, owlClass, owlDataProperty);
+            }
+            else {
+                fillAndWriteTemplate(printWriter, CREATE_DATA_PROPERTY_BUILDER, substitutions, owlClass, owlDataProperty);
+            }
+        }
+
+        fillAndWriteTemplate(printWriter, CREATE_BUILDER_TAIL, substitutions, owlClass, null);
+    }
 
+    /*
+     * Synchronize this with PropertyIndexes.getKey.
+     */
+    private static boolean isOrdered(Class<?> c) {
+        return Number.class.isAssignableFrom(c)
+                || Temporal.class.isAssignableFrom(c)
+                || XMLGregorianCalendar.class.isAssignableFrom(c);
+    }
 
     /** Initilizes the vocabulary code generation 
      * @param owlClassList
@@ -171,6 +318,11 @@ public class JavaCodeGenerator {
         FileWriter vocabularyfileWriter = new FileWriter(vocabularyFile);
         PrintWriter vocabularyPrintWriter = new PrintWriter(vocabularyfileWriter);
     	Map<SubstitutionVariable, String> substitutions = new EnumMap<SubstitutionVariable, String>(SubstitutionVariable.class);
+        if (worker.getVocabularyShards() > 0) {
+            printShardedVocabularyCode(owlClassList, vocabularyPrintWriter, substitutions);
+            vocabularyPrintWriter.close();
+            return;
+        }
         fillAndWriteTemplate(vocabularyPrintWriter, CREATE_VOCABULARY_HEADER, substitutions, null, null);
 
         for (OWLClass owlClass : owlClassList) {
@@ -190,6 +342,90 @@ public class JavaCodeGenerator {
         vocabularyPrintWriter.close();
     }
 
+    /*
+     * Writes each shard as a nested class.  The entities of a shard are sorted by IRI, which is the order
+     * in which VocabularyShards indexes them.
+     */
+    private void printShardedVocabularyCode(Collection<OWLClass> owlClassList,
+                                            PrintWriter printWriter,
+                                            Map<SubstitutionVariable, String> substitutions) {
+        int shardCount = worker.getVocabularyShards();
+        List<List<OWLClass>> classShards = getShards(owlClassList, shardCount);
+        List<List<OWLObjectProperty>> objectPropertyShards = getShards(worker.getOwlObjectProperties(), shardCount);
+        List<List<OWLDataProperty>> dataPropertyShards = getShards(worker.getOwlDataProperties(), shardCount);
+        substitutions.put(SubstitutionVariable.CLASS_SHARD_STARTS, getShardStarts(classShards));
+        substitutions.put(SubstitutionVariable.OBJECT_PROPERTY_SHARD_STARTS, getShardStarts(objectPropertyShards));
+        substitutions.put(SubstitutionVariable.DATA_PROPERTY_SHARD_STARTS, getShardStarts(dataPropertyShards));
+        fillAndWriteTemplate(printWriter, CREATE_SHARDED_VOCABULARY_HEADER, substitutions, null, null);
+
+        for (int shard = 0; shard < shardCount; shard++) {
+            if (classShards.get(shard).isEmpty()) {
+                continue;
+            }
+            substitutions.put(SubstitutionVariable.VOCABULARY_SHARD, Constants.VOCABULARY_CLASS_SHARD + shard);
+            fillAndWriteTemplate(printWriter, CREATE_VOCABULARY_SHARD_HEADER, substitutions, null, null);
+            for (OWLClass owlClass : classShards.get(shard)) {
+                fillAndWriteTemplate(printWriter, CREATE_SHARDED_CLASS_VOCABULARY, substitutions, owlClass, null);
+            }
+            fillAndWriteTemplate(printWriter, CREATE_VOCABULARY_SHARD_TAIL, substitutions, null, null);
+        }
+
+        for (int shard = 0; shard < shardCount; shard++) {
+            if (objectPropertyShards.get(shard).isEmpty()) {
+                continue;
+            }
+            substitutions.put(SubstitutionVariable.VOCABULARY_SHARD, Constants.VOCABULARY_OBJECT_PROPERTY_SHARD + shard);
+            fillAndWriteTemplate(printWriter, CREATE_VOCABULARY_SHARD_HEADER, substitutions, null, null);
+            for (OWLObjectProperty owlObjectProperty : objectPropertyShards.get(shard)) {
+                fillAndWriteTemplate(printWriter, CREATE_SHARDED_OBJECT_PROPERTY_VOCABULARY, substitutions, null, owlObjectProperty);
+            }
+            fillAndWriteTemplate(printWriter, CREATE_VOCABULARY_SHARD_TAIL, substitutions, null, null);
+        }
+
+        for (int shard = 0; shard < shardCount; shard++) {
+            if (dataPropertyShards.get(shard).isEmpty()) {
+                continue;
+            }
+            substitutions.put(SubstitutionVariable.VOCABULARY_SHARD, Constants.VOCABULARY_DATA_PROPERTY_SHARD + shard);
+            fillAndWriteTemplate(printWriter, CREATE_VOCABULARY_SHARD_HEADER, substitutions, null, null);
+            for (OWLDataProperty owlDataProperty : dataPropertyShards.get(shard)) {
+                fillAndWriteTemplate(printWriter, CREATE_SHARDED_DATA_PROPERTY_VOCABULARY, substitutions, null, owlDataProperty);
+            }
+            fillAndWriteTemplate(printWriter, CREATE_VOCABULARY_SHARD_TAIL, substitutions, null, null);
+        }
+
+        fillAndWriteTemplate(printWriter, CREATE_VOCABULARY_TAIL, substitutions, null, null);
+    }
+
+    private static <E extends OWLEntity> List<List<E>> getShards(Collection<E> entities, int shardCount) {
+        List<List<E>> shards = new ArrayList<List<E>>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            shards.add(new ArrayList<E>());
+        }
+        for (E entity : entities) {
+            shards.get(VocabularyShards.getShard(entity.getIRI().toString(), shardCount)).add(entity);
+        }
+        for (List<E> shard : shards) {
+            Collections.sort(shard, new Comparator<E>() {
+                @Override
+                public int compare(E e1, E e2) {
+                    return e1.getIRI().toString().compareTo(e2.getIRI().toString());
+                }
+            });
+        }
+        return shards;
+    }
+
+    private static String getShardStarts(List<? extends List<?>> shards) {
+        StringBuilder starts = new StringBuilder("0");
+        int index = 0;
+        for (List<?> shard : shards) {
+            index += shard.size();
+            starts.append(", ").append(index);
+        }
+        return starts.toString();
+    }
+
     /** Initializes the code generation for factory classes 
      * @param owlClassList
      * @throws IOException
@@ -203,10 +439,32 @@ public class JavaCodeGenerator {
         
     	Map<SubstitutionVariable, String> substitutions = new EnumMap<SubstitutionVariable, String>(SubstitutionVariable.class);
         
+        List<OWLClass> classes = new ArrayList<OWLClass>(owlClassList);
+        int chunkSize = Constants.FACTORY_CLASS_MAPPING_CHUNK_SIZE;
+        int chunkCount = (classes.size() + chunkSize - 1) / chunkSize;
+        substitutions.put(SubstitutionVariable.CLASS_MAPPING_LOADS, getClassMappingLoads(chunkCount));
     	fillAndWriteTemplate(factoryPrintWriter, CREATE_FACTORY_HEADER, substitutions, null, null);
 
         for (OWLClass owlClass : owlClassList) {
             fillAndWriteTemplate(factoryPrintWriter, CREATE_FACTORY_CLASS, substitutions, owlClass, null);
+            if (worker.generateBuilders()) {
+                fillAndWriteTemplate(factoryPrintWriter, CREATE_FACTORY_BUILDER, substitutions, owlClass, null);
+            }
+            if (worker.generateQueries()) {
+                fillAndWriteTemplate(factoryPrintWriter, CREATE_FACTORY_QUERY, substitutions, owlClass, null);
+            }
+            for (OWLObjectProperty owlObjectProperty : worker.getObjectPropertiesForClass(owlClass)) {
+                fillAndWriteTemplate(factoryPrintWriter, CREATE_FACTORY_INVERSE_OBJECT_PROPERTY, substitutions, owlClass, owlObjectProperty);
+            }
+        }
+
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            substitutions.put(SubstitutionVariable.CLASS_MAPPING_CHUNK, Constants.FACTORY_CLASS_MAPPING_CHUNK + chunk);
+            fillAndWriteTemplate(factoryPrintWriter, CREATE_FACTORY_CLASS_MAPPING_HEADER, substitutions, null, null);
+            for (OWLClass owlClass : classes.subList(chunk * chunkSize, Math.min((chunk + 1) * chunkSize, classes.size()))) {
+                fillAndWriteTemplate(factoryPrintWriter, CREATE_FACTORY_CLASS_MAPPING, substitutions, owlClass, null);
+            }
+            fillAndWriteTemplate(factoryPrintWriter, CREATE_FACTORY_CLASS_MAPPING_TAIL, substitutions, null, null);
         }
         
         fillAndWriteTemplate(factoryPrintWriter, CREATE_FACTORY_TAIL, substitutions, null, null);
@@ -214,6 +472,25 @@ public class JavaCodeGenerator {
         factoryPrintWriter.close();
     }
 
+    private static String getClassMappingLoads(int chunkCount) {
+        StringBuilder loads = new StringBuilder();
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            if (chunk > 0) {
+                loads.append('\n');
+            }
+            loads.append("            ").append(Constants.FACTORY_CLASS_MAPPING_CHUNK).append(chunk).append(".addTo(this);");
+        }
+        return loads.toString();
+    }
+
+    /*
+     * Synchronize this with JavaDataPropertyDeclaration.
+     */
+    private boolean hasPrimitiveJavaType(OWLClass owlClass, OWLDataProperty owlDataProperty) {
+    	DatatypeHandler handled = DatatypeRegistry.getDefault().getHandler(inference.getRange(owlClass, owlDataProperty));
+    	return handled != null && handled.isPrimitive();
+    }
+
     private void fillAndWriteTemplate(PrintWriter writer, 
     		                               CodeGenerationPhase phase, 
     		                               Map<SubstitutionVariable, String> substitutions, 
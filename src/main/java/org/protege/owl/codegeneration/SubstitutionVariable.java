@@ -22,7 +22,17 @@ public enum SubstitutionVariable {
 	PROPERTY_RANGE("propertyRange"),
 	PROPERTY_RANGE_FOR_CLASS("propertyRangeForClass"),
 	PROPERTY_RANGE_IMPLEMENTATION("propertyRangeImplementation"),
+	PRIMITIVE_TYPE("primitiveType"),
+	CAPITALIZED_PRIMITIVE_TYPE("PrimitiveType"),
 	JAVADOC("javadoc"),
+	VOCABULARY_SHARD("vocabularyShard"),
+	CLASS_MAPPING_CHUNK("classMappingChunk"),
+	CLASS_MAPPING_LOADS("classMappingLoads"),
+	PROPERTY_INDEX("propertyIndex"),
+	PROPERTY_TABLE("propertyTable"),
+	CLASS_SHARD_STARTS("classShardStarts"),
+	OBJECT_PROPERTY_SHARD_STARTS("objectPropertyShardStarts"),
+	DATA_PROPERTY_SHARD_STARTS("dataPropertyShardStarts"),
 	DATE("date"),
 	USER("user");
 	
@@ -34,8 +34,27 @@ public interface Worker {
 	
 	File getImplementationFile(OWLClass c);
 	
+	File getQueryFile(OWLClass c);
+	
+	File getBuilderFile(OWLClass c);
+	
 	File getVocabularyFile();
 	
+	/**
+	 * @return the number of holder classes for each entity kind in the vocabulary or 0 for a single class.
+	 */
+	int getVocabularyShards();
+	
+	/**
+	 * @return true if a builder class and a factory method that starts it are generated for each class.
+	 */
+	boolean generateBuilders();
+	
+	/**
+	 * @return true if a query class and a factory method that starts it are generated for each class.
+	 */
+	boolean generateQueries();
+	
 	File getFactoryFile();
 	
 	void configureSubstitutions(CodeGenerationPhase phase,
@@ -0,0 +1,233 @@
+package org.protege.owl.codegeneration.impl;
+
+import java.lang.reflect.Constructor;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.protege.owl.codegeneration.inference.CodeGenerationInference;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+
+/**
+ * The classes of a generated model with their java interfaces and implementations.  The table does not 
+ * depend on an ontology, so the generated factory holds one table that all the factory instances share 
+ * through their {@link ProtegeJavaMapping}.
+ * <p>
+ * The generated table overrides {@link #load()} to fill itself from holder classes of a bounded number of 
+ * classes each, so that no single static initializer grows past the size limit of a method, and freezes 
+ * itself at the end.  It is loaded on the first lookup rather than when the factory class is initialized.
+ * The constructor of an implementation is looked up the first time an individual is viewed as that class.
+ * <p>
+ * The table also holds the entries whose implementation implements each java interface and the cast 
+ * resolutions by set of types, since neither depends on the ontology.  Both are filled on demand and are
+ * safe to share between threads.
+ */
+public class ClassMappingTable {
+    private static final Entry UNRESOLVED = new Entry(null, null, null);
+
+    private Map<OWLClass, Entry> protegeMap  = new LinkedHashMap<OWLClass, Entry>();
+    private Map<Class<?>, Entry> interfaceMap = new HashMap<Class<?>, Entry>();
+    private Map<Class<?>, Entry> implementationMap = new HashMap<Class<?>, Entry>();
+    private ConcurrentMap<Class<?>, Set<Entry>> compatibleMap = new ConcurrentHashMap<Class<?>, Set<Entry>>();
+    private ConcurrentMap<Resolution, Entry> resolutionCache = new ConcurrentHashMap<Resolution, Entry>();
+    private volatile boolean frozen;
+    private volatile boolean loaded;
+
+    public void add(String protegeClassName, 
+                    Class<?> javaInterface, 
+                    Class<? extends WrappedIndividualImpl> javaImplementation) {
+        OWLClass protegeClass = OWLManager.getOWLDataFactory().getOWLClass(IRI.create(protegeClassName));
+        add(protegeClass, javaInterface, javaImplementation);
+    }
+
+    public synchronized void add(OWLClass protegeClass, 
+                                 Class<?> javaInterface, 
+                                 Class<? extends WrappedIndividualImpl> javaImplementation) {
+        if (frozen) {
+            throw new IllegalStateException("The class mapping table has been frozen");
+        }
+        Entry entry = new Entry(protegeClass, javaInterface, javaImplementation);
+        protegeMap.put(protegeClass, entry);
+        interfaceMap.put(javaInterface, entry);
+        implementationMap.put(javaImplementation, entry);
+        compatibleMap.clear();
+        resolutionCache.clear();
+    }
+
+    /**
+     * Fills the table.  Called once, before the first lookup.  The default does nothing, for tables that are
+     * filled by calls to add.
+     */
+    protected void load() {
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    load();
+                    loaded = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Prevents further additions.  A frozen table is only read, so it can be shared without locking.
+     */
+    public void freeze() {
+        frozen = true;
+    }
+
+    public boolean isFrozen() {
+        ensureLoaded();
+        return frozen;
+    }
+
+    public int size() {
+        ensureLoaded();
+        return protegeMap.size();
+    }
+
+    Entry getEntry(OWLClass protegeClass) {
+        ensureLoaded();
+        return protegeMap.get(protegeClass);
+    }
+
+    Entry getEntryFromInterface(Class<?> javaInterface) {
+        ensureLoaded();
+        return interfaceMap.get(javaInterface);
+    }
+
+    Entry getEntryFromImplementation(Class<?> javaImplementation) {
+        ensureLoaded();
+        return implementationMap.get(javaImplementation);
+    }
+
+    /*
+     * The entries whose implementation implements the interface, in the order they were added.
+     */
+    Set<Entry> getCompatibleEntries(Class<?> javaInterface) {
+        ensureLoaded();
+        Set<Entry> compatible = compatibleMap.get(javaInterface);
+        if (compatible == null) {
+            compatible = new LinkedHashSet<Entry>();
+            for (Entry entry : protegeMap.values()) {
+                if (javaInterface.isAssignableFrom(entry.getJavaImplementation())) {
+                    compatible.add(entry);
+                }
+            }
+            compatible = Collections.unmodifiableSet(compatible);
+            compatibleMap.putIfAbsent(javaInterface, compatible);
+        }
+        return compatible;
+    }
+
+    /**
+     * @param mappedTypes types of an individual that are in this table.
+     * @return the first entry whose class is one of the types and whose implementation implements the
+     *         interface or null if there is none.
+     */
+    Entry resolve(Set<OWLClass> mappedTypes, Class<?> javaInterface) {
+        Resolution key = new Resolution(mappedTypes, javaInterface);
+        Entry entry = resolutionCache.get(key);
+        if (entry == null) {
+            entry = UNRESOLVED;
+            for (Entry candidate : getCompatibleEntries(javaInterface)) {
+                if (mappedTypes.contains(candidate.getProtegeClass())) {
+                    entry = candidate;
+                    break;
+                }
+            }
+            resolutionCache.putIfAbsent(key, entry);
+        }
+        return entry == UNRESOLVED ? null : entry;
+    }
+
+    private static Constructor<? extends WrappedIndividualImpl> getConstructor(Class<? extends WrappedIndividualImpl> javaImplementation) {
+        try {
+            return javaImplementation.getConstructor(CodeGenerationInference.class, IRI.class);
+        }
+        catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("Implementation " + javaImplementation + " has no (CodeGenerationInference, IRI) constructor", e);
+        }
+    }
+
+    private static class Resolution {
+        private Set<OWLClass> types;
+        private Class<?> javaInterface;
+        private int hashCode;
+        
+        public Resolution(Set<OWLClass> types, Class<?> javaInterface) {
+            this.types = types;
+            this.javaInterface = javaInterface;
+            hashCode = 31 * types.hashCode() + javaInterface.hashCode();
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Resolution)) {
+                return false;
+            }
+            Resolution other = (Resolution) obj;
+            return javaInterface.equals(other.javaInterface) && types.equals(other.types);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    static class Entry {
+        private OWLClass protegeClass;
+        private Class<?> javaInterface;
+        private Class<? extends WrappedIndividualImpl> javaImplementation;
+        private volatile Constructor<? extends WrappedIndividualImpl> constructor;
+        
+        public Entry(OWLClass protegeClass,
+                     Class<?> javaInterface,
+                     Class<? extends WrappedIndividualImpl> javaImplementation) {
+            this.protegeClass = protegeClass;
+            this.javaInterface = javaInterface;
+            this.javaImplementation = javaImplementation;
+        }
+
+        public OWLClass getProtegeClass() {
+            return protegeClass;
+        }
+
+        public Class<?> getJavaInterface() {
+            return javaInterface;
+        }
+
+        public Class<? extends WrappedIndividualImpl> getJavaImplementation() {
+            return javaImplementation;
+        }
+
+        /*
+         * Two threads may both look up the constructor; they find the same one.
+         */
+        public Constructor<? extends WrappedIndividualImpl> getConstructor() {
+            Constructor<? extends WrappedIndividualImpl> found = constructor;
+            if (found == null) {
+                found = ClassMappingTable.getConstructor(javaImplementation);
+                constructor = found;
+            }
+            return found;
+        }
+        
+        @Override
+        public String toString() {
+            return "<Class: " + protegeClass + ">";
+        }
+    }
+
+}
@@ -1,34 +1,45 @@
 package org.protege.owl.codegeneration.impl;
 
 import java.lang.reflect.Constructor;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.locks.Lock;
 
 import org.protege.owl.codegeneration.CodeGenerationRuntimeException;
-import org.protege.owl.codegeneration.HandledDatatypes;
+import org.protege.owl.codegeneration.DatatypeHandler;
+import org.protege.owl.codegeneration.DatatypeRegistry;
 import org.protege.owl.codegeneration.WrappedIndividual;
 import org.protege.owl.codegeneration.inference.CodeGenerationInference;
-import org.semanticweb.owlapi.model.IRI;
+import org.protege.owl.codegeneration.inference.ConcurrentInference;
+import org.semanticweb.owlapi.model.AddAxiom;
 import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLDataFactory;
 import org.semanticweb.owlapi.model.OWLDataProperty;
+import org.semanticweb.owlapi.model.OWLDataPropertyAssertionAxiom;
 import org.semanticweb.owlapi.model.OWLIndividual;
 import org.semanticweb.owlapi.model.OWLLiteral;
 import org.semanticweb.owlapi.model.OWLNamedIndividual;
 import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLObjectPropertyAssertionAxiom;
 import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
 import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.RemoveAxiom;
 
 public class CodeGenerationHelper {
     private OWLOntology owlOntology;    
     private OWLDataFactory owlDataFactory;
     private OWLOntologyManager manager;
     private CodeGenerationInference inference;
+    private Lock writeLock;
     
     
     public CodeGenerationHelper(CodeGenerationInference inference) {
         this.inference = inference;
+        writeLock = ConcurrentInference.getWriteLock(inference);
         this.owlOntology = inference.getOWLOntology();        
         manager = owlOntology.getOWLOntologyManager();
         owlDataFactory = manager.getOWLDataFactory();
@@ -38,11 +49,19 @@ public class CodeGenerationHelper {
         return owlOntology;
     }
     
+    /**
+     * @return the lock to hold while changing the ontology.  It only locks when the inference is wrapped in a
+     *         {@link ConcurrentInference}.
+     */
+    public Lock getWriteLock() {
+        return writeLock;
+    }
+    
     public <X> Collection<X> getPropertyValues(OWLNamedIndividual i, OWLObjectProperty p, Class<X> c) {
         try {
-            Constructor<X> constructor = c.getConstructor(CodeGenerationInference.class, IRI.class);
+            Constructor<X> constructor = FactoryHelper.getConstructor(c);
             Set<X> results = new HashSet<X>();
-            for (OWLNamedIndividual j : inference.getPropertyValues(i, p)) {
+            for (OWLNamedIndividual j : readPropertyValues(i, p)) {
                 results.add(constructor.newInstance(inference, j.getIRI()));
             }
             return results;
@@ -52,55 +71,402 @@ public class CodeGenerationHelper {
         }
     }
  
+    /**
+     * Gets the value of a functional object property.  Only the first value found is wrapped so no
+     * collection of wrappers is built.
+     * 
+     * @return the wrapped value or null if the individual has no value for the property.
+     */
+    public <X> X getPropertyValue(OWLNamedIndividual i, OWLObjectProperty p, Class<X> c) {
+        for (OWLNamedIndividual j : readPropertyValues(i, p)) {
+            try {
+                return FactoryHelper.getConstructor(c).newInstance(inference, j.getIRI());
+            }
+            catch (Exception e) {
+                throw new CodeGenerationRuntimeException(e);
+            }
+        }
+        return null;
+    }
+ 
+    public boolean hasPropertyValue(OWLNamedIndividual i, OWLObjectProperty p) {
+        PropertyValueCache cache = PropertyValueCache.getCache(inference);
+        int cached = cache == null ? -1 : cache.getCachedCount(i, p);
+        return cached < 0 ? inference.hasPropertyValue(i, p) : cached > 0;
+    }
+    
+    public int countPropertyValues(OWLNamedIndividual i, OWLObjectProperty p) {
+        PropertyValueCache cache = PropertyValueCache.getCache(inference);
+        int cached = cache == null ? -1 : cache.getCachedCount(i, p);
+        return cached < 0 ? inference.countPropertyValues(i, p) : cached;
+    }
+    
     public void addPropertyValue(OWLNamedIndividual i, OWLObjectProperty p, WrappedIndividual j) {
-    	OWLAxiom axiom = owlDataFactory.getOWLObjectPropertyAssertionAxiom(p, i, j.getOwlIndividual());
-    	manager.addAxiom(owlOntology, axiom);
+        writeLock.lock();
+        try {
+            OWLAxiom axiom = owlDataFactory.getOWLObjectPropertyAssertionAxiom(p, i, j.getOwlIndividual());
+            manager.addAxiom(owlOntology, axiom);
+        }
+        finally {
+            writeLock.unlock();
+        }
     }
     
     public void removePropertyValue(OWLNamedIndividual i, OWLObjectProperty p, WrappedIndividual j) {
-    	OWLAxiom axiom = owlDataFactory.getOWLObjectPropertyAssertionAxiom(p, i, j.getOwlIndividual());
-    	for (OWLOntology imported : owlOntology.getImportsClosure()) {
-        	manager.removeAxiom(imported, axiom);
-    	}
+        writeLock.lock();
+        try {
+            OWLAxiom axiom = owlDataFactory.getOWLObjectPropertyAssertionAxiom(p, i, j.getOwlIndividual());
+            for (OWLOntology imported : owlOntology.getImportsClosure()) {
+                manager.removeAxiom(imported, axiom);
+            }
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+    
+    /**
+     * Replaces the values of a functional object property.  The old assertions are removed from the imports 
+     * closure and the new one is added in a single change batch.
+     * 
+     * @param j the new value or null if the property value is to be cleared.
+     */
+    public void setPropertyValue(OWLNamedIndividual i, OWLObjectProperty p, WrappedIndividual j) {
+        writeLock.lock();
+        try {
+            OWLAxiom newAxiom = null;
+            if (j != null) {
+                newAxiom = owlDataFactory.getOWLObjectPropertyAssertionAxiom(p, i, j.getOwlIndividual());
+            }
+            List<OWLOntologyChange> changes = new ArrayList<OWLOntologyChange>();
+            boolean present = false;
+            for (OWLOntology imported : owlOntology.getImportsClosure()) {
+                for (OWLObjectPropertyAssertionAxiom axiom : imported.getObjectPropertyAssertionAxioms(i)) {
+                    if (!axiom.getProperty().equals(p)) {
+                        continue;
+                    }
+                    if (axiom.equals(newAxiom) && imported.equals(owlOntology)) {
+                        present = true;
+                    }
+                    else {
+                        changes.add(new RemoveAxiom(imported, axiom));
+                    }
+                }
+            }
+            if (newAxiom != null && !present) {
+                changes.add(new AddAxiom(owlOntology, newAxiom));
+            }
+            if (!changes.isEmpty()) {
+                manager.applyChanges(changes);
+            }
+        }
+        finally {
+            writeLock.unlock();
+        }
     }
     
     public <X> Collection<X> getPropertyValues(OWLNamedIndividual i, OWLDataProperty p, Class<X> c) {
         Set<X> results = new HashSet<X>();
+        PropertyValueCache cache = PropertyValueCache.getCache(inference);
+        if (cache != null) {
+            for (Object o : cache.getObjects(inference, i, p)) {
+                results.add(c.cast(o));
+            }
+            return results;
+        }
         for (OWLLiteral l : inference.getPropertyValues(i, p)) {
             results.add(c.cast(getObjectFromLiteral(l)));
         }
         return results;
     }
     
+    /**
+     * Gets the value of a functional data property.
+     * 
+     * @return the converted value or null if the individual has no value for the property.
+     */
+    public <X> X getPropertyValue(OWLNamedIndividual i, OWLDataProperty p, Class<X> c) {
+        PropertyValueCache cache = PropertyValueCache.getCache(inference);
+        if (cache != null) {
+            List<Object> objects = cache.getObjects(inference, i, p);
+            return objects.isEmpty() ? null : c.cast(objects.get(0));
+        }
+        OWLLiteral l = inference.getPropertyValue(i, p);
+        return l == null ? null : c.cast(getObjectFromLiteral(l));
+    }
+    
+    public boolean hasPropertyValue(OWLNamedIndividual i, OWLDataProperty p) {
+        PropertyValueCache cache = PropertyValueCache.getCache(inference);
+        int cached = cache == null ? -1 : cache.getCachedCount(i, p);
+        return cached < 0 ? inference.hasPropertyValue(i, p) : cached > 0;
+    }
+    
+    public int countPropertyValues(OWLNamedIndividual i, OWLDataProperty p) {
+        PropertyValueCache cache = PropertyValueCache.getCache(inference);
+        int cached = cache == null ? -1 : cache.getCachedCount(i, p);
+        return cached < 0 ? inference.countPropertyValues(i, p) : cached;
+    }
+    
     public void addPropertyValue(OWLNamedIndividual i, OWLDataProperty p, Object o) {
-    	OWLLiteral literal = getLiteralFromObject(owlDataFactory, o);
-    	if (literal != null) {
-    		OWLAxiom axiom = owlDataFactory.getOWLDataPropertyAssertionAxiom(p, i, literal);
-    		manager.addAxiom(owlOntology, axiom);
-    	}
-    	else {
-    		throw new CodeGenerationRuntimeException("Invalid type for property value object " + o);
-    	}
+        writeLock.lock();
+        try {
+            OWLLiteral literal = getLiteralFromObject(owlDataFactory, o);
+            if (literal != null) {
+                OWLAxiom axiom = owlDataFactory.getOWLDataPropertyAssertionAxiom(p, i, literal);
+                manager.addAxiom(owlOntology, axiom);
+            }
+            else {
+                throw new CodeGenerationRuntimeException("Invalid type for property value object " + o);
+            }
+        }
+        finally {
+            writeLock.unlock();
+        }
     }
 
     public void removePropertyValue(OWLNamedIndividual i, OWLDataProperty p, Object o) {
-    	OWLLiteral literal = getLiteralFromObject(owlDataFactory, o);
-    	if (literal != null) {
-    		OWLAxiom axiom = owlDataFactory.getOWLDataPropertyAssertionAxiom(p, i, literal);
-    		manager.removeAxiom(owlOntology, axiom);
-    	}
-    	else {
-    		throw new CodeGenerationRuntimeException("Invalid type for property value object " + o);
-    	}
+        writeLock.lock();
+        try {
+            OWLLiteral literal = getLiteralFromObject(owlDataFactory, o);
+            if (literal != null) {
+                OWLAxiom axiom = owlDataFactory.getOWLDataPropertyAssertionAxiom(p, i, literal);
+                manager.removeAxiom(owlOntology, axiom);
+            }
+            else {
+                throw new CodeGenerationRuntimeException("Invalid type for property value object " + o);
+            }
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+    
+    /* *-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*
+     * Primitive accessors.  These parse the lexical form of the literal directly so that no boxed 
+     * values or intermediate collections are created.  The single valued versions read one value 
+     * and return the default value if the individual has no value for the property.  A value that 
+     * does not fit in the java type, such as an xsd:integer beyond the range of an int, is reported 
+     * with a CodeGenerationRuntimeException.
+     */
+    
+    public int getIntPropertyValue(OWLNamedIndividual i, OWLDataProperty p, int defaultValue) {
+        OWLLiteral l = readPropertyValue(i, p);
+        return l == null ? defaultValue : parseInt(l, p);
+    }
+    
+    public int[] getIntPropertyValues(OWLNamedIndividual i, OWLDataProperty p) {
+        Collection<OWLLiteral> literals = readPropertyValues(i, p);
+        int[] values = new int[literals.size()];
+        int index = 0;
+        for (OWLLiteral l : literals) {
+            values[index++] = parseInt(l, p);
+        }
+        return values;
+    }
+    
+    public long getLongPropertyValue(OWLNamedIndividual i, OWLDataProperty p, long defaultValue) {
+        OWLLiteral l = readPropertyValue(i, p);
+        return l == null ? defaultValue : parseLong(l, p);
+    }
+    
+    public long[] getLongPropertyValues(OWLNamedIndividual i, OWLDataProperty p) {
+        Collection<OWLLiteral> literals = readPropertyValues(i, p);
+        long[] values = new long[literals.size()];
+        int index = 0;
+        for (OWLLiteral l : literals) {
+            values[index++] = parseLong(l, p);
+        }
+        return values;
+    }
+    
+    public float getFloatPropertyValue(OWLNamedIndividual i, OWLDataProperty p, float defaultValue) {
+        OWLLiteral l = readPropertyValue(i, p);
+        return l == null ? defaultValue : l.parseFloat();
+    }
+    
+    public float[] getFloatPropertyValues(OWLNamedIndividual i, OWLDataProperty p) {
+        Collection<OWLLiteral> literals = readPropertyValues(i, p);
+        float[] values = new float[literals.size()];
+        int index = 0;
+        for (OWLLiteral l : literals) {
+            values[index++] = l.parseFloat();
+        }
+        return values;
+    }
+    
+    public double getDoublePropertyValue(OWLNamedIndividual i, OWLDataProperty p, double defaultValue) {
+        OWLLiteral l = readPropertyValue(i, p);
+        return l == null ? defaultValue : l.parseDouble();
+    }
+    
+    public double[] getDoublePropertyValues(OWLNamedIndividual i, OWLDataProperty p) {
+        Collection<OWLLiteral> literals = readPropertyValues(i, p);
+        double[] values = new double[literals.size()];
+        int index = 0;
+        for (OWLLiteral l : literals) {
+            values[index++] = l.parseDouble();
+        }
+        return values;
+    }
+    
+    public short getShortPropertyValue(OWLNamedIndividual i, OWLDataProperty p, short defaultValue) {
+        OWLLiteral l = readPropertyValue(i, p);
+        return l == null ? defaultValue : parseShort(l, p);
+    }
+    
+    public short[] getShortPropertyValues(OWLNamedIndividual i, OWLDataProperty p) {
+        Collection<OWLLiteral> literals = readPropertyValues(i, p);
+        short[] values = new short[literals.size()];
+        int index = 0;
+        for (OWLLiteral l : literals) {
+            values[index++] = parseShort(l, p);
+        }
+        return values;
+    }
+    
+    public byte getBytePropertyValue(OWLNamedIndividual i, OWLDataProperty p, byte defaultValue) {
+        OWLLiteral l = readPropertyValue(i, p);
+        return l == null ? defaultValue : parseByte(l, p);
+    }
+    
+    public byte[] getBytePropertyValues(OWLNamedIndividual i, OWLDataProperty p) {
+        Collection<OWLLiteral> literals = readPropertyValues(i, p);
+        byte[] values = new byte[literals.size()];
+        int index = 0;
+        for (OWLLiteral l : literals) {
+            values[index++] = parseByte(l, p);
+        }
+        return values;
+    }
+    
+    public boolean getBooleanPropertyValue(OWLNamedIndividual i, OWLDataProperty p, boolean defaultValue) {
+        OWLLiteral l = readPropertyValue(i, p);
+        return l == null ? defaultValue : l.parseBoolean();
+    }
+    
+    public boolean[] getBooleanPropertyValues(OWLNamedIndividual i, OWLDataProperty p) {
+        Collection<OWLLiteral> literals = readPropertyValues(i, p);
+        boolean[] values = new boolean[literals.size()];
+        int index = 0;
+        for (OWLLiteral l : literals) {
+            values[index++] = l.parseBoolean();
+        }
+        return values;
+    }
+    
+    private static int parseInt(OWLLiteral l, OWLDataProperty p) {
+        try {
+            return Integer.parseInt(l.getLiteral());
+        }
+        catch (NumberFormatException e) {
+            throw notReadable(l, p, "int");
+        }
+    }
+    
+    private static long parseLong(OWLLiteral l, OWLDataProperty p) {
+        try {
+            return Long.parseLong(l.getLiteral());
+        }
+        catch (NumberFormatException e) {
+            throw notReadable(l, p, "long");
+        }
+    }
+    
+    private static short parseShort(OWLLiteral l, OWLDataProperty p) {
+        try {
+            return Short.parseShort(l.getLiteral());
+        }
+        catch (NumberFormatException e) {
+            throw notReadable(l, p, "short");
+        }
+    }
+    
+    private static byte parseByte(OWLLiteral l, OWLDataProperty p) {
+        try {
+            return Byte.parseByte(l.getLiteral());
+        }
+        catch (NumberFormatException e) {
+            throw notReadable(l, p, "byte");
+        }
+    }
+    
+    private static CodeGenerationRuntimeException notReadable(OWLLiteral l, OWLDataProperty p, String type) {
+        return new CodeGenerationRuntimeException("Value " + l.getLiteral() + " of property " + p.getIRI() 
+                                                  + " is out of range or malformed for a java " + type);
+    }
+    
+    /**
+     * Replaces the values of a functional data property in a single change batch.
+     * 
+     * @param o the new value or null if the property value is to be cleared.
+     */
+    public void setPropertyValue(OWLNamedIndividual i, OWLDataProperty p, Object o) {
+        writeLock.lock();
+        try {
+            OWLAxiom newAxiom = null;
+            if (o != null) {
+                OWLLiteral literal = getLiteralFromObject(owlDataFactory, o);
+                if (literal == null) {
+                    throw new CodeGenerationRuntimeException("Invalid type for property value object " + o);
+                }
+                newAxiom = owlDataFactory.getOWLDataPropertyAssertionAxiom(p, i, literal);
+            }
+            List<OWLOntologyChange> changes = new ArrayList<OWLOntologyChange>();
+            boolean present = false;
+            for (OWLOntology imported : owlOntology.getImportsClosure()) {
+                for (OWLDataPropertyAssertionAxiom axiom : imported.getDataPropertyAssertionAxioms(i)) {
+                    if (!axiom.getProperty().equals(p)) {
+                        continue;
+                    }
+                    if (axiom.equals(newAxiom) && imported.equals(owlOntology)) {
+                        present = true;
+                    }
+                    else {
+                        changes.add(new RemoveAxiom(imported, axiom));
+                    }
+                }
+            }
+            if (newAxiom != null && !present) {
+                changes.add(new AddAxiom(owlOntology, newAxiom));
+            }
+            if (!changes.isEmpty()) {
+                manager.applyChanges(changes);
+            }
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+    
+    /*
+     * Reads go through the property value cache when one is attached to the inference.  The cache is looked
+     * up on each read so that a cache attached or detached after this helper was created is honoured.
+     */
+    
+    private Collection<OWLNamedIndividual> readPropertyValues(OWLNamedIndividual i, OWLObjectProperty p) {
+        PropertyValueCache cache = PropertyValueCache.getCache(inference);
+        return cache == null ? inference.getPropertyValues(i, p) : cache.getPropertyValues(inference, i, p);
+    }
+    
+    private Collection<OWLLiteral> readPropertyValues(OWLNamedIndividual i, OWLDataProperty p) {
+        PropertyValueCache cache = PropertyValueCache.getCache(inference);
+        return cache == null ? inference.getPropertyValues(i, p) : cache.getPropertyValues(inference, i, p);
+    }
+    
+    private OWLLiteral readPropertyValue(OWLNamedIndividual i, OWLDataProperty p) {
+        PropertyValueCache cache = PropertyValueCache.getCache(inference);
+        if (cache == null) {
+            return inference.getPropertyValue(i, p);
+        }
+        Collection<OWLLiteral> values = cache.getPropertyValues(inference, i, p);
+        return values.isEmpty() ? null : values.iterator().next();
     }
     
     public static Object getObjectFromLiteral(OWLLiteral literal) {
     	Object o = null;
-    	for (HandledDatatypes handled : HandledDatatypes.values()) {
-    		if (handled.isMatch(literal.getDatatype())) {
-    			o = handled.getObject(literal);
-    			break;
-    		}
+    	DatatypeHandler handled = DatatypeRegistry.getDefault().getHandler(literal.getDatatype());
+    	if (handled != null) {
+    		o = handled.getObject(literal);
     	}
     	if (o == null) {
     		o = literal;
@@ -114,11 +480,9 @@ public class CodeGenerationHelper {
     		literal = (OWLLiteral) o;
     	}
     	else {
-    		for (HandledDatatypes handled : HandledDatatypes.values()) {
+    		DatatypeHandler handled = DatatypeRegistry.getDefault().getHandlerForValue(o);
+    		if (handled != null) {
     			literal = handled.getLiteral(owlDataFactory, o);
-    			if (literal != null) {
-    				break;
-    			}
     		}
     	}
     	return literal;
@@ -0,0 +1,96 @@
+package org.protege.owl.codegeneration.impl;
+
+import java.util.Collection;
+
+import org.protege.owl.codegeneration.WrappedIndividual;
+import org.protege.owl.codegeneration.inference.CodeGenerationInference;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDataProperty;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+
+/**
+ * The base class of the implementations generated with the compact profile.  A generated implementation
+ * keeps a static table of the properties of its class and each of its accessors is a one line bridge to one
+ * of the accessors below, which take the index of the property in that table.  This keeps the code of the
+ * property accessors in one class instead of repeating it in every generated class.
+ */
+public abstract class CompactIndividualImpl extends WrappedIndividualImpl {
+	private OWLEntity[] properties;
+
+	/**
+	 * @param properties the object and data properties of the class.  The array is shared by all the
+	 *                   instances of the class and must not be changed.
+	 */
+	protected CompactIndividualImpl(CodeGenerationInference inference, IRI iri, OWLEntity[] properties) {
+		super(inference, iri);
+		this.properties = properties;
+	}
+
+	protected OWLDataProperty getDataProperty(int p) {
+		return (OWLDataProperty) properties[p];
+	}
+
+	protected <X> Collection<X> getValues(int p, Class<X> c) {
+		OWLEntity property = properties[p];
+		if (property instanceof OWLObjectProperty) {
+			return getDelegate().getPropertyValues(getOwlIndividual(), (OWLObjectProperty) property, c);
+		}
+		return getDelegate().getPropertyValues(getOwlIndividual(), (OWLDataProperty) property, c);
+	}
+
+	protected <X> X getValue(int p, Class<X> c) {
+		OWLEntity property = properties[p];
+		if (property instanceof OWLObjectProperty) {
+			return getDelegate().getPropertyValue(getOwlIndividual(), (OWLObjectProperty) property, c);
+		}
+		return getDelegate().getPropertyValue(getOwlIndividual(), (OWLDataProperty) property, c);
+	}
+
+	protected boolean hasValue(int p) {
+		OWLEntity property = properties[p];
+		if (property instanceof OWLObjectProperty) {
+			return getDelegate().hasPropertyValue(getOwlIndividual(), (OWLObjectProperty) property);
+		}
+		return getDelegate().hasPropertyValue(getOwlIndividual(), (OWLDataProperty) property);
+	}
+
+	protected int countValues(int p) {
+		OWLEntity property = properties[p];
+		if (property instanceof OWLObjectProperty) {
+			return getDelegate().countPropertyValues(getOwlIndividual(), (OWLObjectProperty) property);
+		}
+		return getDelegate().countPropertyValues(getOwlIndividual(), (OWLDataProperty) property);
+	}
+
+	protected void addValue(int p, Object value) {
+		OWLEntity property = properties[p];
+		if (property instanceof OWLObjectProperty) {
+			getDelegate().addPropertyValue(getOwlIndividual(), (OWLObjectProperty) property, (WrappedIndividual) value);
+		}
+		else {
+			getDelegate().addPropertyValue(getOwlIndividual(), (OWLDataProperty) property, value);
+		}
+	}
+
+	protected void removeValue(int p, Object value) {
+		OWLEntity property = properties[p];
+		if (property instanceof OWLObjectProperty) {
+			getDelegate().removePropertyValue(getOwlIndividual(), (OWLObjectProperty) property, (WrappedIndividual) value);
+		}
+		else {
+			getDelegate().removePropertyValue(getOwlIndividual(), (OWLDataProperty) property, value);
+		}
+	}
+
+	protected void setValue(int p, Object value) {
+		OWLEntity property = properties[p];
+		if (property instanceof OWLObjectProperty) {
+			getDelegate().setPropertyValue(getOwlIndividual(), (OWLObjectProperty) property, (WrappedIndividual) value);
+		}
+		else {
+			getDelegate().setPropertyValue(getOwlIndividual(), (OWLDataProperty) property, value);
+		}
+	}
+
+}
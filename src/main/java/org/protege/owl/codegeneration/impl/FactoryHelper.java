@@ -1,51 +1,218 @@
 package org.protege.owl.codegeneration.impl;
 
 import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Stream;
 
 import org.protege.owl.codegeneration.CodeGenerationRuntimeException;
 import org.protege.owl.codegeneration.HandledDatatypes;
 import org.protege.owl.codegeneration.WrappedIndividual;
+import org.protege.owl.codegeneration.inference.CachingInference;
 import org.protege.owl.codegeneration.inference.CodeGenerationInference;
+import org.protege.owl.codegeneration.inference.ConcurrentInference;
+import org.protege.owl.codegeneration.inference.DelegatingInference;
+import org.protege.owl.codegeneration.inference.PooledReasonerInference;
+import org.protege.owl.codegeneration.inference.SnapshotInference;
+import org.semanticweb.owlapi.model.AddAxiom;
 import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLClass;
 import org.semanticweb.owlapi.model.OWLDataFactory;
 import org.semanticweb.owlapi.model.OWLDataProperty;
+import org.semanticweb.owlapi.model.OWLEntity;
 import org.semanticweb.owlapi.model.OWLIndividual;
 import org.semanticweb.owlapi.model.OWLLiteral;
 import org.semanticweb.owlapi.model.OWLNamedIndividual;
 import org.semanticweb.owlapi.model.OWLObjectProperty;
 import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
 import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.RemoveAxiom;
 
 public class FactoryHelper {
+	private static Map<Class<?>, Constructor<?>> constructorCache = new ConcurrentHashMap<Class<?>, Constructor<?>>();
+	
 	private OWLOntology owlOntology;
 	private OWLOntologyManager manager;
 	private OWLDataFactory owlDataFactory;
 	private CodeGenerationInference inference;
+	private InversePropertyIndex inverseIndex;
+	private PropertyIndexes propertyIndexes;
+	private SortedInstances sortedInstances;
+	private Lock writeLock;
 	
 	public FactoryHelper(OWLOntology ontology, CodeGenerationInference inference) {
 		this.owlOntology = ontology;
 		this.inference = inference;
+		writeLock = ConcurrentInference.getWriteLock(inference);
 		manager = ontology.getOWLOntologyManager();
 		owlDataFactory = manager.getOWLDataFactory();
 	}
 	
+	/**
+	 * Begins recording the changes made by the current thread so that they can be rolled back together.
+	 */
+	public Transaction beginTransaction() {
+		return new Transaction(manager, writeLock);
+	}
+	
+	/**
+	 * Stops the listeners that this factory and its inference registered with the ontology manager.  The 
+	 * factory must not be used afterwards.  Only the inference this factory was created with is disposed, 
+	 * not the inferences it wraps, as those may belong to other factories.
+	 */
+	public synchronized void dispose() {
+		PropertyValueCache.detach(inference);
+		if (propertyIndexes != null) {
+			propertyIndexes.dispose();
+		}
+		if (inverseIndex != null) {
+			inverseIndex.dispose();
+		}
+		if (sortedInstances != null) {
+			sortedInstances.dispose();
+		}
+		if (inference instanceof SnapshotInference) {
+			((SnapshotInference) inference).dispose();
+		}
+		else if (inference instanceof CachingInference) {
+			((CachingInference) inference).dispose();
+		}
+		else if (inference instanceof PooledReasonerInference) {
+			((PooledReasonerInference) inference).dispose();
+		}
+	}
+	
 	public void flushOwlReasoner() {
 	    inference.flush();
+	    PropertyValueCache cache = PropertyValueCache.getCache(inference);
+	    if (cache != null) {
+	    	cache.clear();
+	    }
+	    synchronized (this) {
+	    	if (sortedInstances != null) {
+	    		sortedInstances.clear();
+	    	}
+	    }
+	}
+	
+	/**
+	 * Attaches a bounded property value cache to the inference of this factory.  Individuals retrieved after 
+	 * this call read their property values through the cache.
+	 * 
+	 * @param maxEntries the maximum number of (individual, property) pairs held, or 0 to remove the cache.
+	 * @return the cache or null if it was removed.
+	 */
+	public PropertyValueCache cachePropertyValues(int maxEntries) {
+		if (maxEntries == 0) {
+			PropertyValueCache.detach(inference);
+			return null;
+		}
+		return PropertyValueCache.attach(inference, maxEntries);
 	}
 	
 	
 	public <X extends WrappedIndividualImpl> X createWrappedIndividual(String name, OWLClass type, Class<X> c) {
 		OWLNamedIndividual i = owlDataFactory.getOWLNamedIndividual(IRI.create(name));
-		manager.addAxiom(owlOntology, owlDataFactory.getOWLClassAssertionAxiom(type, i));
+		writeLock.lock();
+		try {
+			manager.addAxiom(owlOntology, owlDataFactory.getOWLClassAssertionAxiom(type, i));
+		}
+		finally {
+			writeLock.unlock();
+		}
 		if (!inference.canAs(i, type)) {
 			return null;
 		}
-		return getWrappedIndividual(name, c);
+		return getWrappedIndividual(i.getIRI(), c);
+	}
+	
+	/**
+	 * Creates many individuals of a type.  The class assertions are applied in one change batch and, when
+	 * the individuals are verified, the inference is flushed once and asked for the instances of the type once
+	 * instead of checking each individual.
+	 * 
+	 * @param verify if true the individuals that the inference does not accept as instances of the type are
+	 *               left out of the result (their class assertions remain in the ontology).
+	 * @return the created individuals in the order of the names.
+	 */
+	public <X extends WrappedIndividualImpl> List<X> createWrappedIndividuals(Collection<String> names, OWLClass type, Class<X> c, boolean verify) {
+		Set<OWLNamedIndividual> individuals = new LinkedHashSet<OWLNamedIndividual>();
+		List<OWLOntologyChange> changes = new ArrayList<OWLOntologyChange>(names.size());
+		for (String name : names) {
+			OWLNamedIndividual i = owlDataFactory.getOWLNamedIndividual(IRI.create(name));
+			if (individuals.add(i)) {
+				changes.add(new AddAxiom(owlOntology, owlDataFactory.getOWLClassAssertionAxiom(type, i)));
+			}
+		}
+		writeLock.lock();
+		try {
+			if (!changes.isEmpty()) {
+				manager.applyChanges(changes);
+			}
+		}
+		finally {
+			writeLock.unlock();
+		}
+		if (verify && !individuals.isEmpty()) {
+			inference.flush();
+			individuals.retainAll(new HashSet<OWLNamedIndividual>(inference.getIndividuals(type)));
+		}
+		List<X> wrappers = new ArrayList<X>(individuals.size());
+		for (OWLNamedIndividual i : individuals) {
+			wrappers.add(getWrappedIndividual(i.getIRI(), c));
+		}
+		return wrappers;
+	}
+	
+	/**
+	 * Deletes many individuals.  The axioms that reference them are found with the indexes of each ontology in
+	 * the imports closure and are removed in one change batch.
+	 */
+	public void deleteWrappedIndividuals(Collection<? extends WrappedIndividual> wrapped) {
+		Set<OWLNamedIndividual> individuals = new LinkedHashSet<OWLNamedIndividual>();
+		for (WrappedIndividual w : wrapped) {
+			individuals.add(w.getOwlIndividual());
+		}
+		writeLock.lock();
+		try {
+			List<OWLOntologyChange> changes = getDeleteChanges(owlOntology, individuals);
+			if (!changes.isEmpty()) {
+				manager.applyChanges(changes);
+			}
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+	
+	/*
+	 * An axiom that references several of the individuals, such as a property assertion between two of them,
+	 * is removed once.
+	 */
+	static List<OWLOntologyChange> getDeleteChanges(OWLOntology ontology, Collection<OWLNamedIndividual> individuals) {
+		List<OWLOntologyChange> changes = new ArrayList<OWLOntologyChange>();
+		for (OWLOntology imported : ontology.getImportsClosure()) {
+			Set<OWLAxiom> axioms = new LinkedHashSet<OWLAxiom>();
+			for (OWLNamedIndividual i : individuals) {
+				axioms.addAll(imported.getReferencingAxioms(i));
+				axioms.addAll(imported.getAnnotationAssertionAxioms(i.getIRI()));
+			}
+			for (OWLAxiom axiom : axioms) {
+				changes.add(new RemoveAxiom(imported, axiom));
+			}
+		}
+		return changes;
 	}
 	
 	public <X extends WrappedIndividualImpl> X getWrappedIndividual(String name, OWLClass type, Class<X> c) {
@@ -54,25 +221,154 @@ public class FactoryHelper {
 		if (!inference.canAs(i, type)) {
 			return null;
 		}
-		return getWrappedIndividual(name, c);
+		return getWrappedIndividual(iri, c);
 	}
 	
-	private <X extends WrappedIndividualImpl> X getWrappedIndividual(String name, Class<X> c) {
+	private <X extends WrappedIndividualImpl> X getWrappedIndividual(IRI iri, Class<X> c) {
 		try {
-    		Constructor<X> constructor = c.getConstructor(CodeGenerationInference.class, IRI.class);
-    		return constructor.newInstance(inference, IRI.create(name));
+    		return getConstructor(c).newInstance(inference, iri);
 		}
 		catch (Exception e) {
 			throw new CodeGenerationRuntimeException(e);
 		}
 	}
 	
+	/**
+	 * @return the (inference, IRI) constructor of a generated implementation, looked up once per class.
+	 */
+	@SuppressWarnings("unchecked")
+	static <X> Constructor<X> getConstructor(Class<X> c) throws NoSuchMethodException {
+		Constructor<X> constructor = (Constructor<X>) constructorCache.get(c);
+		if (constructor == null) {
+			constructor = c.getConstructor(CodeGenerationInference.class, IRI.class);
+			constructorCache.put(c, constructor);
+		}
+		return constructor;
+	}
+	
 	public <X extends WrappedIndividualImpl> Collection<X> getWrappedIndividuals(OWLClass owlClass, Class<X> c) {
 		Set<X> wrappers = new HashSet<X>();
 		for (OWLNamedIndividual i : inference.getIndividuals(owlClass)) {
-			wrappers.add(getWrappedIndividual(i.getIRI().toString(), c));
+			wrappers.add(getWrappedIndividual(i.getIRI(), c));
+		}
+		return wrappers;
+	}
+	
+	/**
+	 * Gets the instances of a class that have an asserted object property value.  The answer comes from an
+	 * {@link InversePropertyIndex} so the cost is proportional to the number of individuals with that value.
+	 */
+	public <X extends WrappedIndividualImpl> Collection<X> getWrappedIndividualsWithPropertyValue(OWLClass type, OWLObjectProperty p, WrappedIndividual value, Class<X> c) {
+		if (value == null) {
+			return Collections.emptyList();
+		}
+		List<X> wrappers = new ArrayList<X>();
+		for (OWLNamedIndividual i : getInversePropertyIndex().getSubjects(p, value.getOwlIndividual())) {
+			if (inference.canAs(i, type)) {
+				wrappers.add(getWrappedIndividual(i.getIRI(), c));
+			}
 		}
 		return wrappers;
 	}
 	
+	private synchronized InversePropertyIndex getInversePropertyIndex() {
+		if (inverseIndex == null) {
+			inverseIndex = new InversePropertyIndex(owlOntology, inference);
+		}
+		return inverseIndex;
+	}
+	
+	/**
+	 * The indexes used by the generated queries.  They are created on first use and share the inverse property index.
+	 */
+	public synchronized PropertyIndexes getPropertyIndexes() {
+		if (propertyIndexes == null) {
+			propertyIndexes = new PropertyIndexes(owlOntology, inference, getInversePropertyIndex());
+		}
+		return propertyIndexes;
+	}
+	
+	/**
+	 * Loads the values of the given properties for all the given individuals in one pass per property.  The
+	 * values go to the first {@link CachingInference} in the chain of inferences of this factory, where the 
+	 * generated getters find them.  Without a caching inference there is nowhere to keep the values and 
+	 * nothing is done.
+	 */
+	public void prefetch(Collection<? extends WrappedIndividual> individuals, OWLEntity... properties) {
+		CachingInference cache = getCachingInference();
+		if (cache == null || individuals.isEmpty()) {
+			return;
+		}
+		List<OWLNamedIndividual> subjects = new ArrayList<OWLNamedIndividual>(individuals.size());
+		for (WrappedIndividual individual : individuals) {
+			subjects.add(individual.getOwlIndividual());
+		}
+		for (OWLEntity p : properties) {
+			if (p.isOWLObjectProperty()) {
+				cache.prefetch(subjects, p.asOWLObjectProperty());
+			}
+			else if (p.isOWLDataProperty()) {
+				cache.prefetch(subjects, p.asOWLDataProperty());
+			}
+			else {
+				throw new IllegalArgumentException("Not an object or data property: " + p);
+			}
+		}
+	}
+	
+	private CachingInference getCachingInference() {
+		CodeGenerationInference i = inference;
+		while (i instanceof DelegatingInference) {
+			if (i instanceof CachingInference) {
+				return (CachingInference) i;
+			}
+			i = ((DelegatingInference) i).getDelegate();
+		}
+		return null;
+	}
+	
+	public int countIndividuals(OWLClass owlClass) {
+		return inference.countIndividuals(owlClass);
+	}
+	
+	/**
+	 * Streams the instances of a class ordered by IRI.  The sorted individuals are kept until the instances
+	 * of the class may have changed; the wrappers are created as the stream is consumed.  The stream splits 
+	 * evenly for parallel use.
+	 */
+	public <X extends WrappedIndividualImpl> Stream<X> streamWrappedIndividuals(OWLClass owlClass, final Class<X> c) {
+		return Arrays.stream(getSortedIndividuals(owlClass)).map(i -> getWrappedIndividual(i.getIRI(), c));
+	}
+	
+	/**
+	 * Gets a page of the instances of a class ordered by IRI.  Only the individuals in the page are wrapped and 
+	 * the sorted individuals are shared by consecutive pages until the instances of the class may have changed.
+	 * 
+	 * @param offset the number of instances to skip.
+	 * @param limit the maximum number of instances to return.
+	 */
+	public <X extends WrappedIndividualImpl> List<X> getWrappedIndividuals(OWLClass owlClass, Class<X> c, int offset, int limit) {
+		if (offset < 0 || limit < 0) {
+			throw new IllegalArgumentException("Negative offset or limit: " + offset + ", " + limit);
+		}
+		OWLNamedIndividual[] individuals = getSortedIndividuals(owlClass);
+		int end = (int) Math.min((long) offset + limit, individuals.length);
+		List<X> wrappers = new ArrayList<X>(Math.max(end - offset, 0));
+		for (int index = offset; index < end; index++) {
+			wrappers.add(getWrappedIndividual(individuals[index].getIRI(), c));
+		}
+		return wrappers;
+	}
+	
+	private OWLNamedIndividual[] getSortedIndividuals(OWLClass owlClass) {
+		SortedInstances sorted;
+		synchronized (this) {
+			if (sortedInstances == null) {
+				sortedInstances = new SortedInstances(inference);
+			}
+			sorted = sortedInstances;
+		}
+		return sorted.get(owlClass);
+	}
+	
 }
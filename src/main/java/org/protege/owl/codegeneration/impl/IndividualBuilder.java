@@ -0,0 +1,154 @@
+package org.protege.owl.codegeneration.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import org.protege.owl.codegeneration.CodeGenerationRuntimeException;
+import org.protege.owl.codegeneration.WrappedIndividual;
+import org.protege.owl.codegeneration.inference.CodeGenerationInference;
+import org.protege.owl.codegeneration.inference.ConcurrentInference;
+import org.semanticweb.owlapi.model.AddAxiom;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLDataProperty;
+import org.semanticweb.owlapi.model.OWLDataPropertyAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObject;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLObjectPropertyAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+
+/**
+ * The base class of the generated builders.  The values given to the with methods are collected in memory
+ * and {@link #create()} applies the class assertion and all the property assertions as a single change
+ * batch, so listeners and the reasoner see one change.
+ * <p>
+ * Before anything is applied the builder checks that each functional property has at most one value,
+ * counting the values already asserted for an individual with the same IRI.  A failed check throws a
+ * {@link CodeGenerationRuntimeException} and leaves the ontology unchanged.
+ */
+public abstract class IndividualBuilder<X extends WrappedIndividual> {
+	private CodeGenerationInference inference;
+	private OWLOntology owlOntology;
+	private OWLDataFactory owlDataFactory;
+	private OWLNamedIndividual individual;
+	private OWLClass type;
+	private Class<? extends X> implementation;
+	private Map<OWLEntity, Set<OWLObject>> values = new HashMap<OWLEntity, Set<OWLObject>>();
+	private Set<OWLEntity> functional = new LinkedHashSet<OWLEntity>();
+	private List<OWLAxiom> assertions = new ArrayList<OWLAxiom>();
+
+	protected IndividualBuilder(CodeGenerationInference inference, String name, OWLClass type, Class<? extends X> implementation) {
+		this.inference = inference;
+		this.type = type;
+		this.implementation = implementation;
+		owlOntology = inference.getOWLOntology();
+		owlDataFactory = owlOntology.getOWLOntologyManager().getOWLDataFactory();
+		individual = owlDataFactory.getOWLNamedIndividual(IRI.create(name));
+	}
+
+	public OWLNamedIndividual getOwlIndividual() {
+		return individual;
+	}
+
+	protected void addValue(OWLObjectProperty p, WrappedIndividual value, boolean isFunctional) {
+		if (value == null) {
+			return;
+		}
+		if (record(p, value.getOwlIndividual(), isFunctional)) {
+			assertions.add(owlDataFactory.getOWLObjectPropertyAssertionAxiom(p, individual, value.getOwlIndividual()));
+		}
+	}
+
+	protected void addValue(OWLDataProperty p, Object value, boolean isFunctional) {
+		if (value == null) {
+			return;
+		}
+		OWLLiteral literal = CodeGenerationHelper.getLiteralFromObject(owlDataFactory, value);
+		if (literal == null) {
+			throw new CodeGenerationRuntimeException("Invalid type for property value object " + value);
+		}
+		if (record(p, literal, isFunctional)) {
+			assertions.add(owlDataFactory.getOWLDataPropertyAssertionAxiom(p, individual, literal));
+		}
+	}
+
+	private boolean record(OWLEntity p, OWLObject value, boolean isFunctional) {
+		Set<OWLObject> recorded = values.get(p);
+		if (recorded == null) {
+			recorded = new LinkedHashSet<OWLObject>();
+			values.put(p, recorded);
+		}
+		if (isFunctional) {
+			functional.add(p);
+		}
+		return recorded.add(value);
+	}
+
+	/**
+	 * Applies the class assertion and the property assertions in one change batch.
+	 *
+	 * @return the new individual or null if the inference does not accept it as an instance of the type.
+	 */
+	public X create() {
+		List<OWLOntologyChange> changes = new ArrayList<OWLOntologyChange>(assertions.size() + 1);
+		changes.add(new AddAxiom(owlOntology, owlDataFactory.getOWLClassAssertionAxiom(type, individual)));
+		for (OWLAxiom axiom : assertions) {
+			changes.add(new AddAxiom(owlOntology, axiom));
+		}
+		Lock writeLock = ConcurrentInference.getWriteLock(inference);
+		writeLock.lock();
+		try {
+			checkFunctionalProperties();
+			owlOntology.getOWLOntologyManager().applyChanges(changes);
+		}
+		finally {
+			writeLock.unlock();
+		}
+		if (!inference.canAs(individual, type)) {
+			return null;
+		}
+		try {
+			return FactoryHelper.getConstructor(implementation).newInstance(inference, individual.getIRI());
+		}
+		catch (Exception e) {
+			throw new CodeGenerationRuntimeException(e);
+		}
+	}
+
+	private void checkFunctionalProperties() {
+		for (OWLEntity p : functional) {
+			Set<OWLObject> all = new LinkedHashSet<OWLObject>(values.get(p));
+			for (OWLOntology imported : owlOntology.getImportsClosure()) {
+				if (p instanceof OWLObjectProperty) {
+					for (OWLObjectPropertyAssertionAxiom axiom : imported.getObjectPropertyAssertionAxioms(individual)) {
+						if (axiom.getProperty().equals(p)) {
+							all.add(axiom.getObject());
+						}
+					}
+				}
+				else {
+					for (OWLDataPropertyAssertionAxiom axiom : imported.getDataPropertyAssertionAxioms(individual)) {
+						if (axiom.getProperty().equals(p)) {
+							all.add(axiom.getObject());
+						}
+					}
+				}
+			}
+			if (all.size() > 1) {
+				throw new CodeGenerationRuntimeException("Functional property " + p + " of " + individual + " would have several values: " + all);
+			}
+		}
+	}
+
+}
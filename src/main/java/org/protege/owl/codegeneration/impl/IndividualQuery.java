@@ -0,0 +1,138 @@
+package org.protege.owl.codegeneration.impl;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.protege.owl.codegeneration.CodeGenerationRuntimeException;
+import org.protege.owl.codegeneration.WrappedIndividual;
+import org.protege.owl.codegeneration.inference.CodeGenerationInference;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataProperty;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+
+/**
+ * The base class of the generated queries.  Each condition is answered by a lookup in the {@link PropertyIndexes}; 
+ * the candidate sets are intersected starting with the smallest and only the individuals that match every 
+ * condition and can be viewed as the query type are wrapped.  Conditions look at asserted property values only.
+ * <p>
+ * The results are ordered by IRI.  A query with no conditions returns all the instances of its type.
+ */
+public abstract class IndividualQuery<X extends WrappedIndividual> {
+	private CodeGenerationInference inference;
+	private PropertyIndexes indexes;
+	private OWLClass type;
+	private Class<? extends X> implementation;
+	private List<Condition> conditions = new ArrayList<Condition>();
+	
+	protected IndividualQuery(CodeGenerationInference inference, PropertyIndexes indexes, OWLClass type, Class<? extends X> implementation) {
+		this.inference = inference;
+		this.indexes = indexes;
+		this.type = type;
+		this.implementation = implementation;
+	}
+	
+	protected void whereEquals(final OWLDataProperty p, final Object value) {
+		conditions.add(new Condition() {
+			public Collection<OWLNamedIndividual> getCandidates() {
+				return indexes.getSubjectsWithValue(p, value);
+			}
+		});
+	}
+	
+	protected void whereInRange(final OWLDataProperty p, final Object from, final boolean fromInclusive, final Object to, final boolean toInclusive) {
+		conditions.add(new Condition() {
+			public Collection<OWLNamedIndividual> getCandidates() {
+				return indexes.getSubjectsInRange(p, from, fromInclusive, to, toInclusive);
+			}
+		});
+	}
+	
+	protected void whereStartsWith(final OWLDataProperty p, final String prefix) {
+		conditions.add(new Condition() {
+			public Collection<OWLNamedIndividual> getCandidates() {
+				return indexes.getSubjectsWithPrefix(p, prefix);
+			}
+		});
+	}
+	
+	protected void whereHasValue(final OWLObjectProperty p, final WrappedIndividual value) {
+		conditions.add(new Condition() {
+			public Collection<OWLNamedIndividual> getCandidates() {
+				if (value == null) {
+					return Collections.emptySet();
+				}
+				return indexes.getSubjects(p, value.getOwlIndividual());
+			}
+		});
+	}
+	
+	/**
+	 * Runs the query and wraps the matching individuals.
+	 */
+	public List<X> list() {
+		List<OWLNamedIndividual> individuals = execute();
+		List<X> results = new ArrayList<X>(individuals.size());
+		try {
+			Constructor<? extends X> constructor = FactoryHelper.getConstructor(implementation);
+			for (OWLNamedIndividual i : individuals) {
+				results.add(constructor.newInstance(inference, i.getIRI()));
+			}
+		}
+		catch (Exception e) {
+			throw new CodeGenerationRuntimeException(e);
+		}
+		return results;
+	}
+	
+	/**
+	 * Runs the query without wrapping or sorting the matching individuals.
+	 */
+	public int count() {
+		return conditions.isEmpty() ? inference.countIndividuals(type) : match().size();
+	}
+	
+	private List<OWLNamedIndividual> execute() {
+		List<OWLNamedIndividual> sorted = new ArrayList<OWLNamedIndividual>(conditions.isEmpty() ? inference.getIndividuals(type) : match());
+		Collections.sort(sorted);
+		return sorted;
+	}
+	
+	private Collection<OWLNamedIndividual> match() {
+		List<Collection<OWLNamedIndividual>> candidateSets = new ArrayList<Collection<OWLNamedIndividual>>();
+		for (Condition condition : conditions) {
+			Collection<OWLNamedIndividual> candidates = condition.getCandidates();
+			if (candidates.isEmpty()) {
+				return Collections.emptyList();
+			}
+			candidateSets.add(candidates);
+		}
+		Collections.sort(candidateSets, new Comparator<Collection<OWLNamedIndividual>>() {
+			public int compare(Collection<OWLNamedIndividual> c1, Collection<OWLNamedIndividual> c2) {
+				return c1.size() - c2.size();
+			}
+		});
+		Set<OWLNamedIndividual> intersection = new HashSet<OWLNamedIndividual>(candidateSets.get(0));
+		for (Collection<OWLNamedIndividual> candidates : candidateSets.subList(1, candidateSets.size())) {
+			intersection.retainAll(candidates instanceof Set ? candidates : new HashSet<OWLNamedIndividual>(candidates));
+		}
+		List<OWLNamedIndividual> matches = new ArrayList<OWLNamedIndividual>();
+		for (OWLNamedIndividual i : intersection) {
+			if (inference.canAs(i, type)) {
+				matches.add(i);
+			}
+		}
+		return matches;
+	}
+	
+	private interface Condition {
+		Collection<OWLNamedIndividual> getCandidates();
+	}
+
+}
@@ -0,0 +1,196 @@
+package org.protege.owl.codegeneration.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import org.protege.owl.codegeneration.inference.CodeGenerationInference;
+import org.protege.owl.codegeneration.inference.ConcurrentInference;
+import org.semanticweb.owlapi.model.AxiomType;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLObjectPropertyAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+import org.semanticweb.owlapi.model.OWLOntologyChangeListener;
+
+/**
+ * An index from (object property, value) to the individuals that have that asserted property value.  The index 
+ * covers the imports closure and is built on first use.  After that it is kept up to date by listening to 
+ * axiom changes.  An import change discards the index and it is rebuilt on the next query.  The index listens
+ * to the ontology manager until it is disposed, which {@link FactoryHelper#dispose()} does for the index of
+ * a factory.
+ * <p>
+ * The index reads the ontology under the read lock of the {@link ConcurrentInference} of the inference it is
+ * created with, if there is one.  The lock is always taken before the monitor of the index because writers 
+ * hold the write lock when the index hears about their changes.
+ */
+public class InversePropertyIndex implements OWLOntologyChangeListener {
+	private OWLOntology ontology;
+	private Lock readLock;
+	private Map<OWLObjectProperty, Map<OWLNamedIndividual, Set<OWLNamedIndividual>>> index;
+	
+	public InversePropertyIndex(OWLOntology ontology, CodeGenerationInference inference) {
+		this.ontology = ontology;
+		readLock = ConcurrentInference.getReadLock(inference);
+		ontology.getOWLOntologyManager().addOntologyChangeListener(this);
+	}
+	
+	public void dispose() {
+		ontology.getOWLOntologyManager().removeOntologyChangeListener(this);
+	}
+	
+	/**
+	 * Returns the individuals i with an asserted axiom ObjectPropertyAssertion(p i value).
+	 */
+	public Collection<OWLNamedIndividual> getSubjects(OWLObjectProperty p, OWLNamedIndividual value) {
+		readLock.lock();
+		try {
+			synchronized (this) {
+				if (index == null) {
+					build();
+				}
+				Map<OWLNamedIndividual, Set<OWLNamedIndividual>> valueMap = index.get(p);
+				Set<OWLNamedIndividual> subjects = valueMap == null ? null : valueMap.get(value);
+				if (subjects == null) {
+					return Collections.emptyList();
+				}
+				return new ArrayList<OWLNamedIndividual>(subjects);
+			}
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+	
+	private void build() {
+		index = new HashMap<OWLObjectProperty, Map<OWLNamedIndividual, Set<OWLNamedIndividual>>>();
+		for (OWLOntology imported : ontology.getImportsClosure()) {
+			for (OWLObjectPropertyAssertionAxiom axiom : imported.getAxioms(AxiomType.OBJECT_PROPERTY_ASSERTION)) {
+				add(axiom.getSimplified());
+			}
+		}
+	}
+	
+	/*
+	 * Removals look at the ontology, so the listener takes the read lock too.  A writer holding the write lock
+	 * can always take it.
+	 */
+	@Override
+	public void ontologiesChanged(List<? extends OWLOntologyChange> changes) {
+		readLock.lock();
+		try {
+			update(changes);
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+	
+	private synchronized void update(List<? extends OWLOntologyChange> changes) {
+		if (index == null) {
+			return;
+		}
+		Set<OWLOntology> importsClosure = ontology.getImportsClosure();
+		for (OWLOntologyChange change : changes) {
+			if (change.isImportChange()) {
+				index = null;
+				return;
+			}
+			if (!change.isAxiomChange() || !importsClosure.contains(change.getOntology())) {
+				continue;
+			}
+			OWLAxiom axiom = change.getAxiom();
+			if (axiom instanceof OWLObjectPropertyAssertionAxiom) {
+				OWLObjectPropertyAssertionAxiom simplified = ((OWLObjectPropertyAssertionAxiom) axiom).getSimplified();
+				if (change.isAddAxiom()) {
+					add(simplified);
+				}
+				else if (!isAsserted(simplified, importsClosure)) {
+					remove(simplified);
+				}
+			}
+		}
+	}
+	
+	private void add(OWLObjectPropertyAssertionAxiom axiom) {
+		if (!isIndexed(axiom)) {
+			return;
+		}
+		OWLObjectProperty p = axiom.getProperty().asOWLObjectProperty();
+		Map<OWLNamedIndividual, Set<OWLNamedIndividual>> valueMap = index.get(p);
+		if (valueMap == null) {
+			valueMap = new HashMap<OWLNamedIndividual, Set<OWLNamedIndividual>>();
+			index.put(p, valueMap);
+		}
+		OWLNamedIndividual value = axiom.getObject().asOWLNamedIndividual();
+		Set<OWLNamedIndividual> subjects = valueMap.get(value);
+		if (subjects == null) {
+			subjects = new HashSet<OWLNamedIndividual>();
+			valueMap.put(value, subjects);
+		}
+		subjects.add(axiom.getSubject().asOWLNamedIndividual());
+	}
+	
+	private void remove(OWLObjectPropertyAssertionAxiom axiom) {
+		if (!isIndexed(axiom)) {
+			return;
+		}
+		Map<OWLNamedIndividual, Set<OWLNamedIndividual>> valueMap = index.get(axiom.getProperty().asOWLObjectProperty());
+		if (valueMap == null) {
+			return;
+		}
+		OWLNamedIndividual value = axiom.getObject().asOWLNamedIndividual();
+		Set<OWLNamedIndividual> subjects = valueMap.get(value);
+		if (subjects != null) {
+			subjects.remove(axiom.getSubject().asOWLNamedIndividual());
+			if (subjects.isEmpty()) {
+				valueMap.remove(value);
+			}
+		}
+	}
+	
+	/*
+	 * The same assertion may still be present with other annotations, in another ontology of the imports 
+	 * closure or stated with the inverse property.
+	 */
+	private boolean isAsserted(OWLObjectPropertyAssertionAxiom simplified, Set<OWLOntology> importsClosure) {
+		if (!isIndexed(simplified)) {
+			return false;
+		}
+		for (OWLOntology imported : importsClosure) {
+			for (OWLObjectPropertyAssertionAxiom axiom : imported.getObjectPropertyAssertionAxioms(simplified.getSubject())) {
+				if (isSameAssertion(axiom, simplified)) {
+					return true;
+				}
+			}
+			for (OWLObjectPropertyAssertionAxiom axiom : imported.getObjectPropertyAssertionAxioms(simplified.getObject())) {
+				if (isSameAssertion(axiom, simplified)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	private static boolean isSameAssertion(OWLObjectPropertyAssertionAxiom axiom, OWLObjectPropertyAssertionAxiom simplified) {
+		OWLObjectPropertyAssertionAxiom other = axiom.getSimplified();
+		return other.getProperty().equals(simplified.getProperty()) 
+				&& other.getSubject().equals(simplified.getSubject()) 
+				&& other.getObject().equals(simplified.getObject());
+	}
+	
+	private static boolean isIndexed(OWLObjectPropertyAssertionAxiom simplified) {
+		return !simplified.getProperty().isAnonymous() 
+				&& !simplified.getSubject().isAnonymous() 
+				&& !simplified.getObject().isAnonymous();
+	}
+
+}
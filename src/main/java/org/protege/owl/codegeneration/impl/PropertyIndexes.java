@@ -0,0 +1,324 @@
+package org.protege.owl.codegeneration.impl;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.protege.owl.codegeneration.inference.CodeGenerationInference;
+import org.protege.owl.codegeneration.inference.ConcurrentInference;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLDataProperty;
+import org.semanticweb.owlapi.model.OWLDataPropertyAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+import org.semanticweb.owlapi.model.OWLOntologyChangeListener;
+
+/**
+ * Secondary indexes over the asserted data property values of the imports closure, used by the generated 
+ * queries.  The index for a data property is built on the first query that uses the property and holds
+ * <ul>
+ * <li>a hash index from value to individuals for equality tests and</li>
+ * <li>a sorted index for range and prefix tests on numbers, dates and strings.</li>
+ * </ul>
+ * Values are compared after normalization so that, for example, "42"^^xsd:int and "42"^^xsd:long are equal and 
+ * numbers of different types compare numerically.  Infinite floating point values order below or above every
+ * number and NaN only matches equality tests.  The indexes are updated one assertion at a time as the 
+ * ontology changes and are discarded when the imports change.  Object property conditions are answered by an 
+ * {@link InversePropertyIndex}.
+ * <p>
+ * Like the inverse property index, the indexes read the ontology under the read lock of the 
+ * {@link ConcurrentInference} of their inference, taken before the monitor of the indexes.
+ */
+public class PropertyIndexes implements OWLOntologyChangeListener {
+	/*
+	 * The infinities sort with the numbers, so they are compared as if they were BigDecimals.
+	 */
+	private static final Comparator<Object> KEY_ORDER = new Comparator<Object>() {
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		@Override
+		public int compare(Object o1, Object o2) {
+			Class<?> c1 = o1 instanceof Infinity ? BigDecimal.class : o1.getClass();
+			Class<?> c2 = o2 instanceof Infinity ? BigDecimal.class : o2.getClass();
+			if (!c1.equals(c2)) {
+				return c1.getName().compareTo(c2.getName());
+			}
+			if (c1.equals(BigDecimal.class) && o1.getClass() != o2.getClass()) {
+				return getRank(o1) - getRank(o2);
+			}
+			return ((Comparable) o1).compareTo(o2);
+		}
+	};
+	
+	/*
+	 * NaN is not ordered with respect to any number so its key is not comparable and it stays out of the 
+	 * sorted index.
+	 */
+	private static final Object NOT_A_NUMBER = new Object() {
+		@Override
+		public String toString() {
+			return "NaN";
+		}
+	};
+	
+	private OWLOntology ontology;
+	private Lock readLock;
+	private InversePropertyIndex inverseIndex;
+	private Map<OWLDataProperty, ValueIndex> indexes = new HashMap<OWLDataProperty, ValueIndex>();
+	
+	public PropertyIndexes(OWLOntology ontology, CodeGenerationInference inference, InversePropertyIndex inverseIndex) {
+		this.ontology = ontology;
+		this.inverseIndex = inverseIndex;
+		readLock = ConcurrentInference.getReadLock(inference);
+		ontology.getOWLOntologyManager().addOntologyChangeListener(this);
+	}
+	
+	public void dispose() {
+		ontology.getOWLOntologyManager().removeOntologyChangeListener(this);
+	}
+	
+	public OWLOntology getOwlOntology() {
+		return ontology;
+	}
+	
+	public Collection<OWLNamedIndividual> getSubjects(OWLObjectProperty p, OWLNamedIndividual value) {
+		return inverseIndex.getSubjects(p, value);
+	}
+	
+	public Set<OWLNamedIndividual> getSubjectsWithValue(OWLDataProperty p, Object value) {
+		readLock.lock();
+		try {
+			synchronized (this) {
+				Set<OWLNamedIndividual> subjects = getIndex(p).equal.get(getKey(value));
+				return subjects == null ? Collections.<OWLNamedIndividual>emptySet() : new HashSet<OWLNamedIndividual>(subjects);
+			}
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+	
+	/**
+	 * @param from the lower bound or null if there is no lower bound.
+	 * @param to the upper bound or null if there is no upper bound.
+	 */
+	public Set<OWLNamedIndividual> getSubjectsInRange(OWLDataProperty p, 
+	                                                  Object from, boolean fromInclusive, 
+	                                                  Object to, boolean toInclusive) {
+		readLock.lock();
+		try {
+			synchronized (this) {
+				NavigableMap<Object, Set<OWLNamedIndividual>> range = getIndex(p).sorted;
+				Object fromKey = getKey(from);
+				Object toKey = getKey(to);
+				if (fromKey == NOT_A_NUMBER || toKey == NOT_A_NUMBER) {
+					return Collections.emptySet();
+				}
+				if (fromKey != null && toKey != null && KEY_ORDER.compare(fromKey, toKey) > 0) {
+					return Collections.emptySet();
+				}
+				if (fromKey != null) {
+					range = range.tailMap(fromKey, fromInclusive);
+				}
+				if (toKey != null) {
+					range = range.headMap(toKey, toInclusive);
+				}
+				return collect(range.values());
+			}
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+	
+	public Set<OWLNamedIndividual> getSubjectsWithPrefix(OWLDataProperty p, String prefix) {
+		readLock.lock();
+		try {
+			synchronized (this) {
+				return collect(getIndex(p).sorted.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values());
+			}
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+	
+	private static Set<OWLNamedIndividual> collect(Collection<Set<OWLNamedIndividual>> subjectSets) {
+		Set<OWLNamedIndividual> subjects = new HashSet<OWLNamedIndividual>();
+		for (Set<OWLNamedIndividual> subjectSet : subjectSets) {
+			subjects.addAll(subjectSet);
+		}
+		return subjects;
+	}
+	
+	private ValueIndex getIndex(OWLDataProperty p) {
+		ValueIndex index = indexes.get(p);
+		if (index == null) {
+			index = new ValueIndex();
+			for (OWLOntology imported : ontology.getImportsClosure()) {
+				for (OWLAxiom axiom : imported.getReferencingAxioms(p)) {
+					if (axiom instanceof OWLDataPropertyAssertionAxiom) {
+						OWLDataPropertyAssertionAxiom assertion = (OWLDataPropertyAssertionAxiom) axiom;
+						if (assertion.getProperty().equals(p) && !assertion.getSubject().isAnonymous()) {
+							Object value = CodeGenerationHelper.getObjectFromLiteral(assertion.getObject());
+							index.add(getKey(value), assertion.getSubject().asOWLNamedIndividual());
+						}
+					}
+				}
+			}
+			indexes.put(p, index);
+		}
+		return index;
+	}
+	
+	/*
+	 * Removals look at the ontology in hasValueWithKey, so the listener takes the read lock too.  A writer 
+	 * holding the write lock can always take it.
+	 */
+	@Override
+	public void ontologiesChanged(List<? extends OWLOntologyChange> changes) {
+		readLock.lock();
+		try {
+			update(changes);
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+	
+	private synchronized void update(List<? extends OWLOntologyChange> changes) {
+		if (indexes.isEmpty()) {
+			return;
+		}
+		Set<OWLOntology> importsClosure = ontology.getImportsClosure();
+		for (OWLOntologyChange change : changes) {
+			if (change.isImportChange()) {
+				indexes.clear();
+				return;
+			}
+			if (change.isAxiomChange() 
+					&& change.getAxiom() instanceof OWLDataPropertyAssertionAxiom 
+					&& importsClosure.contains(change.getOntology())) {
+				update((OWLDataPropertyAssertionAxiom) change.getAxiom(), change.isAddAxiom());
+			}
+		}
+	}
+	
+	/*
+	 * The listener is called after the changes are applied, so a removed value is only dropped from the index
+	 * if no assertion left in the imports closure gives the subject a value with the same key.  This keeps 
+	 * the index right when, for example, "42"^^xsd:int is removed and "42"^^xsd:long remains.
+	 */
+	private void update(OWLDataPropertyAssertionAxiom assertion, boolean added) {
+		if (assertion.getProperty().isAnonymous() || assertion.getSubject().isAnonymous()) {
+			return;
+		}
+		OWLDataProperty p = assertion.getProperty().asOWLDataProperty();
+		ValueIndex index = indexes.get(p);
+		if (index == null) {
+			return;
+		}
+		OWLNamedIndividual subject = assertion.getSubject().asOWLNamedIndividual();
+		Object key = getKey(CodeGenerationHelper.getObjectFromLiteral(assertion.getObject()));
+		if (added) {
+			index.add(key, subject);
+		}
+		else if (!hasValueWithKey(subject, p, key)) {
+			index.remove(key, subject);
+		}
+	}
+	
+	private boolean hasValueWithKey(OWLNamedIndividual subject, OWLDataProperty p, Object key) {
+		for (OWLOntology imported : ontology.getImportsClosure()) {
+			for (OWLDataPropertyAssertionAxiom assertion : imported.getDataPropertyAssertionAxioms(subject)) {
+				if (assertion.getProperty().equals(p) 
+						&& key.equals(getKey(CodeGenerationHelper.getObjectFromLiteral(assertion.getObject())))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Normalizes a value so that equal values have equal keys and ordered values have mutually comparable keys.
+	 */
+	static Object getKey(Object value) {
+		if (value instanceof BigDecimal) {
+			return ((BigDecimal) value).stripTrailingZeros();
+		}
+		else if (value instanceof BigInteger) {
+			return new BigDecimal((BigInteger) value).stripTrailingZeros();
+		}
+		else if (value instanceof Double || value instanceof Float) {
+			double d = ((Number) value).doubleValue();
+			if (Double.isNaN(d)) {
+				return NOT_A_NUMBER;
+			}
+			else if (Double.isInfinite(d)) {
+				return d > 0 ? Infinity.POSITIVE : Infinity.NEGATIVE;
+			}
+			return new BigDecimal(value.toString()).stripTrailingZeros();
+		}
+		else if (value instanceof Number) {
+			return BigDecimal.valueOf(((Number) value).longValue()).stripTrailingZeros();
+		}
+		else if (value instanceof XMLGregorianCalendar) {
+			return ((XMLGregorianCalendar) value).toGregorianCalendar().toInstant();
+		}
+		else if (value instanceof OffsetDateTime) {
+			return ((OffsetDateTime) value).toInstant();
+		}
+		return value;
+	}
+	
+	private static int getRank(Object key) {
+		return key == Infinity.NEGATIVE ? -1 : (key == Infinity.POSITIVE ? 1 : 0);
+	}
+	
+	private enum Infinity {
+		NEGATIVE, POSITIVE
+	}
+	
+	private static class ValueIndex {
+		private Map<Object, Set<OWLNamedIndividual>> equal = new HashMap<Object, Set<OWLNamedIndividual>>();
+		private NavigableMap<Object, Set<OWLNamedIndividual>> sorted = new TreeMap<Object, Set<OWLNamedIndividual>>(KEY_ORDER);
+		
+		public void add(Object key, OWLNamedIndividual subject) {
+			Set<OWLNamedIndividual> subjects = equal.get(key);
+			if (subjects == null) {
+				subjects = new HashSet<OWLNamedIndividual>();
+				equal.put(key, subjects);
+				if (key instanceof Comparable) {
+					sorted.put(key, subjects);
+				}
+			}
+			subjects.add(subject);
+		}
+		
+		public void remove(Object key, OWLNamedIndividual subject) {
+			Set<OWLNamedIndividual> subjects = equal.get(key);
+			if (subjects != null && subjects.remove(subject) && subjects.isEmpty()) {
+				equal.remove(key);
+				if (key instanceof Comparable) {
+					sorted.remove(key);
+				}
+			}
+		}
+	}
+
+}
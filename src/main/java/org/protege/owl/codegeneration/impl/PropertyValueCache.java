@@ -0,0 +1,328 @@
+package org.protege.owl.codegeneration.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.protege.owl.codegeneration.inference.CodeGenerationInference;
+import org.protege.owl.codegeneration.inference.ConcurrentInference;
+import org.protege.owl.codegeneration.inference.DelegatingInference;
+import org.protege.owl.codegeneration.inference.SimpleInference;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLDataProperty;
+import org.semanticweb.owlapi.model.OWLDataPropertyAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLObjectPropertyAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+import org.semanticweb.owlapi.model.OWLOntologyChangeListener;
+
+/**
+ * A bounded, least recently used cache from (individual, property) to the property values of the individual.
+ * Data property values are kept both as literals and as the decoded java objects returned by the generated
+ * getters.  The cache is attached to an inference with {@link #attach(CodeGenerationInference, int)} and is
+ * used by the {@link CodeGenerationHelper} of every individual created with that inference afterwards.
+ * <p>
+ * When the inference answers from the asserted axioms a change to a property assertion only invalidates the
+ * entry for that subject and property.  For other inferences any axiom change in the imports closure clears
+ * the cache because the inferred values of any individual may have changed.  Decoded values are shared
+ * between readers except for the mutable {@link XMLGregorianCalendar}s, which are copied on every read.
+ * <p>
+ * The cache is safe to use from several threads.  Missing values are read from the inference without 
+ * holding the monitor of the cache, because a writer holding the lock of a {@link ConcurrentInference} may 
+ * be waiting for the monitor to invalidate entries, and are only stored if the ontology has not changed
+ * in the meantime.
+ */
+public class PropertyValueCache implements OWLOntologyChangeListener {
+	private static Map<CodeGenerationInference, PropertyValueCache> caches
+	                          = Collections.synchronizedMap(new WeakHashMap<CodeGenerationInference, PropertyValueCache>());
+
+	private OWLOntology ontology;
+	private boolean asserted;
+	private int maxEntries;
+	private Map<Key, Entry> entries;
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long invalidations;
+	private long generation;
+	private boolean disposed;
+
+	private PropertyValueCache(CodeGenerationInference inference, int maxEntries) {
+		if (maxEntries <= 0) {
+			throw new IllegalArgumentException("Cache size must be positive: " + maxEntries);
+		}
+		this.ontology = inference.getOWLOntology();
+		this.maxEntries = maxEntries;
+		asserted = DelegatingInference.unwrap(inference) instanceof SimpleInference;
+		entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+				if (size() > PropertyValueCache.this.maxEntries) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+		ontology.getOWLOntologyManager().addOntologyChangeListener(this);
+	}
+
+	/**
+	 * Attaches a new cache to an inference, replacing any cache that was attached before.
+	 *
+	 * @param maxEntries the maximum number of (individual, property) pairs held.
+	 */
+	public static PropertyValueCache attach(CodeGenerationInference inference, int maxEntries) {
+		PropertyValueCache cache = new PropertyValueCache(inference, maxEntries);
+		PropertyValueCache old = caches.put(inference, cache);
+		if (old != null) {
+			old.dispose();
+		}
+		return cache;
+	}
+
+	/**
+	 * Removes the cache attached to an inference, if any.
+	 */
+	public static void detach(CodeGenerationInference inference) {
+		PropertyValueCache old = caches.remove(inference);
+		if (old != null) {
+			old.dispose();
+		}
+	}
+
+	/**
+	 * @return the cache attached to the inference or null if there is none.
+	 */
+	public static PropertyValueCache getCache(CodeGenerationInference inference) {
+		return caches.get(inference);
+	}
+
+	/*
+	 * A disposed cache no longer sees the changes to the ontology so it passes reads straight through to
+	 * the inference for readers that looked it up before it was detached.
+	 */
+	private synchronized void dispose() {
+		disposed = true;
+		ontology.getOWLOntologyManager().removeOntologyChangeListener(this);
+		entries.clear();
+	}
+
+	public Collection<OWLNamedIndividual> getPropertyValues(CodeGenerationInference inference, OWLNamedIndividual i, OWLObjectProperty p) {
+		@SuppressWarnings("unchecked")
+		Collection<OWLNamedIndividual> values = (Collection<OWLNamedIndividual>) getEntry(inference, i, p).values;
+		return values;
+	}
+
+	public Collection<OWLLiteral> getPropertyValues(CodeGenerationInference inference, OWLNamedIndividual i, OWLDataProperty p) {
+		@SuppressWarnings("unchecked")
+		Collection<OWLLiteral> literals = (Collection<OWLLiteral>) getEntry(inference, i, p).values;
+		return literals;
+	}
+
+	/**
+	 * Gets the data property values converted with {@link CodeGenerationHelper#getObjectFromLiteral(OWLLiteral)}.
+	 */
+	public List<Object> getObjects(CodeGenerationInference inference, OWLNamedIndividual i, OWLDataProperty p) {
+		Entry entry = getEntry(inference, i, p);
+		List<Object> objects;
+		boolean mutable;
+		synchronized (this) {
+			if (entry.objects == null) {
+				List<Object> decoded = new ArrayList<Object>(entry.values.size());
+				for (Object literal : entry.values) {
+					Object o = CodeGenerationHelper.getObjectFromLiteral((OWLLiteral) literal);
+					entry.mutable = entry.mutable || o instanceof XMLGregorianCalendar;
+					decoded.add(o);
+				}
+				entry.objects = Collections.unmodifiableList(decoded);
+			}
+			objects = entry.objects;
+			mutable = entry.mutable;
+		}
+		return mutable ? copyMutable(objects) : objects;
+	}
+
+	private static List<Object> copyMutable(List<Object> objects) {
+		List<Object> copies = new ArrayList<Object>(objects.size());
+		for (Object o : objects) {
+			copies.add(o instanceof XMLGregorianCalendar ? ((XMLGregorianCalendar) o).clone() : o);
+		}
+		return copies;
+	}
+
+	private Entry getEntry(CodeGenerationInference inference, OWLNamedIndividual i, OWLEntity p) {
+		Key key = new Key(i, p);
+		long readGeneration;
+		synchronized (this) {
+			Entry entry = disposed ? null : entries.get(key);
+			if (entry != null) {
+				hits++;
+				return entry;
+			}
+			misses++;
+			readGeneration = generation;
+		}
+		Entry entry;
+		if (p instanceof OWLObjectProperty) {
+			entry = new Entry(new ArrayList<OWLNamedIndividual>(inference.getPropertyValues(i, (OWLObjectProperty) p)));
+		}
+		else {
+			entry = new Entry(new ArrayList<OWLLiteral>(inference.getPropertyValues(i, (OWLDataProperty) p)));
+		}
+		synchronized (this) {
+			if (!disposed && generation == readGeneration) {
+				Entry loaded = entries.get(key);
+				if (loaded != null) {
+					return loaded;
+				}
+				entries.put(key, entry);
+			}
+		}
+		return entry;
+	}
+
+	/**
+	 * @return the number of values of the property if they are cached, otherwise -1.  Does not count as a hit
+	 *         or a miss.
+	 */
+	public synchronized int getCachedCount(OWLNamedIndividual i, OWLEntity p) {
+		Entry entry = disposed ? null : entries.get(new Key(i, p));
+		return entry == null ? -1 : entry.values.size();
+	}
+
+	public synchronized void clear() {
+		generation++;
+		entries.clear();
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	public synchronized long getHitCount() {
+		return hits;
+	}
+
+	public synchronized long getMissCount() {
+		return misses;
+	}
+
+	/**
+	 * @return the fraction of reads that were answered from the cache or 0 if there have been no reads.
+	 */
+	public synchronized double getHitRate() {
+		long reads = hits + misses;
+		return reads == 0 ? 0 : ((double) hits) / reads;
+	}
+
+	public synchronized long getEvictionCount() {
+		return evictions;
+	}
+
+	/**
+	 * @return the number of entries removed because of changes to the ontology.
+	 */
+	public synchronized long getInvalidationCount() {
+		return invalidations;
+	}
+
+	@Override
+	public String toString() {
+		return "PropertyValueCache[size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+				+ ", evictions=" + getEvictionCount() + ", invalidations=" + getInvalidationCount() + "]";
+	}
+
+	@Override
+	public synchronized void ontologiesChanged(List<? extends OWLOntologyChange> changes) {
+		generation++;
+		if (entries.isEmpty()) {
+			return;
+		}
+		Set<OWLOntology> importsClosure = ontology.getImportsClosure();
+		for (OWLOntologyChange change : changes) {
+			if (!importsClosure.contains(change.getOntology())) {
+				continue;
+			}
+			if (change.isImportChange() || (!asserted && change.isAxiomChange() && change.getAxiom().isLogicalAxiom())) {
+				invalidations += entries.size();
+				entries.clear();
+				return;
+			}
+			if (change.isAxiomChange()) {
+				invalidate(change.getAxiom());
+			}
+		}
+	}
+
+	private void invalidate(OWLAxiom axiom) {
+		Key key = null;
+		if (axiom instanceof OWLObjectPropertyAssertionAxiom) {
+			OWLObjectPropertyAssertionAxiom simplified = ((OWLObjectPropertyAssertionAxiom) axiom).getSimplified();
+			if (!simplified.getSubject().isAnonymous()) {
+				key = new Key(simplified.getSubject().asOWLNamedIndividual(), simplified.getProperty().asOWLObjectProperty());
+			}
+		}
+		else if (axiom instanceof OWLDataPropertyAssertionAxiom) {
+			OWLDataPropertyAssertionAxiom assertion = (OWLDataPropertyAssertionAxiom) axiom;
+			if (!assertion.getSubject().isAnonymous()) {
+				key = new Key(assertion.getSubject().asOWLNamedIndividual(), assertion.getProperty().asOWLDataProperty());
+			}
+		}
+		if (key != null && entries.remove(key) != null) {
+			invalidations++;
+		}
+	}
+
+	private static class Key {
+		private OWLNamedIndividual subject;
+		private OWLEntity property;
+
+		public Key(OWLNamedIndividual subject, OWLEntity property) {
+			this.subject = subject;
+			this.property = property;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return subject.equals(other.subject) && property.equals(other.property);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * subject.hashCode() + property.hashCode();
+		}
+	}
+
+	private static class Entry {
+		private Collection<?> values;
+		private List<Object> objects;
+		private boolean mutable;
+
+		public Entry(Collection<?> values) {
+			this.values = Collections.unmodifiableCollection(values);
+		}
+	}
+
+}
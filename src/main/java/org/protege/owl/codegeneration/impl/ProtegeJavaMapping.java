@@ -1,27 +1,47 @@
 package org.protege.owl.codegeneration.impl;
 
-import java.lang.reflect.Constructor;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
 
 import org.protege.owl.codegeneration.WrappedIndividual;
+import org.protege.owl.codegeneration.impl.ClassMappingTable.Entry;
 import org.protege.owl.codegeneration.inference.CodeGenerationInference;
-import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.protege.owl.codegeneration.inference.ConcurrentInference;
 import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLClass;
 import org.semanticweb.owlapi.model.OWLDataFactory;
 import org.semanticweb.owlapi.model.OWLNamedIndividual;
 import org.semanticweb.owlapi.model.OWLOntology;
 
+/**
+ * The mapping between the OWL classes and the generated java interfaces and implementations for one
+ * ontology and inference.  The classes are held in a {@link ClassMappingTable}, which the generated factory
+ * shares between all its instances.  A mapping made with the default constructor has a table of its own that
+ * is filled while the factory is constructed and only read afterwards, so it is safe to share between 
+ * threads once the factory has been published.
+ * <p>
+ * Casts are resolved from a table of the entries whose implementation implements each java interface and
+ * the result is cached by the set of mapped types of the individual and the requested interface.  The cache
+ * does not depend on the ontology: when an individual is retyped the inference reports a different set of
+ * types and the cast is resolved for that set.  The cache is cleared when the mapping changes.
+ */
 public class ProtegeJavaMapping {
     private CodeGenerationInference inference;
     private OWLDataFactory dataFactory;
     private OWLOntology ontology;
-    
-    private Map<OWLClass, JavaAndOwlBean> protegeMap  = new HashMap<OWLClass, JavaAndOwlBean>();
-    private Map<Class<?>, JavaAndOwlBean> interfaceMap = new HashMap<Class<?>, JavaAndOwlBean>();
-    private Map<Class<?>, JavaAndOwlBean> implementationMap = new HashMap<Class<?>, JavaAndOwlBean>();
+    private ClassMappingTable table;
+
+    public ProtegeJavaMapping() {
+        this(new ClassMappingTable());
+    }
+
+    public ProtegeJavaMapping(ClassMappingTable table) {
+        this.table = table;
+    }
 
     public void initialize(OWLOntology ontology, CodeGenerationInference inference) {
         this.ontology = ontology;
@@ -29,115 +49,121 @@ public class ProtegeJavaMapping {
         dataFactory = ontology.getOWLOntologyManager().getOWLDataFactory();
     }
     
+    public ClassMappingTable getTable() {
+        return table;
+    }
+    
     public void add(String protegeClassName, 
                     Class<?> javaInterface, 
                     Class<? extends WrappedIndividualImpl> javaImplementation) {
-        OWLClass protegeClass = OWLManager.getOWLDataFactory().getOWLClass(IRI.create(protegeClassName));
-        add(protegeClass, javaInterface, javaImplementation);
+        table.add(protegeClassName, javaInterface, javaImplementation);
     }
     
     public void add(OWLClass protegeClass, 
                     Class<?> javaInterface, 
                     Class<? extends WrappedIndividualImpl> javaImplementation) {
-        JavaAndOwlBean entry = new JavaAndOwlBean(protegeClass, javaInterface, javaImplementation);
-        protegeMap.put(protegeClass, entry);
-        interfaceMap.put(javaInterface, entry);
-        implementationMap.put(javaImplementation, entry);
+        table.add(protegeClass, javaInterface, javaImplementation);
     }
     
     public Class<?> getJavaInterfaceFromOwlClass(OWLClass cls) {
-        JavaAndOwlBean bean = protegeMap.get(cls);
-        return bean != null ? bean.getJavaInterface() : null;
+        Entry entry = table.getEntry(cls);
+        return entry != null ? entry.getJavaInterface() : null;
     }
     
     public OWLClass getOwlClassFromJavaInterface(Class<?> javaInterface) {
-        JavaAndOwlBean bean = interfaceMap.get(javaInterface);
-        return bean != null ? bean.getProtegeClass() : null;
+        Entry entry = table.getEntryFromInterface(javaInterface);
+        return entry != null ? entry.getProtegeClass() : null;
     }
     
     @SuppressWarnings("unchecked")
     public <X> X create(Class<? extends X> javaInterface, String name) {
-        JavaAndOwlBean entry = interfaceMap.get(javaInterface);
+        Entry entry = table.getEntryFromInterface(javaInterface);
         if (entry == null) {
             return null;
         }
         OWLClass cls = entry.getProtegeClass();
         OWLNamedIndividual individual = dataFactory.getOWLNamedIndividual(IRI.create(name));
-        ontology.getOWLOntologyManager().addAxiom(ontology, dataFactory.getOWLClassAssertionAxiom(cls, individual));
-        return constructImplementation((Class<? extends X>) entry.getJavaImplementation(), individual.getIRI());
+        Lock writeLock = ConcurrentInference.getWriteLock(inference);
+        writeLock.lock();
+        try {
+            ontology.getOWLOntologyManager().addAxiom(ontology, dataFactory.getOWLClassAssertionAxiom(cls, individual));
+        }
+        finally {
+            writeLock.unlock();
+        }
+        return (X) constructImplementation(entry, individual.getIRI());
     }
     
     public boolean canAs(WrappedIndividual resource, Class<? extends WrappedIndividual> javaInterface) {
-        if (javaInterface.isAssignableFrom(resource.getClass())) {
+        if (javaInterface.isInstance(resource)) {
             return true;
         }
-        return getJavaImplementation(resource.getOwlIndividual(), javaInterface) != null;
+        return resolve(resource.getOwlIndividual(), javaInterface) != null;
     }
     
+    @SuppressWarnings("unchecked")
     public  <X extends WrappedIndividual> X as(WrappedIndividual resource, Class<? extends X> javaInterface) {
-        if (javaInterface.isAssignableFrom(resource.getClass())) {
-            return javaInterface.cast(resource);
+        if (javaInterface.isInstance(resource)) {
+            return (X) resource;
         }
-        Class<? extends X> type = getJavaImplementation(resource.getOwlIndividual(), javaInterface);
-        return type != null ? constructImplementation(type, resource.getOwlIndividual().getIRI()) : null;
+        Entry entry = resolve(resource.getOwlIndividual(), javaInterface);
+        return entry != null ? (X) constructImplementation(entry, resource.getOwlIndividual().getIRI()) : null;
     }
     
-    private <X> X constructImplementation(Class<? extends X> implType, IRI id) {
-        try {
-            Constructor<? extends X> con = implType.getConstructor(new Class[] { CodeGenerationInference.class, IRI.class});
-            return con.newInstance(new Object[] { inference, id });
-        }
-        catch (Throwable t) {
-            ClassCastException classcast = new ClassCastException("Resource " + id.toString() + " could not be cast to type " + implType);
-            classcast.initCause(t);
-            throw classcast;
+    /**
+     * Gets the java implementations of the types of an individual.  The inference is asked for the types once
+     * and the result can be used to view the individual as any number of java interfaces.
+     */
+    public List<Class<? extends WrappedIndividualImpl>> getJavaImplementations(OWLNamedIndividual resource) {
+        List<Class<? extends WrappedIndividualImpl>> implementations = new ArrayList<Class<? extends WrappedIndividualImpl>>();
+        for (OWLClass type : inference.getTypes(resource)) {
+            Entry entry = table.getEntry(type);
+            if (entry != null) {
+                implementations.add(entry.getJavaImplementation());
+            }
         }
+        return implementations;
     }
     
-    private <X> Class<? extends X> getJavaImplementation(OWLNamedIndividual resource, Class<? extends X> javaInterface) {
-        Collection<OWLClass> protegeTypes = inference.getTypes(resource);
-        for (OWLClass type  : protegeTypes) {
-            JavaAndOwlBean entry = protegeMap.get(type);
-            if (entry == null) {
-                continue;
-            }
-            Class<? extends WrappedIndividualImpl> javaImplementationClass = entry.getJavaImplementation();
-            if (javaInterface.isAssignableFrom(javaImplementationClass)) {
-                return javaImplementationClass.asSubclass(javaInterface);
+    /**
+     * Views an individual as a java interface given the implementations found by 
+     * {@link #getJavaImplementations(OWLNamedIndividual)}.
+     * 
+     * @return the wrapped individual or null if none of the implementations implement the interface.
+     */
+    @SuppressWarnings("unchecked")
+    public <X extends WrappedIndividual> X as(OWLNamedIndividual resource, 
+                                              Collection<Class<? extends WrappedIndividualImpl>> implementations, 
+                                              Class<? extends X> javaInterface) {
+        Set<Entry> compatible = table.getCompatibleEntries(javaInterface);
+        for (Class<? extends WrappedIndividualImpl> implementation : implementations) {
+            Entry entry = table.getEntryFromImplementation(implementation);
+            if (entry != null && compatible.contains(entry)) {
+                return (X) constructImplementation(entry, resource.getIRI());
             }
         }
         return null;
     }
     
-    private static class JavaAndOwlBean {
-        private OWLClass protegeClass;
-        private Class<?> javaInterface;
-        private Class<? extends WrappedIndividualImpl> javaImplementation;
-        
-        public JavaAndOwlBean(OWLClass protegeClass,
-                     Class<?> javaInterface,
-                     Class<? extends WrappedIndividualImpl> javaImplementation) {
-            this.protegeClass = protegeClass;
-            this.javaInterface = javaInterface;
-            this.javaImplementation = javaImplementation;
-        }
-
-        public OWLClass getProtegeClass() {
-            return protegeClass;
-        }
-
-        public Class<?> getJavaInterface() {
-            return javaInterface;
+    private Object constructImplementation(Entry entry, IRI id) {
+        try {
+            return entry.getConstructor().newInstance(inference, id);
         }
-
-        public Class<? extends WrappedIndividualImpl> getJavaImplementation() {
-            return javaImplementation;
+        catch (Throwable t) {
+            ClassCastException classcast = new ClassCastException("Resource " + id.toString() + " could not be cast to type " + entry.getJavaImplementation());
+            classcast.initCause(t);
+            throw classcast;
         }
-        
-        @Override
-        public String toString() {
-            return "<Class: " + protegeClass + ">";
+    }
+    
+    private Entry resolve(OWLNamedIndividual resource, Class<?> javaInterface) {
+        Set<OWLClass> mappedTypes = new HashSet<OWLClass>();
+        for (OWLClass type : inference.getTypes(resource)) {
+            if (table.getEntry(type) != null) {
+                mappedTypes.add(type);
+            }
         }
+        return table.resolve(mappedTypes, javaInterface);
     }
     
 }
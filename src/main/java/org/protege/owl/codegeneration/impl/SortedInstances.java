@@ -0,0 +1,97 @@
+package org.protege.owl.codegeneration.impl;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.protege.owl.codegeneration.inference.CodeGenerationInference;
+import org.protege.owl.codegeneration.inference.DelegatingInference;
+import org.protege.owl.codegeneration.inference.SimpleInference;
+import org.semanticweb.owlapi.model.AxiomType;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+import org.semanticweb.owlapi.model.OWLOntologyChangeListener;
+
+/**
+ * The instances of each class sorted by IRI, as used by the paged and streamed reads of a factory.  The sorted
+ * arrays are kept until the instances may have changed: when the inference answers from the asserted axioms
+ * that is a change to a class assertion, otherwise any change to the logical axioms or imports of the imports
+ * closure.  The arrays are shared and must not be modified.
+ * <p>
+ * As in the {@link PropertyValueCache} the inference is not called while the monitor is held and an array
+ * sorted while the ontology changed is returned but not kept.
+ */
+class SortedInstances implements OWLOntologyChangeListener {
+	private OWLOntology ontology;
+	private CodeGenerationInference inference;
+	private boolean asserted;
+	private Map<OWLClass, OWLNamedIndividual[]> sorted = new HashMap<OWLClass, OWLNamedIndividual[]>();
+	private long generation;
+
+	public SortedInstances(CodeGenerationInference inference) {
+		this.inference = inference;
+		ontology = inference.getOWLOntology();
+		asserted = DelegatingInference.unwrap(inference) instanceof SimpleInference;
+		ontology.getOWLOntologyManager().addOntologyChangeListener(this);
+	}
+
+	public void dispose() {
+		ontology.getOWLOntologyManager().removeOntologyChangeListener(this);
+		clear();
+	}
+
+	public OWLNamedIndividual[] get(OWLClass owlClass) {
+		long readGeneration;
+		synchronized (this) {
+			OWLNamedIndividual[] individuals = sorted.get(owlClass);
+			if (individuals != null) {
+				return individuals;
+			}
+			readGeneration = generation;
+		}
+		Collection<OWLNamedIndividual> instances = inference.getIndividuals(owlClass);
+		OWLNamedIndividual[] individuals = instances.toArray(new OWLNamedIndividual[instances.size()]);
+		Arrays.sort(individuals);
+		synchronized (this) {
+			if (generation == readGeneration) {
+				sorted.put(owlClass, individuals);
+			}
+		}
+		return individuals;
+	}
+
+	public synchronized void clear() {
+		generation++;
+		sorted.clear();
+	}
+
+	@Override
+	public synchronized void ontologiesChanged(List<? extends OWLOntologyChange> changes) {
+		Set<OWLOntology> importsClosure = ontology.getImportsClosure();
+		for (OWLOntologyChange change : changes) {
+			if (!importsClosure.contains(change.getOntology())) {
+				continue;
+			}
+			if (change.isImportChange()) {
+				clear();
+				return;
+			}
+			if (change.isAxiomChange()) {
+				if (asserted && change.getAxiom().isOfType(AxiomType.CLASS_ASSERTION)) {
+					clear();
+					return;
+				}
+				if (!asserted && change.getAxiom().isLogicalAxiom()) {
+					clear();
+					return;
+				}
+			}
+		}
+	}
+
+}
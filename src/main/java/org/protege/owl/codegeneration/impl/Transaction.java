@@ -0,0 +1,147 @@
+package org.protege.owl.codegeneration.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+import org.protege.owl.codegeneration.CodeGenerationRuntimeException;
+import org.semanticweb.owlapi.model.AddAxiom;
+import org.semanticweb.owlapi.model.AddImport;
+import org.semanticweb.owlapi.model.AddOntologyAnnotation;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+import org.semanticweb.owlapi.model.OWLOntologyChangeListener;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.RemoveAxiom;
+import org.semanticweb.owlapi.model.RemoveImport;
+import org.semanticweb.owlapi.model.RemoveOntologyAnnotation;
+import org.semanticweb.owlapi.model.SetOntologyID;
+
+/**
+ * Records the changes made to the ontologies of a manager by one thread so that they can be undone as a
+ * single batch.  The changes are applied as they are made, so the thread that owns the transaction reads its
+ * own writes through the generated code without copying the ontology.
+ * <p>
+ * When the inference of the factory is wrapped in a {@link org.protege.owl.codegeneration.inference.ConcurrentInference}
+ * the transaction holds its write lock until it is committed or rolled back, so other threads never see the
+ * intermediate states.  A transaction that is closed without being committed is rolled back:
+ * <pre>
+ * Transaction transaction = factory.beginTransaction();
+ * try {
+ *     ...
+ *     transaction.commit();
+ * }
+ * finally {
+ *     transaction.close();
+ * }
+ * </pre>
+ */
+public class Transaction implements AutoCloseable {
+	private OWLOntologyManager manager;
+	private Lock writeLock;
+	private Thread owner;
+	private List<OWLOntologyChange> changes = new ArrayList<OWLOntologyChange>();
+	private boolean active = true;
+
+	private OWLOntologyChangeListener listener = new OWLOntologyChangeListener() {
+		@Override
+		public void ontologiesChanged(List<? extends OWLOntologyChange> applied) {
+			if (Thread.currentThread() == owner) {
+				changes.addAll(applied);
+			}
+		}
+	};
+
+	Transaction(OWLOntologyManager manager, Lock writeLock) {
+		this.manager = manager;
+		this.writeLock = writeLock;
+		owner = Thread.currentThread();
+		writeLock.lock();
+		manager.addOntologyChangeListener(listener);
+	}
+
+	public boolean isActive() {
+		return active;
+	}
+
+	/**
+	 * @return the changes applied in this transaction so far, in the order they were applied.
+	 */
+	public List<OWLOntologyChange> getChanges() {
+		return Collections.unmodifiableList(changes);
+	}
+
+	/**
+	 * Keeps the changes made in this transaction.
+	 */
+	public void commit() {
+		end();
+		writeLock.unlock();
+	}
+
+	/**
+	 * Undoes the changes made in this transaction by applying their inverses, in reverse order, as one batch.
+	 */
+	public void rollback() {
+		end();
+		List<OWLOntologyChange> inverses = new ArrayList<OWLOntologyChange>(changes.size());
+		for (int i = changes.size() - 1; i >= 0; i--) {
+			inverses.add(getInverse(changes.get(i)));
+		}
+		try {
+			if (!inverses.isEmpty()) {
+				manager.applyChanges(inverses);
+			}
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Rolls the transaction back unless it has been committed or rolled back already.
+	 */
+	@Override
+	public void close() {
+		if (active) {
+			rollback();
+		}
+	}
+
+	private void end() {
+		if (!active) {
+			throw new IllegalStateException("Transaction has already ended");
+		}
+		if (Thread.currentThread() != owner) {
+			throw new IllegalStateException("Transaction can only be ended by the thread that began it");
+		}
+		active = false;
+		manager.removeOntologyChangeListener(listener);
+	}
+
+	private static OWLOntologyChange getInverse(OWLOntologyChange change) {
+		if (change instanceof AddAxiom) {
+			return new RemoveAxiom(change.getOntology(), change.getAxiom());
+		}
+		else if (change instanceof RemoveAxiom) {
+			return new AddAxiom(change.getOntology(), change.getAxiom());
+		}
+		else if (change instanceof AddImport) {
+			return new RemoveImport(change.getOntology(), ((AddImport) change).getImportDeclaration());
+		}
+		else if (change instanceof RemoveImport) {
+			return new AddImport(change.getOntology(), ((RemoveImport) change).getImportDeclaration());
+		}
+		else if (change instanceof AddOntologyAnnotation) {
+			return new RemoveOntologyAnnotation(change.getOntology(), ((AddOntologyAnnotation) change).getAnnotation());
+		}
+		else if (change instanceof RemoveOntologyAnnotation) {
+			return new AddOntologyAnnotation(change.getOntology(), ((RemoveOntologyAnnotation) change).getAnnotation());
+		}
+		else if (change instanceof SetOntologyID) {
+			return new SetOntologyID(change.getOntology(), ((SetOntologyID) change).getOriginalOntologyID());
+		}
+		throw new CodeGenerationRuntimeException("Cannot undo change " + change);
+	}
+
+}
@@ -0,0 +1,142 @@
+package org.protege.owl.codegeneration.impl;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.protege.owl.codegeneration.CodeGenerationRuntimeException;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLEntity;
+
+/**
+ * The lookups of a sharded vocabulary.  When the code is generated with
+ * {@link org.protege.owl.codegeneration.CodeGenerationOptions#setVocabularyShards(int)} the constants of the
+ * vocabulary are split by entity kind and by the hash of their IRI into nested holder classes, so the JVM
+ * only creates the constants of the holders that are used.  This class finds an entity by IRI or by index
+ * and loads a holder the first time one of its entities is looked up.
+ * <p>
+ * The entities are indexed holder by holder and, within a holder, in the order of their IRIs.  The generated
+ * vocabulary passes the index of the first entity of each holder so that an index lookup loads one holder.
+ */
+public class VocabularyShards<E extends OWLEntity> {
+    private Class<?> vocabulary;
+    private String prefix;
+    private Class<E> entityType;
+    private int[] starts;
+    private AtomicReferenceArray<Shard<E>> shards;
+
+    /**
+     * @param vocabulary the generated vocabulary class.
+     * @param prefix the name of the holder classes without the shard number, for example "Classes".
+     * @param entityType the type of the constants in the holder classes.
+     * @param starts the index of the first entity of each holder followed by the number of entities.
+     */
+    public VocabularyShards(Class<?> vocabulary, String prefix, Class<E> entityType, int... starts) {
+        if (starts.length < 2) {
+            throw new IllegalArgumentException("A sharded vocabulary needs at least one shard");
+        }
+        this.vocabulary = vocabulary;
+        this.prefix = prefix;
+        this.entityType = entityType;
+        this.starts = starts;
+        shards = new AtomicReferenceArray<Shard<E>>(starts.length - 1);
+    }
+
+    /**
+     * The shard of an entity.  The code generator and the lookups must agree on this.
+     */
+    public static int getShard(String iri, int shardCount) {
+        return Math.floorMod(iri.hashCode(), shardCount);
+    }
+
+    public int getShardCount() {
+        return starts.length - 1;
+    }
+
+    public int size() {
+        return starts[starts.length - 1];
+    }
+
+    /**
+     * @return the entity with the given IRI or null if it is not in the vocabulary.
+     */
+    public E get(String iri) {
+        return getShard(getShard(iri, getShardCount())).byIri.get(iri);
+    }
+
+    public E get(IRI iri) {
+        return get(iri.toString());
+    }
+
+    public E get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " is not in the vocabulary of size " + size());
+        }
+        int low = 0;
+        int high = getShardCount() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (starts[middle] <= index) {
+                low = middle;
+            }
+            else {
+                high = middle - 1;
+            }
+        }
+        return getShard(low).entities.get(index - starts[low]);
+    }
+
+    private Shard<E> getShard(int shard) {
+        Shard<E> loaded = shards.get(shard);
+        if (loaded == null) {
+            loaded = loadShard(shard);
+            if (!shards.compareAndSet(shard, null, loaded)) {
+                loaded = shards.get(shard);
+            }
+        }
+        return loaded;
+    }
+
+    private Shard<E> loadShard(int shard) {
+        Shard<E> loaded = new Shard<E>();
+        if (starts[shard] == starts[shard + 1]) {
+            return loaded;
+        }
+        try {
+            Class<?> holder = Class.forName(vocabulary.getName() + "$" + prefix + shard, true, vocabulary.getClassLoader());
+            for (Field field : holder.getFields()) {
+                if (Modifier.isStatic(field.getModifiers()) && entityType.isAssignableFrom(field.getType())) {
+                    loaded.entities.add(entityType.cast(field.get(null)));
+                }
+            }
+        }
+        catch (ClassNotFoundException | IllegalAccessException e) {
+            throw new CodeGenerationRuntimeException(e);
+        }
+        Collections.sort(loaded.entities, new Comparator<E>() {
+            @Override
+            public int compare(E e1, E e2) {
+                return e1.getIRI().toString().compareTo(e2.getIRI().toString());
+            }
+        });
+        if (loaded.entities.size() != starts[shard + 1] - starts[shard]) {
+            throw new CodeGenerationRuntimeException("Shard " + prefix + shard + " does not match the generated vocabulary");
+        }
+        for (E entity : loaded.entities) {
+            loaded.byIri.put(entity.getIRI().toString(), entity);
+        }
+        return loaded;
+    }
+
+    private static class Shard<E> {
+        private List<E> entities = new ArrayList<E>();
+        private Map<String, E> byIri = new HashMap<String, E>();
+    }
+
+}
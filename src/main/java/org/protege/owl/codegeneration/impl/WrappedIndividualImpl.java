@@ -1,12 +1,14 @@
 package org.protege.owl.codegeneration.impl;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Collection;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
 
 import org.protege.owl.codegeneration.WrappedIndividual;
 import org.protege.owl.codegeneration.inference.CodeGenerationInference;
@@ -22,9 +24,9 @@ import org.semanticweb.owlapi.model.OWLNamedIndividual;
 import org.semanticweb.owlapi.model.OWLObjectProperty;
 import org.semanticweb.owlapi.model.OWLObjectPropertyExpression;
 import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
 import org.semanticweb.owlapi.model.OWLOntologyManager;
 import org.semanticweb.owlapi.search.EntitySearcher;
-import org.semanticweb.owlapi.util.OWLEntityRemover;
 import org.semanticweb.owlapi.util.ShortFormProvider;
 import org.semanticweb.owlapi.util.SimpleShortFormProvider;
 
@@ -74,17 +76,31 @@ public class WrappedIndividualImpl implements WrappedIndividual {
     public void assertOwlType(OWLClassExpression type) {
         OWLOntologyManager manager = owlOntology.getOWLOntologyManager();
         OWLDataFactory factory = manager.getOWLDataFactory();
-        manager.addAxiom(owlOntology, factory.getOWLClassAssertionAxiom(type, owlIndividual));
+        Lock writeLock = delegate.getWriteLock();
+        writeLock.lock();
+        try {
+            manager.addAxiom(owlOntology, factory.getOWLClassAssertionAxiom(type, owlIndividual));
+        }
+        finally {
+            writeLock.unlock();
+        }
     }
     
     /**
      * Deletes the individual from Ontology 
      */
     public void delete() {
-        OWLEntityRemover remover = new OWLEntityRemover(Collections
-                .singleton(getOwlOntology()));
-        owlIndividual.accept(remover);
-        getOwlOntology().getOWLOntologyManager().applyChanges(remover.getChanges());
+        Lock writeLock = delegate.getWriteLock();
+        writeLock.lock();
+        try {
+            List<OWLOntologyChange> changes = FactoryHelper.getDeleteChanges(getOwlOntology(), Collections.singleton(owlIndividual));
+            if (!changes.isEmpty()) {
+                getOwlOntology().getOWLOntologyManager().applyChanges(changes);
+            }
+        }
+        finally {
+            writeLock.unlock();
+        }
     }
     
     
@@ -0,0 +1,238 @@
+package org.protege.owl.codegeneration.inference;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLDataProperty;
+import org.semanticweb.owlapi.model.OWLDataPropertyAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLObjectPropertyAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+import org.semanticweb.owlapi.model.OWLOntologyChangeListener;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+/**
+ * An inference that remembers the property values it has read from its delegate.  The cache is meant to
+ * live for a session of graph navigation: {@link #prefetch(Collection, OWLObjectProperty)} loads the values
+ * of a property for many subjects at once so that the getters of the generated code do not query the
+ * delegate once per individual.
+ * <p>
+ * When the delegate is a {@link SimpleInference} a prefetch is a single pass over the assertions of the
+ * property and a change to a property assertion only forgets the values of that subject and property.  Other
+ * delegates are asked once per subject and any change to the imports closure clears the cache.  The cache
+ * is also cleared on {@link #flush()}.
+ * <p>
+ * The delegate is never called while the monitor of the cache is held, so that a writer holding the lock of
+ * a {@link ConcurrentInference} delegate can always invalidate the cache.  Values read while the ontology
+ * changed are returned but not remembered.
+ */
+public class CachingInference extends DelegatingInference {
+	private OWLOntologyManager manager;
+	private boolean asserted;
+	private Map<OWLObjectProperty, Map<OWLNamedIndividual, Collection<OWLNamedIndividual>>> objectValues
+	                          = new HashMap<OWLObjectProperty, Map<OWLNamedIndividual, Collection<OWLNamedIndividual>>>();
+	private Map<OWLDataProperty, Map<OWLNamedIndividual, Collection<OWLLiteral>>> dataValues
+	                          = new HashMap<OWLDataProperty, Map<OWLNamedIndividual, Collection<OWLLiteral>>>();
+	private long generation;
+
+	private OWLOntologyChangeListener listener = new OWLOntologyChangeListener() {
+		@Override
+		public void ontologiesChanged(List<? extends OWLOntologyChange> changes) {
+			invalidate(changes);
+		}
+	};
+
+	public CachingInference(CodeGenerationInference delegate) {
+		super(delegate);
+		asserted = delegate instanceof SimpleInference;
+		manager = delegate.getOWLOntology().getOWLOntologyManager();
+		manager.addOntologyChangeListener(listener);
+	}
+
+	/**
+	 * Stops tracking changes to the ontology and empties the cache.
+	 */
+	public synchronized void dispose() {
+		manager.removeOntologyChangeListener(listener);
+		clear();
+	}
+
+	public synchronized void clear() {
+		generation++;
+		objectValues.clear();
+		dataValues.clear();
+	}
+
+	@Override
+	public void flush() {
+		clear();
+		super.flush();
+	}
+
+	/**
+	 * Loads the values of an object property for the given subjects into the cache.
+	 */
+	public void prefetch(Collection<OWLNamedIndividual> subjects, OWLObjectProperty p) {
+		long readGeneration = getGeneration();
+		Map<OWLNamedIndividual, Collection<OWLNamedIndividual>> loaded = new HashMap<OWLNamedIndividual, Collection<OWLNamedIndividual>>();
+		if (asserted) {
+			loaded.putAll(((SimpleInference) getDelegate()).getPropertyValues(subjects, p));
+		}
+		else {
+			for (OWLNamedIndividual subject : subjects) {
+				if (getCached(objectValues, p, subject) == null) {
+					loaded.put(subject, getDelegate().getPropertyValues(subject, p));
+				}
+			}
+		}
+		store(objectValues, p, loaded, readGeneration);
+	}
+
+	/**
+	 * Loads the values of a data property for the given subjects into the cache.
+	 */
+	public void prefetch(Collection<OWLNamedIndividual> subjects, OWLDataProperty p) {
+		long readGeneration = getGeneration();
+		Map<OWLNamedIndividual, Collection<OWLLiteral>> loaded = new HashMap<OWLNamedIndividual, Collection<OWLLiteral>>();
+		if (asserted) {
+			loaded.putAll(((SimpleInference) getDelegate()).getPropertyValues(subjects, p));
+		}
+		else {
+			for (OWLNamedIndividual subject : subjects) {
+				if (getCached(dataValues, p, subject) == null) {
+					loaded.put(subject, getDelegate().getPropertyValues(subject, p));
+				}
+			}
+		}
+		store(dataValues, p, loaded, readGeneration);
+	}
+
+	@Override
+	public Collection<OWLNamedIndividual> getPropertyValues(OWLNamedIndividual i, OWLObjectProperty p) {
+		long readGeneration = getGeneration();
+		Collection<OWLNamedIndividual> values = getCached(objectValues, p, i);
+		if (values == null) {
+			values = getDelegate().getPropertyValues(i, p);
+			store(objectValues, p, Collections.singletonMap(i, values), readGeneration);
+		}
+		return Collections.unmodifiableCollection(values);
+	}
+
+	@Override
+	public Collection<OWLLiteral> getPropertyValues(OWLNamedIndividual i, OWLDataProperty p) {
+		long readGeneration = getGeneration();
+		Collection<OWLLiteral> values = getCached(dataValues, p, i);
+		if (values == null) {
+			values = getDelegate().getPropertyValues(i, p);
+			store(dataValues, p, Collections.singletonMap(i, values), readGeneration);
+		}
+		return Collections.unmodifiableCollection(values);
+	}
+
+	@Override
+	public boolean hasPropertyValue(OWLNamedIndividual i, OWLObjectProperty p) {
+		Collection<OWLNamedIndividual> values = getCached(objectValues, p, i);
+		return values == null ? getDelegate().hasPropertyValue(i, p) : !values.isEmpty();
+	}
+
+	@Override
+	public boolean hasPropertyValue(OWLNamedIndividual i, OWLDataProperty p) {
+		Collection<OWLLiteral> values = getCached(dataValues, p, i);
+		return values == null ? getDelegate().hasPropertyValue(i, p) : !values.isEmpty();
+	}
+
+	@Override
+	public int countPropertyValues(OWLNamedIndividual i, OWLObjectProperty p) {
+		Collection<OWLNamedIndividual> values = getCached(objectValues, p, i);
+		return values == null ? getDelegate().countPropertyValues(i, p) : values.size();
+	}
+
+	@Override
+	public int countPropertyValues(OWLNamedIndividual i, OWLDataProperty p) {
+		Collection<OWLLiteral> values = getCached(dataValues, p, i);
+		return values == null ? getDelegate().countPropertyValues(i, p) : values.size();
+	}
+
+	@Override
+	public OWLLiteral getPropertyValue(OWLNamedIndividual i, OWLDataProperty p) {
+		Collection<OWLLiteral> values = getCached(dataValues, p, i);
+		if (values == null) {
+			return getDelegate().getPropertyValue(i, p);
+		}
+		return values.isEmpty() ? null : values.iterator().next();
+	}
+
+	private synchronized long getGeneration() {
+		return generation;
+	}
+
+	private synchronized <P, V> Collection<V> getCached(Map<P, Map<OWLNamedIndividual, Collection<V>>> caches, P p, OWLNamedIndividual i) {
+		Map<OWLNamedIndividual, Collection<V>> cache = caches.get(p);
+		return cache == null ? null : cache.get(i);
+	}
+
+	/*
+	 * Values read from the delegate are only remembered if nothing was invalidated while they were read.
+	 */
+	private synchronized <P, V> void store(Map<P, Map<OWLNamedIndividual, Collection<V>>> caches, P p,
+	                                       Map<OWLNamedIndividual, ? extends Collection<V>> values, long readGeneration) {
+		if (generation == readGeneration) {
+			getCache(caches, p).putAll(values);
+		}
+	}
+
+	private static <P, V> Map<OWLNamedIndividual, Collection<V>> getCache(Map<P, Map<OWLNamedIndividual, Collection<V>>> caches, P p) {
+		Map<OWLNamedIndividual, Collection<V>> cache = caches.get(p);
+		if (cache == null) {
+			cache = new HashMap<OWLNamedIndividual, Collection<V>>();
+			caches.put(p, cache);
+		}
+		return cache;
+	}
+
+	private synchronized void invalidate(List<? extends OWLOntologyChange> changes) {
+		generation++;
+		if (objectValues.isEmpty() && dataValues.isEmpty()) {
+			return;
+		}
+		Set<OWLOntology> importsClosure = getOWLOntology().getImportsClosure();
+		for (OWLOntologyChange change : changes) {
+			if (!importsClosure.contains(change.getOntology())) {
+				continue;
+			}
+			if (!asserted || change.isImportChange()) {
+				clear();
+				return;
+			}
+			if (change.isAxiomChange()) {
+				forget(change.getAxiom());
+			}
+		}
+	}
+
+	private void forget(OWLAxiom axiom) {
+		if (axiom instanceof OWLObjectPropertyAssertionAxiom) {
+			OWLObjectPropertyAssertionAxiom assertion = (OWLObjectPropertyAssertionAxiom) axiom;
+			Map<OWLNamedIndividual, Collection<OWLNamedIndividual>> cache = objectValues.get(assertion.getProperty());
+			if (cache != null) {
+				cache.remove(assertion.getSubject());
+			}
+		}
+		else if (axiom instanceof OWLDataPropertyAssertionAxiom) {
+			OWLDataPropertyAssertionAxiom assertion = (OWLDataPropertyAssertionAxiom) axiom;
+			Map<OWLNamedIndividual, Collection<OWLLiteral>> cache = dataValues.get(assertion.getProperty());
+			if (cache != null) {
+				cache.remove(assertion.getSubject());
+			}
+		}
+	}
+
+}
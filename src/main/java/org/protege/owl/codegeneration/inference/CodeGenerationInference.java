@@ -50,5 +50,25 @@ public interface CodeGenerationInference {
 	Collection<OWLNamedIndividual> getPropertyValues(OWLNamedIndividual i, OWLObjectProperty p);
 	
     Collection<OWLLiteral> getPropertyValues(OWLNamedIndividual i, OWLDataProperty p);
+    
+    /*
+     * The following are answered without building the collections returned by the corresponding 
+     * get methods.  They must agree with those methods.
+     */
+    
+    int countIndividuals(OWLClass owlClass);
+    
+    boolean hasPropertyValue(OWLNamedIndividual i, OWLObjectProperty p);
+    
+    boolean hasPropertyValue(OWLNamedIndividual i, OWLDataProperty p);
+    
+    int countPropertyValues(OWLNamedIndividual i, OWLObjectProperty p);
+    
+    int countPropertyValues(OWLNamedIndividual i, OWLDataProperty p);
+    
+    /**
+     * @return one of the values of a data property, which one is unspecified, or null if there is none.
+     */
+    OWLLiteral getPropertyValue(OWLNamedIndividual i, OWLDataProperty p);
 
 }
@@ -0,0 +1,333 @@
+package org.protege.owl.codegeneration.inference;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import org.protege.owl.codegeneration.names.CodeGenerationNames;
+import org.protege.owl.codegeneration.property.JavaPropertyDeclaration;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataProperty;
+import org.semanticweb.owlapi.model.OWLDatatype;
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+
+/**
+ * An inference that can be shared by the generated code of many threads.  Every query to the delegate is 
+ * made under the read lock of a {@link LockingStrategy} and {@link #flush()} and {@link #preCompute()} are 
+ * made under its write lock.  The generated code finds the inference with {@link #getWriteLock(CodeGenerationInference)}
+ * and holds the write lock while it changes the ontology, so readers never see half of a change and the 
+ * reasoner is never asked a question while it is being updated.
+ * <p>
+ * Changes made to the ontology without going through the generated code should hold the write lock of
+ * {@link #getLockingStrategy()} as well.  With {@link LockingStrategy#readWrite()} readers run in parallel;
+ * reasoners are rarely thread-safe, so {@link LockingStrategy#exclusive()} is the default for anything but a
+ * {@link SimpleInference} or a {@link PooledReasonerInference}.
+ */
+public class ConcurrentInference extends DelegatingInference {
+	private LockingStrategy locking;
+	private Lock readLock;
+	private Lock writeLock;
+
+	public ConcurrentInference(CodeGenerationInference delegate) {
+		this(delegate, LockingStrategy.forInference(delegate));
+	}
+
+	public ConcurrentInference(CodeGenerationInference delegate, LockingStrategy locking) {
+		super(delegate);
+		this.locking = locking;
+		readLock = locking.readLock();
+		writeLock = locking.writeLock();
+	}
+
+	public LockingStrategy getLockingStrategy() {
+		return locking;
+	}
+
+	/**
+	 * Finds the lock that writers to the ontology of an inference must hold.
+	 * 
+	 * @return the write lock of the first concurrent inference in the chain of delegates or a lock that does 
+	 *         nothing if there is none.
+	 */
+	public static Lock getWriteLock(CodeGenerationInference inference) {
+		while (inference instanceof DelegatingInference) {
+			if (inference instanceof ConcurrentInference) {
+				return ((ConcurrentInference) inference).writeLock;
+			}
+			inference = ((DelegatingInference) inference).getDelegate();
+		}
+		return LockingStrategy.none().writeLock();
+	}
+
+	/**
+	 * Finds the lock that readers of the ontology of an inference must hold when they read it directly.
+	 * 
+	 * @return the read lock of the first concurrent inference in the chain of delegates or a lock that does 
+	 *         nothing if there is none.
+	 */
+	public static Lock getReadLock(CodeGenerationInference inference) {
+		while (inference instanceof DelegatingInference) {
+			if (inference instanceof ConcurrentInference) {
+				return ((ConcurrentInference) inference).readLock;
+			}
+			inference = ((DelegatingInference) inference).getDelegate();
+		}
+		return LockingStrategy.none().readLock();
+	}
+
+	@Override
+	public void preCompute() {
+		writeLock.lock();
+		try {
+			super.preCompute();
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	@Override
+	public void flush() {
+		writeLock.lock();
+		try {
+			super.flush();
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	@Override
+	public Collection<OWLClass> getOwlClasses() {
+		readLock.lock();
+		try {
+			return super.getOwlClasses();
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	@Override
+	public Collection<OWLClass> getSubClasses(OWLClass owlClass) {
+		readLock.lock();
+		try {
+			return super.getSubClasses(owlClass);
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	@Override
+	public Collection<OWLClass> getSuperClasses(OWLClass owlClass) {
+		readLock.lock();
+		try {
+			return super.getSuperClasses(owlClass);
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	@Override
+	public Set<JavaPropertyDeclaration> getJavaPropertyDeclarations(OWLClass cls, CodeGenerationNames names) {
+		readLock.lock();
+		try {
+			return super.getJavaPropertyDeclarations(cls, names);
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	@Override
+	public boolean isFunctional(OWLObjectProperty p) {
+		readLock.lock();
+		try {
+			return super.isFunctional(p);
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	@Override
+	public OWLClass getRange(OWLObjectProperty p) {
+		readLock.lock();
+		try {
+			return super.getRange(p);
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	@Override
+	public OWLClass getRange(OWLClass owlClass, OWLObjectProperty p) {
+		readLock.lock();
+		try {
+			return super.getRange(owlClass, p);
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	@Override
+	public boolean isFunctional(OWLDataProperty p) {
+		readLock.lock();
+		try {
+			return super.isFunctional(p);
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	@Override
+	public OWLDatatype getRange(OWLDataProperty p) {
+		readLock.lock();
+		try {
+			return super.getRange(p);
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	@Override
+	public OWLDatatype getRange(OWLClass owlClass, OWLDataProperty p) {
+		readLock.lock();
+		try {
+			return super.getRange(owlClass, p);
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	@Override
+	public Collection<OWLNamedIndividual> getIndividuals(OWLClass owlClass) {
+		readLock.lock();
+		try {
+			return super.getIndividuals(owlClass);
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	@Override
+	public boolean canAs(OWLNamedIndividual i, OWLClass c) {
+		readLock.lock();
+		try {
+			return super.canAs(i, c);
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	@Override
+	public Collection<OWLClass> getTypes(OWLNamedIndividual i) {
+		readLock.lock();
+		try {
+			return super.getTypes(i);
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	@Override
+	public Collection<OWLNamedIndividual> getPropertyValues(OWLNamedIndividual i, OWLObjectProperty p) {
+		readLock.lock();
+		try {
+			return super.getPropertyValues(i, p);
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	@Override
+	public Collection<OWLLiteral> getPropertyValues(OWLNamedIndividual i, OWLDataProperty p) {
+		readLock.lock();
+		try {
+			return super.getPropertyValues(i, p);
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	@Override
+	public int countIndividuals(OWLClass owlClass) {
+		readLock.lock();
+		try {
+			return super.countIndividuals(owlClass);
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	@Override
+	public boolean hasPropertyValue(OWLNamedIndividual i, OWLObjectProperty p) {
+		readLock.lock();
+		try {
+			return super.hasPropertyValue(i, p);
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	@Override
+	public boolean hasPropertyValue(OWLNamedIndividual i, OWLDataProperty p) {
+		readLock.lock();
+		try {
+			return super.hasPropertyValue(i, p);
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	@Override
+	public int countPropertyValues(OWLNamedIndividual i, OWLObjectProperty p) {
+		readLock.lock();
+		try {
+			return super.countPropertyValues(i, p);
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	@Override
+	public int countPropertyValues(OWLNamedIndividual i, OWLDataProperty p) {
+		readLock.lock();
+		try {
+			return super.countPropertyValues(i, p);
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+	@Override
+	public OWLLiteral getPropertyValue(OWLNamedIndividual i, OWLDataProperty p) {
+		readLock.lock();
+		try {
+			return super.getPropertyValue(i, p);
+		}
+		finally {
+			readLock.unlock();
+		}
+	}
+
+}
@@ -0,0 +1,161 @@
+package org.protege.owl.codegeneration.inference;
+
+import java.util.Collection;
+import java.util.Set;
+
+import org.protege.owl.codegeneration.names.CodeGenerationNames;
+import org.protege.owl.codegeneration.property.JavaPropertyDeclaration;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataProperty;
+import org.semanticweb.owlapi.model.OWLDatatype;
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+/**
+ * A base class for inferences that wrap another inference and only change part of its behavior.  
+ * Every method forwards to the delegate.
+ */
+public abstract class DelegatingInference implements CodeGenerationInference {
+	private CodeGenerationInference delegate;
+	
+	protected DelegatingInference(CodeGenerationInference delegate) {
+		this.delegate = delegate;
+	}
+	
+	public CodeGenerationInference getDelegate() {
+		return delegate;
+	}
+	
+	/**
+	 * Follows the chain of delegating inferences down to the inference that does the actual work.
+	 */
+	public static CodeGenerationInference unwrap(CodeGenerationInference inference) {
+		while (inference instanceof DelegatingInference) {
+			inference = ((DelegatingInference) inference).getDelegate();
+		}
+		return inference;
+	}
+
+	@Override
+	public OWLOntology getOWLOntology() {
+		return delegate.getOWLOntology();
+	}
+
+	@Override
+	public void preCompute() {
+		delegate.preCompute();
+	}
+
+	@Override
+	public void flush() {
+		delegate.flush();
+	}
+
+	@Override
+	public Collection<OWLClass> getOwlClasses() {
+		return delegate.getOwlClasses();
+	}
+
+	@Override
+	public Collection<OWLClass> getSubClasses(OWLClass owlClass) {
+		return delegate.getSubClasses(owlClass);
+	}
+
+	@Override
+	public Collection<OWLClass> getSuperClasses(OWLClass owlClass) {
+		return delegate.getSuperClasses(owlClass);
+	}
+
+	@Override
+	public Set<JavaPropertyDeclaration> getJavaPropertyDeclarations(OWLClass cls, CodeGenerationNames names) {
+		return delegate.getJavaPropertyDeclarations(cls, names);
+	}
+
+	@Override
+	public boolean isFunctional(OWLObjectProperty p) {
+		return delegate.isFunctional(p);
+	}
+
+	@Override
+	public OWLClass getRange(OWLObjectProperty p) {
+		return delegate.getRange(p);
+	}
+
+	@Override
+	public OWLClass getRange(OWLClass owlClass, OWLObjectProperty p) {
+		return delegate.getRange(owlClass, p);
+	}
+
+	@Override
+	public boolean isFunctional(OWLDataProperty p) {
+		return delegate.isFunctional(p);
+	}
+
+	@Override
+	public OWLDatatype getRange(OWLDataProperty p) {
+		return delegate.getRange(p);
+	}
+
+	@Override
+	public OWLDatatype getRange(OWLClass owlClass, OWLDataProperty p) {
+		return delegate.getRange(owlClass, p);
+	}
+
+	@Override
+	public Collection<OWLNamedIndividual> getIndividuals(OWLClass owlClass) {
+		return delegate.getIndividuals(owlClass);
+	}
+
+	@Override
+	public boolean canAs(OWLNamedIndividual i, OWLClass c) {
+		return delegate.canAs(i, c);
+	}
+
+	@Override
+	public Collection<OWLClass> getTypes(OWLNamedIndividual i) {
+		return delegate.getTypes(i);
+	}
+
+	@Override
+	public Collection<OWLNamedIndividual> getPropertyValues(OWLNamedIndividual i, OWLObjectProperty p) {
+		return delegate.getPropertyValues(i, p);
+	}
+
+	@Override
+	public Collection<OWLLiteral> getPropertyValues(OWLNamedIndividual i, OWLDataProperty p) {
+		return delegate.getPropertyValues(i, p);
+	}
+
+	@Override
+	public int countIndividuals(OWLClass owlClass) {
+		return delegate.countIndividuals(owlClass);
+	}
+
+	@Override
+	public boolean hasPropertyValue(OWLNamedIndividual i, OWLObjectProperty p) {
+		return delegate.hasPropertyValue(i, p);
+	}
+
+	@Override
+	public boolean hasPropertyValue(OWLNamedIndividual i, OWLDataProperty p) {
+		return delegate.hasPropertyValue(i, p);
+	}
+
+	@Override
+	public int countPropertyValues(OWLNamedIndividual i, OWLObjectProperty p) {
+		return delegate.countPropertyValues(i, p);
+	}
+
+	@Override
+	public int countPropertyValues(OWLNamedIndividual i, OWLDataProperty p) {
+		return delegate.countPropertyValues(i, p);
+	}
+
+	@Override
+	public OWLLiteral getPropertyValue(OWLNamedIndividual i, OWLDataProperty p) {
+		return delegate.getPropertyValue(i, p);
+	}
+
+}
@@ -0,0 +1,151 @@
+package org.protege.owl.codegeneration.inference;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Decides which lock a {@link ConcurrentInference} holds while it reads from its delegate and which lock the
+ * generated code holds while it changes the ontology.  Both locks must be reentrant and a thread holding the
+ * write lock must be able to take the read lock, because ontology change listeners read the inference while
+ * a change is being applied.
+ */
+public abstract class LockingStrategy {
+	private static final LockingStrategy NONE = new NoLocking();
+
+	public abstract Lock readLock();
+
+	public abstract Lock writeLock();
+
+	/**
+	 * Readers share a lock and writers exclude everybody else.  Use this strategy when the delegate is safe to
+	 * read from several threads at once, such as a {@link SimpleInference}, so that reads scale with the number
+	 * of cores.
+	 */
+	public static LockingStrategy readWrite() {
+		return new ReadWriteLocking(new ReentrantReadWriteLock());
+	}
+
+	/**
+	 * Readers and writers all take turns.  Use this strategy when the delegate is a
+	 * {@link ReasonerBasedInference} whose reasoner is not thread-safe, or use a
+	 * {@link PooledReasonerInference} with {@link #readWrite()}.
+	 */
+	public static LockingStrategy exclusive() {
+		return new ExclusiveLocking(new ReentrantLock());
+	}
+
+	/**
+	 * Does not lock at all, for inferences used from a single thread.
+	 */
+	public static LockingStrategy none() {
+		return NONE;
+	}
+
+	/**
+	 * Chooses {@link #readWrite()} when the inference reads the asserted axioms only or uses a pool of
+	 * reasoners and {@link #exclusive()} otherwise.
+	 */
+	public static LockingStrategy forInference(CodeGenerationInference inference) {
+		CodeGenerationInference worker = DelegatingInference.unwrap(inference);
+		return worker instanceof SimpleInference || worker instanceof PooledReasonerInference ? readWrite() : exclusive();
+	}
+
+	private static class ReadWriteLocking extends LockingStrategy {
+		private ReentrantReadWriteLock lock;
+
+		public ReadWriteLocking(ReentrantReadWriteLock lock) {
+			this.lock = lock;
+		}
+
+		@Override
+		public Lock readLock() {
+			return lock.readLock();
+		}
+
+		@Override
+		public Lock writeLock() {
+			return lock.writeLock();
+		}
+
+		@Override
+		public String toString() {
+			return "LockingStrategy[read-write]";
+		}
+	}
+
+	private static class ExclusiveLocking extends LockingStrategy {
+		private Lock lock;
+
+		public ExclusiveLocking(Lock lock) {
+			this.lock = lock;
+		}
+
+		@Override
+		public Lock readLock() {
+			return lock;
+		}
+
+		@Override
+		public Lock writeLock() {
+			return lock;
+		}
+
+		@Override
+		public String toString() {
+			return "LockingStrategy[exclusive]";
+		}
+	}
+
+	private static class NoLocking extends LockingStrategy {
+		private Lock lock = new NoLock();
+
+		@Override
+		public Lock readLock() {
+			return lock;
+		}
+
+		@Override
+		public Lock writeLock() {
+			return lock;
+		}
+
+		@Override
+		public String toString() {
+			return "LockingStrategy[none]";
+		}
+	}
+
+	private static class NoLock implements Lock {
+
+		@Override
+		public void lock() {
+		}
+
+		@Override
+		public void lockInterruptibly() throws InterruptedException {
+		}
+
+		@Override
+		public boolean tryLock() {
+			return true;
+		}
+
+		@Override
+		public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+			return true;
+		}
+
+		@Override
+		public void unlock() {
+		}
+
+		@Override
+		public Condition newCondition() {
+			throw new UnsupportedOperationException("Conditions are not supported without locking");
+		}
+	}
+
+}
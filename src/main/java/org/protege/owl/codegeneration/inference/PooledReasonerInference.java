@@ -0,0 +1,440 @@
+package org.protege.owl.codegeneration.inference;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.protege.owl.codegeneration.CodeGenerationRuntimeException;
+import org.protege.owl.codegeneration.names.CodeGenerationNames;
+import org.protege.owl.codegeneration.property.JavaPropertyDeclaration;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataProperty;
+import org.semanticweb.owlapi.model.OWLDatatype;
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+import org.semanticweb.owlapi.model.OWLOntologyChangeListener;
+import org.semanticweb.owlapi.reasoner.OWLReasoner;
+import org.semanticweb.owlapi.reasoner.OWLReasonerFactory;
+
+/**
+ * An inference that asks one of a pool of reasoners over the same ontology, so that reasoner-backed reads
+ * from several threads run in parallel although each reasoner is only used by one thread at a time.
+ * <p>
+ * Reasoners are created on demand up to the size of the pool and a query waits when all of them are busy.
+ * A change to the logical axioms or imports of the ontology, or a call to {@link #flush()}, marks every
+ * reasoner as stale and each one is flushed before it answers its next query, so the reasoners are flushed
+ * together without stopping the readers.  A reasoner whose flush fails goes back to the pool still stale, so
+ * the next query that borrows it tries again.  Changes should be made under the write lock of a
+ * {@link ConcurrentInference} wrapping this inference so that no query runs while a change is applied.
+ */
+public class PooledReasonerInference implements CodeGenerationInference {
+	private OWLOntology ontology;
+	private OWLReasonerFactory reasonerFactory;
+	private int size;
+	private BlockingQueue<PooledReasoner> idle = new LinkedBlockingQueue<PooledReasoner>();
+	private List<PooledReasoner> all = new ArrayList<PooledReasoner>();
+	private volatile long version;
+	private boolean disposed;
+
+	private OWLOntologyChangeListener listener = new OWLOntologyChangeListener() {
+		@Override
+		public void ontologiesChanged(List<? extends OWLOntologyChange> changes) {
+			Set<OWLOntology> importsClosure = ontology.getImportsClosure();
+			for (OWLOntologyChange change : changes) {
+				if (importsClosure.contains(change.getOntology())
+						&& (change.isImportChange() || (change.isAxiomChange() && change.getAxiom().isLogicalAxiom()))) {
+					flush();
+					return;
+				}
+			}
+		}
+	};
+
+	/**
+	 * @param size the maximum number of reasoners created.
+	 */
+	public PooledReasonerInference(OWLOntology ontology, OWLReasonerFactory reasonerFactory, int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("Pool size must be positive: " + size);
+		}
+		this.ontology = ontology;
+		this.reasonerFactory = reasonerFactory;
+		this.size = size;
+		ontology.getOWLOntologyManager().addOntologyChangeListener(listener);
+	}
+
+	/**
+	 * Creates a pool with one reasoner per available processor.
+	 */
+	public PooledReasonerInference(OWLOntology ontology, OWLReasonerFactory reasonerFactory) {
+		this(ontology, reasonerFactory, Runtime.getRuntime().availableProcessors());
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the number of reasoners created so far.
+	 */
+	public synchronized int getCreatedCount() {
+		return all.size();
+	}
+
+	public int getIdleCount() {
+		return idle.size();
+	}
+
+	/**
+	 * Stops tracking changes to the ontology and disposes of the reasoners.  Reasoners that are in use are
+	 * disposed of when they are returned.
+	 */
+	public void dispose() {
+		ontology.getOWLOntologyManager().removeOntologyChangeListener(listener);
+		List<PooledReasoner> reasoners = new ArrayList<PooledReasoner>();
+		synchronized (this) {
+			disposed = true;
+			idle.drainTo(reasoners);
+		}
+		for (PooledReasoner pooled : reasoners) {
+			pooled.reasoner.dispose();
+		}
+	}
+
+	private PooledReasoner borrow() {
+		PooledReasoner pooled = idle.poll();
+		if (pooled == null) {
+			pooled = createIfRoom();
+		}
+		try {
+			if (pooled == null) {
+				pooled = idle.take();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CodeGenerationRuntimeException(e);
+		}
+		long current = version;
+		if (pooled.version != current) {
+			boolean flushed = false;
+			try {
+				pooled.inference.flush();
+				pooled.version = current;
+				flushed = true;
+			}
+			finally {
+				if (!flushed) {
+					release(pooled);
+				}
+			}
+		}
+		return pooled;
+	}
+
+	private synchronized PooledReasoner createIfRoom() {
+		if (disposed) {
+			throw new IllegalStateException("Reasoner pool has been disposed");
+		}
+		if (all.size() >= size) {
+			return null;
+		}
+		OWLReasoner reasoner = reasonerFactory.createReasoner(ontology);
+		PooledReasoner pooled = new PooledReasoner(reasoner, new ReasonerBasedInference(ontology, reasoner), version);
+		all.add(pooled);
+		return pooled;
+	}
+
+	private void release(PooledReasoner pooled) {
+		synchronized (this) {
+			if (!disposed) {
+				idle.add(pooled);
+				return;
+			}
+		}
+		pooled.reasoner.dispose();
+	}
+
+	@Override
+	public OWLOntology getOWLOntology() {
+		return ontology;
+	}
+
+	/**
+	 * Precomputes the inferences of every reasoner that has been created, creating the first one if needed.
+	 */
+	@Override
+	public void preCompute() {
+		List<PooledReasoner> reasoners = new ArrayList<PooledReasoner>();
+		try {
+			reasoners.add(borrow());
+			idle.drainTo(reasoners);
+			for (PooledReasoner pooled : reasoners) {
+				pooled.inference.preCompute();
+			}
+		}
+		finally {
+			for (PooledReasoner pooled : reasoners) {
+				release(pooled);
+			}
+		}
+	}
+
+	/**
+	 * Marks every reasoner as stale.  Each one is flushed before it answers its next query.
+	 */
+	@Override
+	public synchronized void flush() {
+		version++;
+	}
+
+	@Override
+	public Collection<OWLClass> getOwlClasses() {
+		PooledReasoner pooled = borrow();
+		try {
+			return pooled.inference.getOwlClasses();
+		}
+		finally {
+			release(pooled);
+		}
+	}
+
+	@Override
+	public Collection<OWLClass> getSubClasses(OWLClass owlClass) {
+		PooledReasoner pooled = borrow();
+		try {
+			return pooled.inference.getSubClasses(owlClass);
+		}
+		finally {
+			release(pooled);
+		}
+	}
+
+	@Override
+	public Collection<OWLClass> getSuperClasses(OWLClass owlClass) {
+		PooledReasoner pooled = borrow();
+		try {
+			return pooled.inference.getSuperClasses(owlClass);
+		}
+		finally {
+			release(pooled);
+		}
+	}
+
+	@Override
+	public Set<JavaPropertyDeclaration> getJavaPropertyDeclarations(OWLClass cls, CodeGenerationNames names) {
+		PooledReasoner pooled = borrow();
+		try {
+			return pooled.inference.getJavaPropertyDeclarations(cls, names);
+		}
+		finally {
+			release(pooled);
+		}
+	}
+
+	@Override
+	public boolean isFunctional(OWLObjectProperty p) {
+		PooledReasoner pooled = borrow();
+		try {
+			return pooled.inference.isFunctional(p);
+		}
+		finally {
+			release(pooled);
+		}
+	}
+
+	@Override
+	public OWLClass getRange(OWLObjectProperty p) {
+		PooledReasoner pooled = borrow();
+		try {
+			return pooled.inference.getRange(p);
+		}
+		finally {
+			release(pooled);
+		}
+	}
+
+	@Override
+	public OWLClass getRange(OWLClass owlClass, OWLObjectProperty p) {
+		PooledReasoner pooled = borrow();
+		try {
+			return pooled.inference.getRange(owlClass, p);
+		}
+		finally {
+			release(pooled);
+		}
+	}
+
+	@Override
+	public boolean isFunctional(OWLDataProperty p) {
+		PooledReasoner pooled = borrow();
+		try {
+			return pooled.inference.isFunctional(p);
+		}
+		finally {
+			release(pooled);
+		}
+	}
+
+	@Override
+	public OWLDatatype getRange(OWLDataProperty p) {
+		PooledReasoner pooled = borrow();
+		try {
+			return pooled.inference.getRange(p);
+		}
+		finally {
+			release(pooled);
+		}
+	}
+
+	@Override
+	public OWLDatatype getRange(OWLClass owlClass, OWLDataProperty p) {
+		PooledReasoner pooled = borrow();
+		try {
+			return pooled.inference.getRange(owlClass, p);
+		}
+		finally {
+			release(pooled);
+		}
+	}
+
+	@Override
+	public Collection<OWLNamedIndividual> getIndividuals(OWLClass owlClass) {
+		PooledReasoner pooled = borrow();
+		try {
+			return pooled.inference.getIndividuals(owlClass);
+		}
+		finally {
+			release(pooled);
+		}
+	}
+
+	@Override
+	public boolean canAs(OWLNamedIndividual i, OWLClass c) {
+		PooledReasoner pooled = borrow();
+		try {
+			return pooled.inference.canAs(i, c);
+		}
+		finally {
+			release(pooled);
+		}
+	}
+
+	@Override
+	public Collection<OWLClass> getTypes(OWLNamedIndividual i) {
+		PooledReasoner pooled = borrow();
+		try {
+			return pooled.inference.getTypes(i);
+		}
+		finally {
+			release(pooled);
+		}
+	}
+
+	@Override
+	public Collection<OWLNamedIndividual> getPropertyValues(OWLNamedIndividual i, OWLObjectProperty p) {
+		PooledReasoner pooled = borrow();
+		try {
+			return pooled.inference.getPropertyValues(i, p);
+		}
+		finally {
+			release(pooled);
+		}
+	}
+
+	@Override
+	public Collection<OWLLiteral> getPropertyValues(OWLNamedIndividual i, OWLDataProperty p) {
+		PooledReasoner pooled = borrow();
+		try {
+			return pooled.inference.getPropertyValues(i, p);
+		}
+		finally {
+			release(pooled);
+		}
+	}
+
+	@Override
+	public int countIndividuals(OWLClass owlClass) {
+		PooledReasoner pooled = borrow();
+		try {
+			return pooled.inference.countIndividuals(owlClass);
+		}
+		finally {
+			release(pooled);
+		}
+	}
+
+	@Override
+	public boolean hasPropertyValue(OWLNamedIndividual i, OWLObjectProperty p) {
+		PooledReasoner pooled = borrow();
+		try {
+			return pooled.inference.hasPropertyValue(i, p);
+		}
+		finally {
+			release(pooled);
+		}
+	}
+
+	@Override
+	public boolean hasPropertyValue(OWLNamedIndividual i, OWLDataProperty p) {
+		PooledReasoner pooled = borrow();
+		try {
+			return pooled.inference.hasPropertyValue(i, p);
+		}
+		finally {
+			release(pooled);
+		}
+	}
+
+	@Override
+	public int countPropertyValues(OWLNamedIndividual i, OWLObjectProperty p) {
+		PooledReasoner pooled = borrow();
+		try {
+			return pooled.inference.countPropertyValues(i, p);
+		}
+		finally {
+			release(pooled);
+		}
+	}
+
+	@Override
+	public int countPropertyValues(OWLNamedIndividual i, OWLDataProperty p) {
+		PooledReasoner pooled = borrow();
+		try {
+			return pooled.inference.countPropertyValues(i, p);
+		}
+		finally {
+			release(pooled);
+		}
+	}
+
+	@Override
+	public OWLLiteral getPropertyValue(OWLNamedIndividual i, OWLDataProperty p) {
+		PooledReasoner pooled = borrow();
+		try {
+			return pooled.inference.getPropertyValue(i, p);
+		}
+		finally {
+			release(pooled);
+		}
+	}
+
+	private static class PooledReasoner {
+		private OWLReasoner reasoner;
+		private ReasonerBasedInference inference;
+		private long version;
+
+		public PooledReasoner(OWLReasoner reasoner, ReasonerBasedInference inference, long version) {
+			this.reasoner = reasoner;
+			this.inference = inference;
+			this.version = version;
+		}
+	}
+
+}
@@ -6,34 +6,48 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import org.protege.owl.codegeneration.HandledDatatypes;
+import org.protege.owl.codegeneration.DatatypeRegistry;
 import org.protege.owl.codegeneration.names.CodeGenerationNames;
 import org.protege.owl.codegeneration.property.JavaDataPropertyDeclaration;
 import org.protege.owl.codegeneration.property.JavaObjectPropertyDeclaration;
 import org.protege.owl.codegeneration.property.JavaPropertyDeclaration;
+import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLClass;
 import org.semanticweb.owlapi.model.OWLClassExpression;
 import org.semanticweb.owlapi.model.OWLDataFactory;
 import org.semanticweb.owlapi.model.OWLDataProperty;
+import org.semanticweb.owlapi.model.OWLDataPropertyAssertionAxiom;
 import org.semanticweb.owlapi.model.OWLDatatype;
 import org.semanticweb.owlapi.model.OWLEntity;
 import org.semanticweb.owlapi.model.OWLLiteral;
 import org.semanticweb.owlapi.model.OWLNamedIndividual;
 import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLObjectPropertyAssertionAxiom;
 import org.semanticweb.owlapi.model.OWLOntology;
 import org.semanticweb.owlapi.reasoner.InferenceType;
+import org.semanticweb.owlapi.reasoner.Node;
+import org.semanticweb.owlapi.reasoner.NodeSet;
 import org.semanticweb.owlapi.reasoner.OWLReasoner;
 import org.semanticweb.owlapi.search.EntitySearcher;
 
+/**
+ * An inference that asks a reasoner.
+ * <p>
+ * The classes, domains and ranges found by the reasoner are remembered in indexes that are safe to read and
+ * fill from several threads.  Most reasoners are not thread-safe themselves, so an inference that is shared
+ * between threads should be wrapped in a {@link ConcurrentInference} with an exclusive locking strategy.
+ */
 public class ReasonerBasedInference implements CodeGenerationInference {
 	private OWLOntology ontology;
 	private OWLReasoner reasoner;
 	private OWLDataFactory factory;
-	private Set<OWLClass> allClasses;
-	private Map<OWLClass, Set<OWLEntity>> domainMap;
-	private Map<OWLClass, Map<OWLObjectProperty, OWLClass>> objectRangeMap = new HashMap<OWLClass, Map<OWLObjectProperty, OWLClass>>();
-	private Map<OWLClass, Map<OWLDataProperty, OWLDatatype>> dataRangeMap = new HashMap<OWLClass, Map<OWLDataProperty,OWLDatatype>>();
+	private volatile Set<OWLClass> allClasses;
+	private volatile Map<OWLClass, Set<OWLEntity>> domainMap;
+	private ConcurrentMap<OWLClass, Map<OWLObjectProperty, OWLClass>> objectRangeMap = new ConcurrentHashMap<OWLClass, Map<OWLObjectProperty, OWLClass>>();
+	private ConcurrentMap<OWLClass, Map<OWLDataProperty, OWLDatatype>> dataRangeMap = new ConcurrentHashMap<OWLClass, Map<OWLDataProperty,OWLDatatype>>();
 
 
 	public ReasonerBasedInference(OWLOntology ontology, OWLReasoner reasoner) {
@@ -59,10 +73,12 @@ public class ReasonerBasedInference implements CodeGenerationInference {
 	
     @Override
 	public Collection<OWLClass> getOwlClasses() {
+		Set<OWLClass> allClasses = this.allClasses;
 		if (allClasses == null) {
 			allClasses = new HashSet<OWLClass>(ontology.getClassesInSignature());
 			allClasses.removeAll(reasoner.getUnsatisfiableClasses().getEntities());
 			allClasses.removeAll(reasoner.getEquivalentClasses(factory.getOWLThing()).getEntities());
+			this.allClasses = allClasses;
 		}
 		return allClasses;
 	}
@@ -79,8 +95,9 @@ public class ReasonerBasedInference implements CodeGenerationInference {
 	
     @Override
 	public Set<JavaPropertyDeclaration> getJavaPropertyDeclarations(OWLClass cls, CodeGenerationNames names) {
+		Map<OWLClass, Set<OWLEntity>> domainMap = this.domainMap;
 		if (domainMap == null) {
-			initializeDomainMap();
+			domainMap = initializeDomainMap();
 		}
 		Set<JavaPropertyDeclaration> declarations = new HashSet<JavaPropertyDeclaration>();
 		if (domainMap.get(cls) != null) {
@@ -111,8 +128,11 @@ public class ReasonerBasedInference implements CodeGenerationInference {
 	public OWLClass getRange(OWLClass owlClass, OWLObjectProperty p) {
 		Map<OWLObjectProperty, OWLClass> property2RangeMap = objectRangeMap.get(owlClass);
 		if (property2RangeMap == null) {
-			property2RangeMap = new HashMap<OWLObjectProperty, OWLClass>();
-			objectRangeMap.put(owlClass, property2RangeMap);
+			property2RangeMap = new ConcurrentHashMap<OWLObjectProperty, OWLClass>();
+			Map<OWLObjectProperty, OWLClass> existing = objectRangeMap.putIfAbsent(owlClass, property2RangeMap);
+			if (existing != null) {
+				property2RangeMap = existing;
+			}
 		}
 		OWLClass cls = property2RangeMap.get(p);
 		if (cls == null) {
@@ -126,7 +146,9 @@ public class ReasonerBasedInference implements CodeGenerationInference {
 				classes = reasoner.getSuperClasses(possibleValues, true).getFlattened();
 				cls = asSingleton(classes, ontology);
 			}
-			property2RangeMap.put(p, cls);
+			if (cls != null) {
+				property2RangeMap.put(p, cls);
+			}
 		}
 		return cls;
 	}
@@ -146,13 +168,20 @@ public class ReasonerBasedInference implements CodeGenerationInference {
 	public OWLDatatype getRange(OWLClass owlClass, OWLDataProperty p) {
 		Map<OWLDataProperty, OWLDatatype> property2RangeMap = dataRangeMap.get(owlClass);
 		if (property2RangeMap == null) {
-			property2RangeMap = new HashMap<OWLDataProperty, OWLDatatype>();
-			dataRangeMap.put(owlClass, property2RangeMap);
+			property2RangeMap = new ConcurrentHashMap<OWLDataProperty, OWLDatatype>();
+			Map<OWLDataProperty, OWLDatatype> existing = dataRangeMap.putIfAbsent(owlClass, property2RangeMap);
+			if (existing != null) {
+				property2RangeMap = existing;
+			}
 		}
 		OWLDatatype range = property2RangeMap.get(p);
 		if (range == null) {
-            for (HandledDatatypes handled : HandledDatatypes.values()) {
-            	OWLDatatype dt = factory.getOWLDatatype(handled.getIri());
+            /*
+             * Reasoners are only required to support the OWL 2 datatype map.  The candidates are tested most 
+             * specific first so that an xsd:int range is not reported as xsd:long or xsd:integer.
+             */
+            for (IRI candidate : DatatypeRegistry.getDefault().getCandidateRanges()) {
+            	OWLDatatype dt = factory.getOWLDatatype(candidate);
                 OWLClassExpression couldHaveOtherValues = factory.getOWLObjectComplementOf(factory.getOWLDataAllValuesFrom(p, dt));
                 OWLClassExpression classCouldHaveOtherValues = factory.getOWLObjectIntersectionOf(owlClass, couldHaveOtherValues);
                 if (!reasoner.isSatisfiable(classCouldHaveOtherValues)) {
@@ -198,6 +227,73 @@ public class ReasonerBasedInference implements CodeGenerationInference {
         return results;
 	}
 
+	/*
+	 * The existence checks look for an asserted value before asking the reasoner and the counts add up 
+	 * node sizes instead of flattening the node sets.
+	 */
+	
+	@Override
+	public int countIndividuals(OWLClass owlClass) {
+		return countEntities(reasoner.getInstances(owlClass, false));
+	}
+	
+	@Override
+	public boolean hasPropertyValue(OWLNamedIndividual i, OWLObjectProperty p) {
+		for (OWLOntology imported : ontology.getImportsClosure()) {
+			for (OWLObjectPropertyAssertionAxiom axiom : imported.getObjectPropertyAssertionAxioms(i)) {
+				if (axiom.getProperty().equals(p) && !axiom.getObject().isAnonymous()) {
+					return true;
+				}
+			}
+		}
+		return !reasoner.getObjectPropertyValues(i, p).isEmpty();
+	}
+	
+	@Override
+	public boolean hasPropertyValue(OWLNamedIndividual i, OWLDataProperty p) {
+		for (OWLOntology imported : ontology.getImportsClosure()) {
+			for (OWLDataPropertyAssertionAxiom axiom : imported.getDataPropertyAssertionAxioms(i)) {
+				if (axiom.getProperty().equals(p)) {
+					return true;
+				}
+			}
+		}
+		return !reasoner.getDataPropertyValues(i, p).isEmpty();
+	}
+	
+	@Override
+	public int countPropertyValues(OWLNamedIndividual i, OWLObjectProperty p) {
+		return countEntities(reasoner.getObjectPropertyValues(i, p));
+	}
+	
+	@Override
+	public int countPropertyValues(OWLNamedIndividual i, OWLDataProperty p) {
+		return getPropertyValues(i, p).size();
+	}
+	
+	@Override
+	public OWLLiteral getPropertyValue(OWLNamedIndividual i, OWLDataProperty p) {
+		for (OWLOntology imported : ontology.getImportsClosure()) {
+			for (OWLDataPropertyAssertionAxiom axiom : imported.getDataPropertyAssertionAxioms(i)) {
+				if (axiom.getProperty().equals(p)) {
+					return axiom.getObject();
+				}
+			}
+		}
+		for (OWLLiteral value : reasoner.getDataPropertyValues(i, p)) {
+			return value;
+		}
+		return null;
+	}
+	
+	private static int countEntities(NodeSet<? extends OWLEntity> nodes) {
+		int count = 0;
+		for (Node<? extends OWLEntity> node : nodes) {
+			count += node.getSize();
+		}
+		return count;
+	}
+
 	/* *-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*
 	 * 
 	 */
@@ -216,33 +312,35 @@ public class ReasonerBasedInference implements CodeGenerationInference {
 		return result;
 	}
 
-	private void initializeDomainMap() {
-		domainMap = new HashMap<OWLClass, Set<OWLEntity>>();
+	private Map<OWLClass, Set<OWLEntity>> initializeDomainMap() {
+		Map<OWLClass, Set<OWLEntity>> domainMap = new HashMap<OWLClass, Set<OWLEntity>>();
 		for (OWLObjectProperty p : ontology.getObjectPropertiesInSignature()) {
 			OWLClassExpression mustHavePropertyValue = factory.getOWLObjectSomeValuesFrom(p, factory.getOWLThing());
-			addPropertyToDomainMap(p, mustHavePropertyValue);
+			addPropertyToDomainMap(domainMap, p, mustHavePropertyValue);
 		}
 		for (OWLDataProperty p : ontology.getDataPropertiesInSignature()) {
 			OWLClassExpression mustHavePropertyValue = factory.getOWLDataSomeValuesFrom(p, factory.getTopDatatype());
-			addPropertyToDomainMap(p, mustHavePropertyValue);
+			addPropertyToDomainMap(domainMap, p, mustHavePropertyValue);
 		}
+		this.domainMap = domainMap;
+		return domainMap;
 	}
 	
-	private void addPropertyToDomainMap(OWLEntity p, OWLClassExpression mustHavePropertyValue) {
+	private void addPropertyToDomainMap(Map<OWLClass, Set<OWLEntity>> domainMap, OWLEntity p, OWLClassExpression mustHavePropertyValue) {
 		Set<OWLClass> equivalents = reasoner.getEquivalentClasses(mustHavePropertyValue).getEntities();
 		if (!equivalents.isEmpty()) {
 			for (OWLClass domain : equivalents) {
-				addToDomainMap(domain, p);
+				addToDomainMap(domainMap, domain, p);
 			}
 		}
 		else {
 			for (OWLClass domain : reasoner.getSuperClasses(mustHavePropertyValue, true).getFlattened()) {
-				addToDomainMap(domain, p);
+				addToDomainMap(domainMap, domain, p);
 			}
 		}
 	}
 	
-	private void addToDomainMap(OWLClass domain, OWLEntity property) {
+	private static void addToDomainMap(Map<OWLClass, Set<OWLEntity>> domainMap, OWLClass domain, OWLEntity property) {
 		Set<OWLEntity> properties = domainMap.get(domain);
 		if (properties == null) {
 			properties = new TreeSet<OWLEntity>();
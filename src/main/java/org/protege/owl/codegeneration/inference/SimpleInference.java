@@ -8,7 +8,9 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.protege.owl.codegeneration.DatatypeRegistry;
 import org.protege.owl.codegeneration.names.CodeGenerationNames;
 import org.protege.owl.codegeneration.property.JavaDataPropertyDeclaration;
 import org.protege.owl.codegeneration.property.JavaObjectPropertyDeclaration;
@@ -16,9 +18,11 @@ import org.protege.owl.codegeneration.property.JavaPropertyDeclaration;
 import org.semanticweb.owlapi.model.AxiomType;
 import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLClassAssertionAxiom;
 import org.semanticweb.owlapi.model.OWLClassExpression;
 import org.semanticweb.owlapi.model.OWLDataFactory;
 import org.semanticweb.owlapi.model.OWLDataProperty;
+import org.semanticweb.owlapi.model.OWLDataPropertyAssertionAxiom;
 import org.semanticweb.owlapi.model.OWLDataPropertyDomainAxiom;
 import org.semanticweb.owlapi.model.OWLDataPropertyRangeAxiom;
 import org.semanticweb.owlapi.model.OWLDataRange;
@@ -30,20 +34,29 @@ import org.semanticweb.owlapi.model.OWLLiteral;
 import org.semanticweb.owlapi.model.OWLNamedIndividual;
 import org.semanticweb.owlapi.model.OWLObjectIntersectionOf;
 import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLObjectPropertyAssertionAxiom;
 import org.semanticweb.owlapi.model.OWLObjectPropertyDomainAxiom;
 import org.semanticweb.owlapi.model.OWLObjectPropertyRangeAxiom;
 import org.semanticweb.owlapi.model.OWLOntology;
 import org.semanticweb.owlapi.search.EntitySearcher;
 
+/**
+ * An inference that only uses the asserted axioms of the ontology.
+ * <p>
+ * The indexes of the class hierarchy, the domains and the ranges are built on first use into local maps
+ * and only then published through volatile fields, so that concurrent readers either see a complete index
+ * or build their own copy.  Apart from that the inference only reads the ontology and is as thread-safe as
+ * the ontology it reads (see {@link ConcurrentInference}).
+ */
 public class SimpleInference implements CodeGenerationInference {
 	private OWLOntology ontology;
 	private OWLDataFactory factory;
-	private Set<OWLClass> topLevelClasses;
-	private Map<OWLClass, Set<OWLClass>> inferredSubclassMap = new TreeMap<OWLClass, Set<OWLClass>>();
-	private Map<OWLClass, Set<OWLClass>> indirectSuperclassMap = new HashMap<OWLClass, Set<OWLClass>>();
-	private Map<OWLClass, Set<OWLEntity>> domainMap;
-	private Map<OWLObjectProperty, OWLClass> objectRangeMap;
-	private Map<OWLDataProperty, OWLDatatype> dataRangeMap;
+	private volatile Set<OWLClass> topLevelClasses;
+	private volatile Map<OWLClass, Set<OWLClass>> inferredSubclassMap;
+	private Map<OWLClass, Set<OWLClass>> indirectSuperclassMap = new ConcurrentHashMap<OWLClass, Set<OWLClass>>();
+	private volatile Map<OWLClass, Set<OWLEntity>> domainMap;
+	private volatile Map<OWLObjectProperty, OWLClass> objectRangeMap;
+	private volatile Map<OWLDataProperty, OWLDatatype> dataRangeMap;
 	
 	public SimpleInference(OWLOntology ontology) {
 		this.ontology = ontology;
@@ -69,8 +82,9 @@ public class SimpleInference implements CodeGenerationInference {
 	}
 	
 	public Collection<OWLClass> getSubClasses(OWLClass owlClass) {
+		Set<OWLClass> topLevelClasses = this.topLevelClasses;
 		if (topLevelClasses == null) {
-			initializeInferredSubclasses();
+			topLevelClasses = initializeInferredSubclasses();
 		}
 		if (owlClass.equals(factory.getOWLThing())) {
 			return Collections.unmodifiableCollection(topLevelClasses);
@@ -142,8 +156,9 @@ public class SimpleInference implements CodeGenerationInference {
 	}
 	
 	public Set<JavaPropertyDeclaration> getJavaPropertyDeclarations(OWLClass cls, CodeGenerationNames names) {
+		Map<OWLClass, Set<OWLEntity>> domainMap = this.domainMap;
 		if (domainMap == null) {
-			initializeDomainMap();
+			domainMap = initializeDomainMap();
 		}
 		Set<JavaPropertyDeclaration> declarations = new HashSet<JavaPropertyDeclaration>();
 		Set<OWLEntity> domains = domainMap.get(cls);
@@ -168,8 +183,9 @@ public class SimpleInference implements CodeGenerationInference {
 	
 	@Override
 	public OWLClass getRange(OWLObjectProperty p) {
+		Map<OWLObjectProperty, OWLClass> objectRangeMap = this.objectRangeMap;
 		if (objectRangeMap == null) {
-			intializeObjectRangeMap();
+			objectRangeMap = intializeObjectRangeMap();
 		}
 		return objectRangeMap.get(p);
 	}
@@ -186,8 +202,9 @@ public class SimpleInference implements CodeGenerationInference {
 	}
 
 	public OWLDatatype getRange(OWLDataProperty p) {
+		Map<OWLDataProperty, OWLDatatype> dataRangeMap = this.dataRangeMap;
 		if (dataRangeMap == null) {
-			intializeDataRangeMap();
+			dataRangeMap = intializeDataRangeMap();
 		}
 		return dataRangeMap.get(p);
 	}
@@ -206,6 +223,141 @@ public class SimpleInference implements CodeGenerationInference {
 		return individuals;
 	}
 	
+	/*
+	 * Counting assertion axioms counts each value once unless the same assertion is repeated with 
+	 * different annotations or in several imported ontologies.  In those cases the values are collected.
+	 */
+	
+	@Override
+	public int countIndividuals(OWLClass owlClass) {
+		int count = 0;
+		for (OWLClassAssertionAxiom axiom : ontology.getClassAssertionAxioms(owlClass)) {
+			if (axiom.isAnnotated()) {
+				return getIndividuals(owlClass).size();
+			}
+			if (!axiom.getIndividual().isAnonymous()) {
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	@Override
+	public boolean hasPropertyValue(OWLNamedIndividual i, OWLObjectProperty p) {
+		for (OWLOntology imported : ontology.getImportsClosure()) {
+			for (OWLObjectPropertyAssertionAxiom axiom : imported.getObjectPropertyAssertionAxioms(i)) {
+				if (axiom.getProperty().equals(p) && !axiom.getObject().isAnonymous()) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public boolean hasPropertyValue(OWLNamedIndividual i, OWLDataProperty p) {
+		for (OWLOntology imported : ontology.getImportsClosure()) {
+			for (OWLDataPropertyAssertionAxiom axiom : imported.getDataPropertyAssertionAxioms(i)) {
+				if (axiom.getProperty().equals(p)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public int countPropertyValues(OWLNamedIndividual i, OWLObjectProperty p) {
+		if (ontology.getImportsClosure().size() > 1) {
+			return getPropertyValues(i, p).size();
+		}
+		int count = 0;
+		for (OWLObjectPropertyAssertionAxiom axiom : ontology.getObjectPropertyAssertionAxioms(i)) {
+			if (axiom.getProperty().equals(p) && !axiom.getObject().isAnonymous()) {
+				if (axiom.isAnnotated()) {
+					return getPropertyValues(i, p).size();
+				}
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	@Override
+	public int countPropertyValues(OWLNamedIndividual i, OWLDataProperty p) {
+		if (ontology.getImportsClosure().size() > 1) {
+			return getPropertyValues(i, p).size();
+		}
+		int count = 0;
+		for (OWLDataPropertyAssertionAxiom axiom : ontology.getDataPropertyAssertionAxioms(i)) {
+			if (axiom.getProperty().equals(p)) {
+				if (axiom.isAnnotated()) {
+					return getPropertyValues(i, p).size();
+				}
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	@Override
+	public OWLLiteral getPropertyValue(OWLNamedIndividual i, OWLDataProperty p) {
+		for (OWLOntology imported : ontology.getImportsClosure()) {
+			for (OWLDataPropertyAssertionAxiom axiom : imported.getDataPropertyAssertionAxioms(i)) {
+				if (axiom.getProperty().equals(p)) {
+					return axiom.getObject();
+				}
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Gets the values of an object property for many subjects with one pass over the assertions of the property.
+	 * Each subject is in the result, with an empty set if it has no values.
+	 */
+	public Map<OWLNamedIndividual, Set<OWLNamedIndividual>> getPropertyValues(Collection<OWLNamedIndividual> subjects, OWLObjectProperty p) {
+		Map<OWLNamedIndividual, Set<OWLNamedIndividual>> results = new HashMap<OWLNamedIndividual, Set<OWLNamedIndividual>>();
+		for (OWLNamedIndividual subject : subjects) {
+			results.put(subject, new HashSet<OWLNamedIndividual>());
+		}
+		for (OWLOntology imported : ontology.getImportsClosure()) {
+			for (OWLAxiom axiom : imported.getReferencingAxioms(p)) {
+				if (axiom instanceof OWLObjectPropertyAssertionAxiom) {
+					OWLObjectPropertyAssertionAxiom assertion = (OWLObjectPropertyAssertionAxiom) axiom;
+					Set<OWLNamedIndividual> values = results.get(assertion.getSubject());
+					if (values != null && assertion.getProperty().equals(p) && !assertion.getObject().isAnonymous()) {
+						values.add(assertion.getObject().asOWLNamedIndividual());
+					}
+				}
+			}
+		}
+		return results;
+	}
+	
+	/**
+	 * Gets the values of a data property for many subjects with one pass over the assertions of the property.
+	 * Each subject is in the result, with an empty set if it has no values.
+	 */
+	public Map<OWLNamedIndividual, Set<OWLLiteral>> getPropertyValues(Collection<OWLNamedIndividual> subjects, OWLDataProperty p) {
+		Map<OWLNamedIndividual, Set<OWLLiteral>> results = new HashMap<OWLNamedIndividual, Set<OWLLiteral>>();
+		for (OWLNamedIndividual subject : subjects) {
+			results.put(subject, new HashSet<OWLLiteral>());
+		}
+		for (OWLOntology imported : ontology.getImportsClosure()) {
+			for (OWLAxiom axiom : imported.getReferencingAxioms(p)) {
+				if (axiom instanceof OWLDataPropertyAssertionAxiom) {
+					OWLDataPropertyAssertionAxiom assertion = (OWLDataPropertyAssertionAxiom) axiom;
+					Set<OWLLiteral> values = results.get(assertion.getSubject());
+					if (values != null && assertion.getProperty().equals(p)) {
+						values.add(assertion.getObject());
+					}
+				}
+			}
+		}
+		return results;
+	}
+	
 	public boolean canAs(OWLNamedIndividual i, OWLClass c) {
 	    Collection<OWLClass> types = getTypes(i);
 	    if (types.contains(c)) {
@@ -233,18 +385,22 @@ public class SimpleInference implements CodeGenerationInference {
 	 * 
 	 */
 	
-	private void initializeInferredSubclasses() {
-		topLevelClasses = new TreeSet<OWLClass>();
+	/*
+	 * The subclass map is published before the top level classes because readers test the latter.
+	 */
+	private Set<OWLClass> initializeInferredSubclasses() {
+		Set<OWLClass> topLevelClasses = new TreeSet<OWLClass>();
+		Map<OWLClass, Set<OWLClass>> inferredSubclassMap = new TreeMap<OWLClass, Set<OWLClass>>();
 		for (OWLClass owlClass : ontology.getClassesInSignature()) {
 			boolean foundParent = false;
 			for (OWLClassExpression parent : EntitySearcher.getSuperClasses(owlClass, ontology)) {
 				if (hasGoodDirectSuperClass(owlClass, parent)
-						|| searchForSuperclassesFromIntersection(owlClass, parent)) {
+						|| searchForSuperclassesFromIntersection(inferredSubclassMap, owlClass, parent)) {
 					foundParent = true;
 				}
 			}
 			for (OWLClassExpression parent : EntitySearcher.getEquivalentClasses(owlClass, ontology)) {
-				if (searchForSuperclassesFromIntersection(owlClass, parent)) {
+				if (searchForSuperclassesFromIntersection(inferredSubclassMap, owlClass, parent)) {
 					foundParent = true;
 				}
 			}			
@@ -252,13 +408,17 @@ public class SimpleInference implements CodeGenerationInference {
 				topLevelClasses.add(owlClass);
 			}
 		}
+		this.inferredSubclassMap = inferredSubclassMap;
+		this.topLevelClasses = topLevelClasses;
+		return topLevelClasses;
 	}
 	
 	private boolean hasGoodDirectSuperClass(OWLClass child, OWLClassExpression parent) {
 		return !parent.isAnonymous() && !parent.equals(factory.getOWLThing());
 	}
 
-	private boolean searchForSuperclassesFromIntersection(OWLClass child, OWLClassExpression parent) {
+	private boolean searchForSuperclassesFromIntersection(Map<OWLClass, Set<OWLClass>> inferredSubclassMap,
+	                                                      OWLClass child, OWLClassExpression parent) {
 		if (parent instanceof OWLObjectIntersectionOf) {
 			for (OWLClassExpression conjunct : ((OWLObjectIntersectionOf) parent).getOperands()) {
 				if (!conjunct.isAnonymous() && !conjunct.equals(factory.getOWLThing())) {
@@ -275,8 +435,8 @@ public class SimpleInference implements CodeGenerationInference {
 		return false;
 	}
 	
-	private void initializeDomainMap() {
-		domainMap = new HashMap<OWLClass, Set<OWLEntity>>();
+	private Map<OWLClass, Set<OWLEntity>> initializeDomainMap() {
+		Map<OWLClass, Set<OWLEntity>> domainMap = new HashMap<OWLClass, Set<OWLEntity>>();
 		for (OWLObjectPropertyDomainAxiom axiom : ontology.getAxioms(AxiomType.OBJECT_PROPERTY_DOMAIN)) {
 			if (!axiom.getDomain().isAnonymous() && !axiom.getProperty().isAnonymous()) {
 				OWLClass owlClass = axiom.getDomain().asOWLClass();
@@ -299,10 +459,12 @@ public class SimpleInference implements CodeGenerationInference {
 				domains.add(axiom.getProperty().asOWLDataProperty());
 			}
 		}
+		this.domainMap = domainMap;
+		return domainMap;
 	}
 	
-	private void intializeObjectRangeMap() {
-		objectRangeMap = new HashMap<OWLObjectProperty, OWLClass>();
+	private Map<OWLObjectProperty, OWLClass> intializeObjectRangeMap() {
+		Map<OWLObjectProperty, OWLClass> objectRangeMap = new HashMap<OWLObjectProperty, OWLClass>();
 		for (OWLObjectPropertyRangeAxiom axiom : ontology.getAxioms(AxiomType.OBJECT_PROPERTY_RANGE)) {
 			if (!axiom.getRange().isAnonymous() && !axiom.getProperty().isAnonymous()) {
 				OWLObjectProperty property = axiom.getProperty().asOWLObjectProperty();
@@ -311,19 +473,31 @@ public class SimpleInference implements CodeGenerationInference {
 				}
 			}
 		}
+		this.objectRangeMap = objectRangeMap;
+		return objectRangeMap;
 	}
 	
-	private void intializeDataRangeMap() {
-		dataRangeMap = new HashMap<OWLDataProperty, OWLDatatype>();
+	private Map<OWLDataProperty, OWLDatatype> intializeDataRangeMap() {
+		Map<OWLDataProperty, OWLDatatype> dataRangeMap = new HashMap<OWLDataProperty, OWLDatatype>();
 		for (OWLDataPropertyRangeAxiom axiom : ontology.getAxioms(AxiomType.DATA_PROPERTY_RANGE)) {
 			if (!axiom.getProperty().isAnonymous()) {
 				OWLDataProperty property = axiom.getProperty().asOWLDataProperty();
 				OWLDatatype dt = getContainingDatatype(axiom.getRange());
-				if (dataRangeMap.get(property) == null && dt != null) {
+				OWLDatatype previous = dataRangeMap.get(property);
+				if (dt != null && (previous == null || (!isHandled(previous) && isHandled(dt)))) {
 					dataRangeMap.put(property, dt);
 				}
 			}
 		}
+		this.dataRangeMap = dataRangeMap;
+		return dataRangeMap;
+	}
+	
+	/*
+	 * When there are several range axioms prefer a range that the generated code can convert.
+	 */
+	private boolean isHandled(OWLDatatype dt) {
+		return DatatypeRegistry.getDefault().getHandler(dt) != null;
 	}
 	
 	private OWLDatatype getContainingDatatype(OWLDataRange range) {
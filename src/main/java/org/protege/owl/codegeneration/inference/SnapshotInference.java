@@ -0,0 +1,353 @@
+package org.protege.owl.codegeneration.inference;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataProperty;
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+import org.semanticweb.owlapi.model.OWLOntologyChangeListener;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.parameters.Imports;
+
+/**
+ * An inference that answers the individual level queries (instances, types and property values) from an 
+ * immutable snapshot of another inference.  Each individual gets an integer id and its types and property 
+ * values are stored in flat arrays indexed by that id.  Reads of a current snapshot never lock and never reach 
+ * the OWL api so a snapshot inference can be shared by many reader threads.
+ * <p>
+ * Class level queries (ranges, sub- and superclasses) go to the delegate.  Each batch of changes to the 
+ * imports closure rebuilds the snapshot on the writer's thread while it holds the write lock of the 
+ * {@link ConcurrentInference} among the delegates, if there is one, and the new snapshot replaces the old one
+ * at once.  Readers therefore never wait for a rebuild and never see a snapshot taken halfway through a 
+ * change.  Writes from several threads must be serialized, for example by taking the snapshot of a concurrent
+ * factory.  A rebuild reads the whole ontology, so a snapshot suits ontologies that are read far more often 
+ * than they are changed, and changes are best made in batches.  Queries about classes that are not in 
+ * {@link CodeGenerationInference#getOwlClasses()} find no instances.
+ * <p>
+ * A snapshot inference listens to the ontology manager until it is disposed.
+ */
+public class SnapshotInference extends DelegatingInference {
+	private OWLOntologyManager manager;
+	private Lock writeLock;
+	private volatile Snapshot snapshot;
+	
+	private OWLOntologyChangeListener listener = new OWLOntologyChangeListener() {
+		@Override
+		public void ontologiesChanged(List<? extends OWLOntologyChange> changes) {
+			Set<OWLOntology> importsClosure = getOWLOntology().getImportsClosure();
+			for (OWLOntologyChange change : changes) {
+				if (importsClosure.contains(change.getOntology())) {
+					rebuild();
+					return;
+				}
+			}
+		}
+	};
+	
+	public SnapshotInference(CodeGenerationInference delegate) {
+		super(delegate);
+		manager = delegate.getOWLOntology().getOWLOntologyManager();
+		writeLock = ConcurrentInference.getWriteLock(delegate);
+		manager.addOntologyChangeListener(listener);
+		writeLock.lock();
+		try {
+			snapshot = new Snapshot(delegate);
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * Stops tracking changes to the ontology.  The last snapshot remains readable.
+	 */
+	public void dispose() {
+		manager.removeOntologyChangeListener(listener);
+	}
+	
+	@Override
+	public void flush() {
+		rebuild();
+	}
+	
+	/*
+	 * The writer that triggers a rebuild normally holds the write lock already; taking it again also covers
+	 * changes made without going through the generated code.
+	 */
+	private void rebuild() {
+		writeLock.lock();
+		try {
+			getDelegate().flush();
+			snapshot = new Snapshot(getDelegate());
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+	
+	private Snapshot getSnapshot() {
+		return snapshot;
+	}
+	
+	@Override
+	public Collection<OWLNamedIndividual> getIndividuals(OWLClass owlClass) {
+		return getSnapshot().getIndividuals(owlClass);
+	}
+	
+	@Override
+	public boolean canAs(OWLNamedIndividual i, OWLClass c) {
+		return getSnapshot().canAs(i, c);
+	}
+	
+	@Override
+	public Collection<OWLClass> getTypes(OWLNamedIndividual i) {
+		return getSnapshot().getTypes(i);
+	}
+	
+	@Override
+	public Collection<OWLNamedIndividual> getPropertyValues(OWLNamedIndividual i, OWLObjectProperty p) {
+		return getSnapshot().getPropertyValues(i, p);
+	}
+	
+	@Override
+	public Collection<OWLLiteral> getPropertyValues(OWLNamedIndividual i, OWLDataProperty p) {
+		return getSnapshot().getPropertyValues(i, p);
+	}
+	
+	@Override
+	public int countIndividuals(OWLClass owlClass) {
+		return getSnapshot().getIndividuals(owlClass).size();
+	}
+	
+	@Override
+	public boolean hasPropertyValue(OWLNamedIndividual i, OWLObjectProperty p) {
+		return !getSnapshot().getPropertyValues(i, p).isEmpty();
+	}
+	
+	@Override
+	public boolean hasPropertyValue(OWLNamedIndividual i, OWLDataProperty p) {
+		return !getSnapshot().getPropertyValues(i, p).isEmpty();
+	}
+	
+	@Override
+	public int countPropertyValues(OWLNamedIndividual i, OWLObjectProperty p) {
+		return getSnapshot().getPropertyValues(i, p).size();
+	}
+	
+	@Override
+	public int countPropertyValues(OWLNamedIndividual i, OWLDataProperty p) {
+		return getSnapshot().getPropertyValues(i, p).size();
+	}
+	
+	@Override
+	public OWLLiteral getPropertyValue(OWLNamedIndividual i, OWLDataProperty p) {
+		Collection<OWLLiteral> values = getSnapshot().getPropertyValues(i, p);
+		return values.isEmpty() ? null : values.iterator().next();
+	}
+	
+	/* *-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*-*
+	 * The snapshot.  Multi-valued data is stored in compressed rows: the values of individual id are
+	 * values[offsets[id]] to values[offsets[id + 1] - 1].
+	 */
+	
+	private static class Snapshot {
+		private Map<OWLNamedIndividual, Integer> individualIds = new HashMap<OWLNamedIndividual, Integer>();
+		private Map<OWLClass, OWLNamedIndividual[]> instances = new HashMap<OWLClass, OWLNamedIndividual[]>();
+		private Map<OWLClass, BitSet> canAs = new HashMap<OWLClass, BitSet>();
+		private Rows<OWLClass> types;
+		private Map<OWLObjectProperty, Rows<OWLNamedIndividual>> objectValues = new HashMap<OWLObjectProperty, Rows<OWLNamedIndividual>>();
+		private Map<OWLDataProperty, Rows<OWLLiteral>> dataValues = new HashMap<OWLDataProperty, Rows<OWLLiteral>>();
+		
+		public Snapshot(CodeGenerationInference inference) {
+			OWLOntology ontology = inference.getOWLOntology();
+			Set<OWLNamedIndividual> individualSet = new TreeSet<OWLNamedIndividual>(ontology.getIndividualsInSignature(Imports.INCLUDED));
+			OWLNamedIndividual[] individuals = individualSet.toArray(new OWLNamedIndividual[individualSet.size()]);
+			for (int id = 0; id < individuals.length; id++) {
+				individualIds.put(individuals[id], id);
+			}
+			types = new Rows<OWLClass>(individuals.length);
+			for (int id = 0; id < individuals.length; id++) {
+				types.addRow(id, inference.getTypes(individuals[id]));
+			}
+			types.finish(new OWLClass[0]);
+			initializeInstances(inference, individuals);
+			for (OWLObjectProperty p : ontology.getObjectPropertiesInSignature(Imports.INCLUDED)) {
+				Rows<OWLNamedIndividual> rows = new Rows<OWLNamedIndividual>(individuals.length);
+				for (int id = 0; id < individuals.length; id++) {
+					rows.addRow(id, inference.getPropertyValues(individuals[id], p));
+				}
+				if (rows.finish(new OWLNamedIndividual[0])) {
+					objectValues.put(p, rows);
+				}
+			}
+			for (OWLDataProperty p : ontology.getDataPropertiesInSignature(Imports.INCLUDED)) {
+				Rows<OWLLiteral> rows = new Rows<OWLLiteral>(individuals.length);
+				for (int id = 0; id < individuals.length; id++) {
+					rows.addRow(id, inference.getPropertyValues(individuals[id], p));
+				}
+				if (rows.finish(new OWLLiteral[0])) {
+					dataValues.put(p, rows);
+				}
+			}
+		}
+		
+		/*
+		 * An individual can be viewed as a class if it is an instance of the class or if one of its types is 
+		 * below the class.  This mirrors SimpleInference.canAs and the instance retrieval of a reasoner.
+		 */
+		private void initializeInstances(CodeGenerationInference inference, OWLNamedIndividual[] individuals) {
+			for (OWLClass owlClass : inference.getOwlClasses()) {
+				Collection<OWLNamedIndividual> members = inference.getIndividuals(owlClass);
+				BitSet bits = new BitSet(individuals.length);
+				List<OWLNamedIndividual> sortedMembers = new ArrayList<OWLNamedIndividual>(new TreeSet<OWLNamedIndividual>(members));
+				for (OWLNamedIndividual i : sortedMembers) {
+					Integer id = individualIds.get(i);
+					if (id != null) {
+						bits.set(id);
+					}
+				}
+				instances.put(owlClass, sortedMembers.toArray(new OWLNamedIndividual[sortedMembers.size()]));
+				canAs.put(owlClass, bits);
+			}
+			Map<OWLClass, Set<OWLClass>> superClassClosures = new HashMap<OWLClass, Set<OWLClass>>();
+			for (int id = 0; id < individuals.length; id++) {
+				for (OWLClass type : types.get(id)) {
+					for (OWLClass superClass : getSuperClassClosure(inference, type, superClassClosures)) {
+						BitSet bits = canAs.get(superClass);
+						if (bits != null) {
+							bits.set(id);
+						}
+					}
+				}
+			}
+		}
+		
+		private static Set<OWLClass> getSuperClassClosure(CodeGenerationInference inference, OWLClass owlClass, Map<OWLClass, Set<OWLClass>> closures) {
+			Set<OWLClass> closure = closures.get(owlClass);
+			if (closure == null) {
+				closure = new HashSet<OWLClass>();
+				List<OWLClass> toVisit = new ArrayList<OWLClass>();
+				toVisit.add(owlClass);
+				while (!toVisit.isEmpty()) {
+					OWLClass next = toVisit.remove(toVisit.size() - 1);
+					if (closure.add(next)) {
+						toVisit.addAll(inference.getSuperClasses(next));
+					}
+				}
+				closures.put(owlClass, closure);
+			}
+			return closure;
+		}
+		
+		public Collection<OWLNamedIndividual> getIndividuals(OWLClass owlClass) {
+			OWLNamedIndividual[] members = instances.get(owlClass);
+			if (members == null) {
+				return Collections.emptyList();
+			}
+			return new ArraySlice<OWLNamedIndividual>(members, 0, members.length);
+		}
+		
+		public boolean canAs(OWLNamedIndividual i, OWLClass c) {
+			Integer id = individualIds.get(i);
+			BitSet bits = canAs.get(c);
+			return id != null && bits != null && bits.get(id);
+		}
+		
+		public Collection<OWLClass> getTypes(OWLNamedIndividual i) {
+			Integer id = individualIds.get(i);
+			if (id == null) {
+				return Collections.emptyList();
+			}
+			return types.get(id);
+		}
+		
+		public Collection<OWLNamedIndividual> getPropertyValues(OWLNamedIndividual i, OWLObjectProperty p) {
+			Integer id = individualIds.get(i);
+			Rows<OWLNamedIndividual> rows = objectValues.get(p);
+			if (id == null || rows == null) {
+				return Collections.emptyList();
+			}
+			return rows.get(id);
+		}
+		
+		public Collection<OWLLiteral> getPropertyValues(OWLNamedIndividual i, OWLDataProperty p) {
+			Integer id = individualIds.get(i);
+			Rows<OWLLiteral> rows = dataValues.get(p);
+			if (id == null || rows == null) {
+				return Collections.emptyList();
+			}
+			return rows.get(id);
+		}
+	}
+	
+	private static class Rows<X> {
+		private int[] offsets;
+		private X[] values;
+		private List<X> buffer = new ArrayList<X>();
+		
+		public Rows(int size) {
+			offsets = new int[size + 1];
+		}
+		
+		public void addRow(int id, Collection<? extends X> row) {
+			offsets[id] = buffer.size();
+			buffer.addAll(row);
+		}
+		
+		/**
+		 * @return true if any row is non-empty.
+		 */
+		public boolean finish(X[] empty) {
+			offsets[offsets.length - 1] = buffer.size();
+			values = buffer.toArray(empty);
+			buffer = null;
+			return values.length > 0;
+		}
+		
+		public List<X> get(int id) {
+			return new ArraySlice<X>(values, offsets[id], offsets[id + 1]);
+		}
+	}
+	
+	private static class ArraySlice<X> extends AbstractList<X> implements RandomAccess {
+		private X[] values;
+		private int from;
+		private int to;
+		
+		public ArraySlice(X[] values, int from, int to) {
+			this.values = values;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		public X get(int index) {
+			if (index < 0 || index >= to - from) {
+				throw new IndexOutOfBoundsException("Index: " + index);
+			}
+			return values[from + index];
+		}
+		
+		@Override
+		public int size() {
+			return to - from;
+		}
+	}
+
+}
@@ -0,0 +1,271 @@
+package org.protege.owl.codegeneration.listener;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.protege.owl.codegeneration.impl.WrappedIndividualImpl;
+import org.protege.owl.codegeneration.listener.ChangeAnalyzer.ChangeSummary;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Queues the events of a {@link ChangeDispatcher} and delivers them from an executor so that slow listeners
+ * do not hold up the writers of the ontology.
+ * <p>
+ * The queue holds at most one pending event per individual.  A modification of an individual that already
+ * has a pending event is merged into it, so the events of an individual stay in order (creation before
+ * modification) and a burst of edits to one individual is delivered once.  When the queue holds
+ * <code>capacity</code> individuals the events of further individuals are dropped and counted.
+ * <p>
+ * Only one delivery runs at a time.  The reasoner is flushed and the types of the individuals are looked up 
+ * on the writer's thread when the events are queued, so the delivery thread never reads the inference while
+ * the ontology is being changed; it only wraps the individuals and calls the listeners.  A merged event 
+ * keeps the types from the latest change.  A listener that throws only loses the event it was handling; the
+ * remaining events are still delivered.
+ */
+public class AsynchronousDelivery {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsynchronousDelivery.class);
+
+    private ChangeDispatcher dispatcher;
+    private int capacity;
+    private Executor executor;
+    private Map<OWLNamedIndividual, PendingEvent> pending = new LinkedHashMap<OWLNamedIndividual, PendingEvent>();
+    private boolean draining;
+
+    private long enqueued;
+    private long merged;
+    private long dropped;
+    private long delivered;
+    private long failed;
+    private long maxLagNanos;
+
+    private Runnable drain = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    AsynchronousDelivery(ChangeDispatcher dispatcher, int capacity, Executor executor) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + capacity);
+        }
+        this.dispatcher = dispatcher;
+        this.capacity = capacity;
+        this.executor = executor;
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread per task when the platform supports virtual threads
+     * and otherwise runs the tasks on a single daemon thread.
+     */
+    public static ExecutorService createDefaultExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        }
+        catch (Exception e) {
+            return Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "Code generation listener delivery");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    synchronized void enqueue(ChangeSummary summary, 
+                              Map<OWLNamedIndividual, List<Class<? extends WrappedIndividualImpl>>> implementations) {
+        for (OWLNamedIndividual i : summary.getCreated()) {
+            add(i, true, implementations.get(i));
+        }
+        for (OWLNamedIndividual i : summary.getModified()) {
+            add(i, false, implementations.get(i));
+        }
+        if (!draining && !pending.isEmpty()) {
+            draining = true;
+            try {
+                executor.execute(drain);
+            }
+            catch (RuntimeException e) {
+                draining = false;
+                throw e;
+            }
+        }
+    }
+
+    private void add(OWLNamedIndividual i, boolean created, List<Class<? extends WrappedIndividualImpl>> types) {
+        PendingEvent event = pending.get(i);
+        if (event == null) {
+            if (pending.size() >= capacity) {
+                dropped++;
+                return;
+            }
+            event = new PendingEvent(i);
+            pending.put(i, event);
+            enqueued++;
+        }
+        else if (!created && event.modified) {
+            merged++;
+        }
+        if (created) {
+            event.created = true;
+        }
+        else {
+            event.modified = true;
+        }
+        event.implementations = types;
+    }
+
+    private void drain() {
+        while (true) {
+            List<PendingEvent> events;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    draining = false;
+                    notifyAll();
+                    return;
+                }
+                events = new ArrayList<PendingEvent>(pending.values());
+                pending.clear();
+            }
+            int failures;
+            try {
+                failures = dispatcher.deliver(events);
+            }
+            catch (RuntimeException e) {
+                LOGGER.warn("Could not deliver ontology changes", e);
+                failures = events.size();
+            }
+            long now = System.nanoTime();
+            synchronized (this) {
+                delivered += events.size() - failures;
+                failed += failures;
+                for (PendingEvent event : events) {
+                    maxLagNanos = Math.max(maxLagNanos, now - event.enqueuedAt);
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until every queued event has been delivered.
+     *
+     * @return false if the timeout expired first.
+     */
+    public synchronized boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (draining) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of individuals with events waiting for delivery.
+     */
+    public synchronized int getQueueDepth() {
+        return pending.size();
+    }
+
+    /**
+     * @return how long the oldest waiting event has been queued in milliseconds, or 0 if none is waiting.
+     */
+    public synchronized long getLagMillis() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        PendingEvent oldest = pending.values().iterator().next();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest.enqueuedAt);
+    }
+
+    /**
+     * @return the longest time between queuing and delivering an event so far, in milliseconds.
+     */
+    public synchronized long getMaxLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLagNanos);
+    }
+
+    public synchronized long getEnqueuedCount() {
+        return enqueued;
+    }
+
+    /**
+     * @return the number of modifications merged into an event that was already queued.
+     */
+    public synchronized long getMergedCount() {
+        return merged;
+    }
+
+    /**
+     * @return the number of events dropped because the queue was full.
+     */
+    public synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+    /**
+     * @return the number of events delivered to all their listeners without an exception.
+     */
+    public synchronized long getDeliveredCount() {
+        return delivered;
+    }
+
+    /**
+     * @return the number of events whose delivery ended with an exception thrown by a listener.
+     */
+    public synchronized long getFailedCount() {
+        return failed;
+    }
+
+    static class PendingEvent {
+        private OWLNamedIndividual individual;
+        private long enqueuedAt = System.nanoTime();
+        private boolean created;
+        private boolean modified;
+        private List<Class<? extends WrappedIndividualImpl>> implementations;
+
+        public PendingEvent(OWLNamedIndividual individual) {
+            this.individual = individual;
+        }
+
+        public OWLNamedIndividual getIndividual() {
+            return individual;
+        }
+
+        /**
+         * @return the implementations of the individual, looked up when the latest change was queued.
+         */
+        public List<Class<? extends WrappedIndividualImpl>> getImplementations() {
+            return implementations;
+        }
+
+        public boolean isCreated() {
+            return created;
+        }
+
+        public boolean isModified() {
+            return modified;
+        }
+    }
+
+}
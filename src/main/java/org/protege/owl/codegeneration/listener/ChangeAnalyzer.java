@@ -0,0 +1,202 @@
+package org.protege.owl.codegeneration.listener;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLClassAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+import org.semanticweb.owlapi.model.OWLPropertyAssertionAxiom;
+
+/**
+ * Finds the individuals created and modified by a batch of changes.  The individuals in the signature of the 
+ * ontology are collected when the first batch arrives and then kept up to date from the added and removed 
+ * axioms so an individual is created when an added axiom is the first to reference it and deleted when the 
+ * last axiom that references it is removed.  Listeners are called after the batch has been applied, so the 
+ * signature from before the first batch is worked out from the changes; constructing an analyzer costs 
+ * nothing until then.
+ */
+class ChangeAnalyzer {
+    private OWLOntology ontology;
+    private Set<OWLNamedIndividual> signature;
+    
+    public ChangeAnalyzer(OWLOntology ontology) {
+        this.ontology = ontology;
+    }
+
+    public ChangeSummary analyze(List<? extends OWLOntologyChange> changes) {
+        if (signature == null) {
+            signature = getSignatureBefore(changes);
+        }
+        ChangeSummary summary = new ChangeSummary();
+        for (OWLOntologyChange change : changes) {
+            if (change.isImportChange()) {
+                summary.reasonerAffected = true;
+            }
+            if (!change.isAxiomChange()) {
+                continue;
+            }
+            OWLAxiom axiom = change.getAxiom();
+            if (axiom.isLogicalAxiom()) {
+                summary.reasonerAffected = true;
+            }
+            if (change.isAddAxiom()) {
+                for (OWLNamedIndividual i : axiom.getIndividualsInSignature()) {
+                    if (!signature.contains(i)) {
+                        summary.created.add(i);
+                    }
+                }
+            }
+            if (axiom instanceof OWLPropertyAssertionAxiom 
+                    && ((OWLPropertyAssertionAxiom<?, ?>) axiom).getSubject().isNamed()) {
+                OWLPropertyAssertionAxiom<?, ?> assertion = (OWLPropertyAssertionAxiom<?, ?>) axiom;
+                OWLNamedIndividual subject = assertion.getSubject().asOWLNamedIndividual();
+                Set<OWLEntity> properties = getSet(summary.modified, subject);
+                if (!assertion.getProperty().isAnonymous()) {
+                    properties.add((OWLEntity) assertion.getProperty());
+                }
+            }
+            else if (axiom instanceof OWLClassAssertionAxiom
+                    && ((OWLClassAssertionAxiom) axiom).getIndividual().isNamed()
+                    && !((OWLClassAssertionAxiom) axiom).getClassExpression().isAnonymous()) {
+                OWLClassAssertionAxiom assertion = (OWLClassAssertionAxiom) axiom;
+                getSet(summary.retyped, assertion.getIndividual().asOWLNamedIndividual()).add(assertion.getClassExpression().asOWLClass());
+            }
+        }
+        updateSignature(changes, summary);
+        summary.retyped.keySet().removeAll(summary.created);
+        summary.retyped.keySet().removeAll(summary.deleted);
+        return summary;
+    }
+    
+    /*
+     * The current signature less the individuals referenced only by axioms that the batch added, plus the
+     * individuals referenced by axioms that the batch removed.  An axiom was present before the batch if the
+     * first change to it removes it.
+     */
+    private Set<OWLNamedIndividual> getSignatureBefore(List<? extends OWLOntologyChange> changes) {
+        Map<OWLAxiom, Boolean> presentBefore = new HashMap<OWLAxiom, Boolean>();
+        for (OWLOntologyChange change : changes) {
+            if (change.isAxiomChange() && change.getOntology().equals(ontology) 
+                    && !presentBefore.containsKey(change.getAxiom())) {
+                presentBefore.put(change.getAxiom(), !change.isAddAxiom());
+            }
+        }
+        Set<OWLNamedIndividual> before = new HashSet<OWLNamedIndividual>(ontology.getIndividualsInSignature());
+        for (Map.Entry<OWLAxiom, Boolean> entry : presentBefore.entrySet()) {
+            if (!entry.getValue()) {
+                for (OWLNamedIndividual i : entry.getKey().getIndividualsInSignature()) {
+                    if (before.contains(i) && !isReferencedBefore(i, presentBefore)) {
+                        before.remove(i);
+                    }
+                }
+            }
+        }
+        for (Map.Entry<OWLAxiom, Boolean> entry : presentBefore.entrySet()) {
+            if (entry.getValue()) {
+                before.addAll(entry.getKey().getIndividualsInSignature());
+            }
+        }
+        return before;
+    }
+    
+    private boolean isReferencedBefore(OWLNamedIndividual i, Map<OWLAxiom, Boolean> presentBefore) {
+        for (OWLAxiom axiom : ontology.getReferencingAxioms(i)) {
+            Boolean present = presentBefore.get(axiom);
+            if (present == null || present) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static <K, V> Set<V> getSet(Map<K, Set<V>> map, K key) {
+        Set<V> values = map.get(key);
+        if (values == null) {
+            values = new LinkedHashSet<V>();
+            map.put(key, values);
+        }
+        return values;
+    }
+    
+    private void updateSignature(List<? extends OWLOntologyChange> changes, ChangeSummary summary) {
+        for (OWLOntologyChange change : changes) {
+            if (!change.isAxiomChange() || !change.getOntology().equals(ontology)) {
+                continue;
+            }
+            for (OWLNamedIndividual i : change.getAxiom().getIndividualsInSignature()) {
+                if (change.isAddAxiom()) {
+                    signature.add(i);
+                }
+                else if (!ontology.containsEntityInSignature(i) && signature.remove(i)) {
+                    summary.deleted.add(i);
+                }
+            }
+        }
+    }
+    
+    public static class ChangeSummary {
+        private Set<OWLNamedIndividual> created = new LinkedHashSet<OWLNamedIndividual>();
+        private Map<OWLNamedIndividual, Set<OWLEntity>> modified = new LinkedHashMap<OWLNamedIndividual, Set<OWLEntity>>();
+        private Map<OWLNamedIndividual, Set<OWLClass>> retyped = new LinkedHashMap<OWLNamedIndividual, Set<OWLClass>>();
+        private Set<OWLNamedIndividual> deleted = new LinkedHashSet<OWLNamedIndividual>();
+        private boolean reasonerAffected;
+        
+        public Set<OWLNamedIndividual> getCreated() {
+            return created;
+        }
+        
+        /**
+         * @return the individuals with added or removed property assertions.
+         */
+        public Set<OWLNamedIndividual> getModified() {
+            return modified.keySet();
+        }
+        
+        public Set<OWLEntity> getModifiedProperties(OWLNamedIndividual i) {
+            Set<OWLEntity> properties = modified.get(i);
+            return properties == null ? Collections.<OWLEntity>emptySet() : properties;
+        }
+        
+        /**
+         * @return the individuals, other than the created and deleted ones, with added or removed class assertions.
+         */
+        public Set<OWLNamedIndividual> getRetyped() {
+            return retyped.keySet();
+        }
+        
+        public Set<OWLClass> getChangedTypes(OWLNamedIndividual i) {
+            Set<OWLClass> types = retyped.get(i);
+            return types == null ? Collections.<OWLClass>emptySet() : types;
+        }
+        
+        /**
+         * @return the individuals that are no longer referenced by any axiom of the ontology.
+         */
+        public Set<OWLNamedIndividual> getDeleted() {
+            return deleted;
+        }
+        
+        /**
+         * @return true if the batch contains logical axiom or import changes so a buffering reasoner needs a flush.
+         */
+        public boolean isReasonerAffected() {
+            return reasonerAffected;
+        }
+        
+        public boolean isEmpty() {
+            return created.isEmpty() && modified.isEmpty() && retyped.isEmpty() && deleted.isEmpty();
+        }
+    }
+
+}
@@ -0,0 +1,444 @@
+package org.protege.owl.codegeneration.listener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+import org.protege.owl.codegeneration.CodeGenerationFactory;
+import org.protege.owl.codegeneration.WrappedIndividual;
+import org.protege.owl.codegeneration.impl.ProtegeJavaMapping;
+import org.protege.owl.codegeneration.impl.WrappedIndividualImpl;
+import org.protege.owl.codegeneration.listener.ChangeAnalyzer.ChangeSummary;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+import org.semanticweb.owlapi.model.OWLOntologyChangeListener;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers the events of many {@link CodeGenerationListener}s of one factory from a single ontology change
+ * listener.  Each change batch is analyzed once, the reasoner is flushed at most once and the types of each 
+ * affected individual are looked up once.  The events are then routed to the listeners registered for the 
+ * java interfaces that the individual implements.
+ * <p>
+ * By default the events are delivered inside the change application, before the writer continues.  After
+ * {@link #setAsynchronous(int)} they are queued and delivered from an executor instead; see 
+ * {@link AsynchronousDelivery}.  Either way the reasoner is flushed and the types are looked up on the 
+ * writer's thread, while it still holds the write lock, so the executor never reads the inference.
+ * <p>
+ * The same analysis feeds the {@link IndividualChangePublisher}s returned by {@link #getPublisher(Class)}. 
+ * Their changes are delivered to subscribers from an executor.  The types of the changed individuals are
+ * looked up on the writer's thread; after {@link #setAsynchronous(int)} the batches are queued with their 
+ * types and only the wrapping and publishing move to the publisher executor, one change batch at a time.
+ * <p>
+ * Listeners added to a dispatcher must not also be registered with the ontology manager.
+ */
+public class ChangeDispatcher implements OWLOntologyChangeListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChangeDispatcher.class);
+
+    private CodeGenerationFactory factory;
+    private ProtegeJavaMapping javaMapping;
+    private OWLOntologyManager manager;
+    private ChangeAnalyzer analyzer;
+    private AsynchronousDelivery asynchronousDelivery;
+    private ExecutorService defaultDeliveryExecutor;
+    private Map<Class<? extends WrappedIndividual>, List<CodeGenerationListener<?>>> listeners 
+                    = new LinkedHashMap<Class<? extends WrappedIndividual>, List<CodeGenerationListener<?>>>();
+    private Map<Class<? extends WrappedIndividual>, IndividualChangePublisher<?>> publishers
+                    = new LinkedHashMap<Class<? extends WrappedIndividual>, IndividualChangePublisher<?>>();
+    private Executor publisherExecutor;
+    private ExecutorService defaultPublisherExecutor;
+    private Deque<Publication> unpublished = new ArrayDeque<Publication>();
+    private boolean publishing;
+    
+    private Runnable publishTask = new Runnable() {
+        @Override
+        public void run() {
+            publishQueued();
+        }
+    };
+    
+    public ChangeDispatcher(CodeGenerationFactory factory, ProtegeJavaMapping javaMapping) {
+        this.factory = factory;
+        this.javaMapping = javaMapping;
+        manager = factory.getOwlOntology().getOWLOntologyManager();
+    }
+    
+    public synchronized void addListener(CodeGenerationListener<?> listener) {
+        start();
+        List<CodeGenerationListener<?>> group = listeners.get(listener.getJavaInterface());
+        if (group == null) {
+            group = new ArrayList<CodeGenerationListener<?>>();
+            listeners.put(listener.getJavaInterface(), group);
+        }
+        group.add(listener);
+    }
+    
+    public synchronized void removeListener(CodeGenerationListener<?> listener) {
+        List<CodeGenerationListener<?>> group = listeners.get(listener.getJavaInterface());
+        if (group != null && group.remove(listener) && group.isEmpty()) {
+            listeners.remove(listener.getJavaInterface());
+            stopIfIdle();
+        }
+    }
+    
+    /**
+     * Gets the publisher of the changes to the individuals of a java interface, creating it with a buffer of 
+     * 1024 changes per subscriber if necessary.
+     */
+    public <X extends WrappedIndividual> IndividualChangePublisher<X> getPublisher(Class<? extends X> javaInterface) {
+        return getPublisher(javaInterface, 1024);
+    }
+    
+    @SuppressWarnings("unchecked")
+    public synchronized <X extends WrappedIndividual> IndividualChangePublisher<X> getPublisher(Class<? extends X> javaInterface, int bufferSize) {
+        IndividualChangePublisher<X> publisher = (IndividualChangePublisher<X>) publishers.get(javaInterface);
+        if (publisher == null) {
+            start();
+            if (publisherExecutor == null) {
+                defaultPublisherExecutor = AsynchronousDelivery.createDefaultExecutor();
+                publisherExecutor = defaultPublisherExecutor;
+            }
+            publisher = new IndividualChangePublisher<X>(javaInterface, bufferSize, publisherExecutor);
+            publishers.put(javaInterface, publisher);
+        }
+        return publisher;
+    }
+    
+    /**
+     * Sets the executor that delivers the changes of publishers created after this call.  By default a virtual
+     * thread executor is used when the platform has one and a daemon thread otherwise.
+     */
+    public synchronized void setPublisherExecutor(Executor executor) {
+        publisherExecutor = executor;
+    }
+    
+    /**
+     * Completes the subscriptions of a publisher and stops publishing its changes.
+     */
+    public synchronized void removePublisher(IndividualChangePublisher<?> publisher) {
+        if (publishers.remove(publisher.getJavaInterface()) != null) {
+            publisher.close();
+            stopIfIdle();
+        }
+    }
+    
+    /**
+     * Stops listening to the ontology manager, completes the subscriptions of all publishers and shuts down
+     * the executors that this dispatcher created.  Events that are already queued may not be delivered.
+     */
+    public synchronized void dispose() {
+        manager.removeOntologyChangeListener(this);
+        for (IndividualChangePublisher<?> publisher : publishers.values()) {
+            publisher.close();
+        }
+        publishers.clear();
+        listeners.clear();
+        asynchronousDelivery = null;
+        if (defaultDeliveryExecutor != null) {
+            defaultDeliveryExecutor.shutdown();
+            defaultDeliveryExecutor = null;
+        }
+        if (defaultPublisherExecutor != null) {
+            defaultPublisherExecutor.shutdown();
+            defaultPublisherExecutor = null;
+        }
+    }
+    
+    private void start() {
+        if (listeners.isEmpty() && publishers.isEmpty()) {
+            analyzer = new ChangeAnalyzer(factory.getOwlOntology());
+            manager.addOntologyChangeListener(this);
+        }
+    }
+    
+    private void stopIfIdle() {
+        if (listeners.isEmpty() && publishers.isEmpty()) {
+            manager.removeOntologyChangeListener(this);
+        }
+    }
+
+    /**
+     * Switches to asynchronous delivery from a virtual thread executor when the platform has one and from a 
+     * daemon thread otherwise.  The executor is created by the first call and reused by the later ones.
+     * 
+     * @param capacity the maximum number of individuals with pending events.
+     */
+    public synchronized void setAsynchronous(int capacity) {
+        if (defaultDeliveryExecutor == null) {
+            defaultDeliveryExecutor = AsynchronousDelivery.createDefaultExecutor();
+        }
+        setAsynchronous(capacity, defaultDeliveryExecutor);
+    }
+    
+    public synchronized void setAsynchronous(int capacity, Executor executor) {
+        asynchronousDelivery = new AsynchronousDelivery(this, capacity, executor);
+    }
+    
+    /**
+     * Returns to synchronous delivery.  Events that are already queued are still delivered.
+     */
+    public synchronized void setSynchronous() {
+        asynchronousDelivery = null;
+    }
+    
+    /**
+     * @return the asynchronous delivery with its metrics or null if events are delivered synchronously.
+     */
+    public synchronized AsynchronousDelivery getAsynchronousDelivery() {
+        return asynchronousDelivery;
+    }
+
+    @Override
+    public void ontologiesChanged(List<? extends OWLOntologyChange> changes) {
+        ChangeSummary summary;
+        AsynchronousDelivery delivery;
+        List<IndividualChangePublisher<?>> publisherList;
+        Executor executor;
+        synchronized (this) {
+            if (listeners.isEmpty() && publishers.isEmpty()) {
+                return;
+            }
+            summary = analyzer.analyze(changes);
+            delivery = asynchronousDelivery;
+            publisherList = new ArrayList<IndividualChangePublisher<?>>(publishers.values());
+            executor = publisherExecutor;
+        }
+        if (summary.isEmpty()) {
+            return;
+        }
+        if (summary.isReasonerAffected()) {
+            factory.flushOwlReasoner();
+        }
+        Map<OWLNamedIndividual, List<Class<? extends WrappedIndividualImpl>>> implementations 
+                    = new HashMap<OWLNamedIndividual, List<Class<? extends WrappedIndividualImpl>>>();
+        if (!publisherList.isEmpty()) {
+            if (delivery != null) {
+                for (OWLNamedIndividual i : summary.getCreated()) {
+                    getImplementations(i, implementations);
+                }
+                for (OWLNamedIndividual i : summary.getModified()) {
+                    getImplementations(i, implementations);
+                }
+                for (OWLNamedIndividual i : summary.getRetyped()) {
+                    getImplementations(i, implementations);
+                }
+                queuePublication(new Publication(summary, implementations), executor);
+            }
+            else {
+                publish(summary, implementations, publisherList);
+            }
+        }
+        if (delivery != null) {
+            for (OWLNamedIndividual i : summary.getCreated()) {
+                getImplementations(i, implementations);
+            }
+            for (OWLNamedIndividual i : summary.getModified()) {
+                getImplementations(i, implementations);
+            }
+            delivery.enqueue(summary, implementations);
+            return;
+        }
+        Map<Class<? extends WrappedIndividual>, List<CodeGenerationListener<?>>> routes = getRoutes();
+        for (OWLNamedIndividual i : summary.getCreated()) {
+            dispatch(i, getImplementations(i, implementations), routes, true);
+        }
+        for (OWLNamedIndividual i : summary.getModified()) {
+            dispatch(i, getImplementations(i, implementations), routes, false);
+        }
+    }
+    
+    /**
+     * Delivers queued events with the types looked up when they were queued.  The events of each individual 
+     * are delivered together, creation first.  An exception thrown by a listener is logged and ends the 
+     * delivery of that event only.
+     * 
+     * @return the number of events whose delivery failed.
+     */
+    int deliver(Collection<AsynchronousDelivery.PendingEvent> events) {
+        Map<Class<? extends WrappedIndividual>, List<CodeGenerationListener<?>>> routes = getRoutes();
+        int failures = 0;
+        for (AsynchronousDelivery.PendingEvent event : events) {
+            try {
+                if (event.isCreated()) {
+                    dispatch(event.getIndividual(), event.getImplementations(), routes, true);
+                }
+                if (event.isModified()) {
+                    dispatch(event.getIndividual(), event.getImplementations(), routes, false);
+                }
+            }
+            catch (RuntimeException e) {
+                LOGGER.warn("Listener failed while handling the changes to " + event.getIndividual(), e);
+                failures++;
+            }
+        }
+        return failures;
+    }
+    
+    private void queuePublication(Publication publication, Executor executor) {
+        synchronized (unpublished) {
+            unpublished.add(publication);
+            if (publishing) {
+                return;
+            }
+            publishing = true;
+        }
+        try {
+            executor.execute(publishTask);
+        }
+        catch (RuntimeException e) {
+            synchronized (unpublished) {
+                publishing = false;
+            }
+            throw e;
+        }
+    }
+    
+    /*
+     * Publishes the queued change batches in order with the types looked up when they were queued.
+     */
+    private void publishQueued() {
+        while (true) {
+            List<Publication> publications;
+            synchronized (unpublished) {
+                if (unpublished.isEmpty()) {
+                    publishing = false;
+                    return;
+                }
+                publications = new ArrayList<Publication>(unpublished);
+                unpublished.clear();
+            }
+            List<IndividualChangePublisher<?>> publisherList;
+            synchronized (this) {
+                publisherList = new ArrayList<IndividualChangePublisher<?>>(publishers.values());
+            }
+            try {
+                for (Publication publication : publications) {
+                    publish(publication.summary, publication.implementations, publisherList);
+                }
+            }
+            catch (RuntimeException e) {
+                LOGGER.warn("Could not publish ontology changes", e);
+            }
+        }
+    }
+    
+    private synchronized Map<Class<? extends WrappedIndividual>, List<CodeGenerationListener<?>>> getRoutes() {
+        Map<Class<? extends WrappedIndividual>, List<CodeGenerationListener<?>>> routes 
+                    = new LinkedHashMap<Class<? extends WrappedIndividual>, List<CodeGenerationListener<?>>>();
+        for (Entry<Class<? extends WrappedIndividual>, List<CodeGenerationListener<?>>> entry : listeners.entrySet()) {
+            routes.put(entry.getKey(), new ArrayList<CodeGenerationListener<?>>(entry.getValue()));
+        }
+        return routes;
+    }
+    
+    private void publish(ChangeSummary summary, 
+                         Map<OWLNamedIndividual, List<Class<? extends WrappedIndividualImpl>>> implementations,
+                         List<IndividualChangePublisher<?>> publisherList) {
+        Set<OWLEntity> noProperties = Collections.emptySet();
+        Set<OWLClass> noTypes = Collections.emptySet();
+        for (OWLNamedIndividual i : summary.getCreated()) {
+            for (IndividualChangePublisher<?> publisher : publisherList) {
+                publish(publisher, IndividualChange.Kind.CREATED, i, getImplementations(i, implementations), noProperties, noTypes, false);
+            }
+        }
+        for (OWLNamedIndividual i : summary.getModified()) {
+            for (IndividualChangePublisher<?> publisher : publisherList) {
+                publish(publisher, IndividualChange.Kind.MODIFIED, i, getImplementations(i, implementations), 
+                        summary.getModifiedProperties(i), noTypes, false);
+            }
+        }
+        for (OWLNamedIndividual i : summary.getRetyped()) {
+            for (IndividualChangePublisher<?> publisher : publisherList) {
+                boolean wasInstance = false;
+                for (OWLClass type : summary.getChangedTypes(i)) {
+                    Class<?> javaInterface = javaMapping.getJavaInterfaceFromOwlClass(type);
+                    wasInstance = wasInstance || (javaInterface != null && publisher.getJavaInterface().isAssignableFrom(javaInterface));
+                }
+                publish(publisher, IndividualChange.Kind.RETYPED, i, getImplementations(i, implementations), 
+                        noProperties, summary.getChangedTypes(i), wasInstance);
+            }
+        }
+        List<Class<? extends WrappedIndividualImpl>> noImplementations = Collections.emptyList();
+        for (OWLNamedIndividual i : summary.getDeleted()) {
+            for (IndividualChangePublisher<?> publisher : publisherList) {
+                publish(publisher, IndividualChange.Kind.DELETED, i, noImplementations, noProperties, noTypes, true);
+            }
+        }
+    }
+    
+    private <X extends WrappedIndividual> void publish(IndividualChangePublisher<X> publisher, 
+                                                       IndividualChange.Kind kind, 
+                                                       OWLNamedIndividual i,
+                                                       List<Class<? extends WrappedIndividualImpl>> types,
+                                                       Set<OWLEntity> properties, 
+                                                       Set<OWLClass> changedTypes,
+                                                       boolean always) {
+        X individual = javaMapping.as(i, types, publisher.getJavaInterface());
+        if (individual != null || always) {
+            publisher.publish(new IndividualChange<X>(kind, i, individual, properties, changedTypes));
+        }
+    }
+    
+    private List<Class<? extends WrappedIndividualImpl>> getImplementations(OWLNamedIndividual i, 
+                          Map<OWLNamedIndividual, List<Class<? extends WrappedIndividualImpl>>> implementations) {
+        List<Class<? extends WrappedIndividualImpl>> types = implementations.get(i);
+        if (types == null) {
+            types = javaMapping.getJavaImplementations(i);
+            implementations.put(i, types);
+        }
+        return types;
+    }
+    
+    private void dispatch(OWLNamedIndividual i, 
+                          List<Class<? extends WrappedIndividualImpl>> types,
+                          Map<Class<? extends WrappedIndividual>, List<CodeGenerationListener<?>>> routes,
+                          boolean created) {
+        if (types.isEmpty()) {
+            return;
+        }
+        for (Entry<Class<? extends WrappedIndividual>, List<CodeGenerationListener<?>>> route : routes.entrySet()) {
+            WrappedIndividual individual = javaMapping.as(i, types, route.getKey());
+            if (individual != null) {
+                fire(route.getValue(), individual, created);
+            }
+        }
+    }
+    
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private void fire(List<CodeGenerationListener<?>> group, WrappedIndividual individual, boolean created) {
+        for (CodeGenerationListener listener : group) {
+            if (created) {
+                listener.individualCreated(individual);
+            }
+            else {
+                listener.individualModified(individual);
+            }
+        }
+    }
+    
+    private static class Publication {
+        private ChangeSummary summary;
+        private Map<OWLNamedIndividual, List<Class<? extends WrappedIndividualImpl>>> implementations;
+        
+        public Publication(ChangeSummary summary, 
+                           Map<OWLNamedIndividual, List<Class<? extends WrappedIndividualImpl>>> implementations) {
+            this.summary = summary;
+            this.implementations = implementations;
+        }
+    }
+
+}
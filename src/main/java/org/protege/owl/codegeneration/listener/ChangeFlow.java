@@ -0,0 +1,33 @@
+package org.protege.owl.codegeneration.listener;
+
+/**
+ * The reactive streams interfaces used to publish individual changes.  They have the same methods and contract
+ * as the interfaces of <code>java.util.concurrent.Flow</code>, which is not available at the java version this 
+ * library is built for, so a subscriber can be adapted to or from a <code>Flow.Subscriber</code> by 
+ * forwarding each method.
+ */
+public final class ChangeFlow {
+    
+    private ChangeFlow() {
+    }
+
+    public interface Publisher<T> {
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+    
+    public interface Subscriber<T> {
+        void onSubscribe(Subscription subscription);
+        
+        void onNext(T item);
+        
+        void onError(Throwable throwable);
+        
+        void onComplete();
+    }
+    
+    public interface Subscription {
+        void request(long n);
+        
+        void cancel();
+    }
+}
@@ -0,0 +1,74 @@
+package org.protege.owl.codegeneration.listener;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.protege.owl.codegeneration.WrappedIndividual;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+
+/**
+ * A change to an individual published by an {@link IndividualChangePublisher}.
+ */
+public class IndividualChange<X extends WrappedIndividual> {
+    public enum Kind {
+        /** The individual was referenced for the first time. */
+        CREATED,
+        /** Property assertions of the individual were added or removed; see {@link IndividualChange#getProperties()}. */
+        MODIFIED,
+        /** Class assertions of the individual were added or removed; see {@link IndividualChange#getTypes()}. */
+        RETYPED,
+        /** The last axiom that referenced the individual was removed. */
+        DELETED
+    }
+    
+    private Kind kind;
+    private OWLNamedIndividual owlIndividual;
+    private X individual;
+    private Set<OWLEntity> properties;
+    private Set<OWLClass> types;
+    
+    IndividualChange(Kind kind, OWLNamedIndividual owlIndividual, X individual, Set<OWLEntity> properties, Set<OWLClass> types) {
+        this.kind = kind;
+        this.owlIndividual = owlIndividual;
+        this.individual = individual;
+        this.properties = Collections.unmodifiableSet(properties);
+        this.types = Collections.unmodifiableSet(types);
+    }
+    
+    public Kind getKind() {
+        return kind;
+    }
+    
+    public OWLNamedIndividual getOwlIndividual() {
+        return owlIndividual;
+    }
+    
+    /**
+     * @return the individual viewed as the java interface of the publisher or null if it is no longer an 
+     *         instance of that interface, as is always the case for {@link Kind#DELETED}.
+     */
+    public X getIndividual() {
+        return individual;
+    }
+    
+    /**
+     * @return the properties whose assertions changed, for {@link Kind#MODIFIED}.
+     */
+    public Set<OWLEntity> getProperties() {
+        return properties;
+    }
+    
+    /**
+     * @return the classes whose assertions changed, for {@link Kind#RETYPED}.
+     */
+    public Set<OWLClass> getTypes() {
+        return types;
+    }
+    
+    @Override
+    public String toString() {
+        return kind + " " + owlIndividual;
+    }
+}
@@ -0,0 +1,216 @@
+package org.protege.owl.codegeneration.listener;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+import org.protege.owl.codegeneration.WrappedIndividual;
+
+/**
+ * Publishes the changes to the individuals of a java interface to any number of subscribers.  The changes are
+ * found by the {@link ChangeDispatcher} of the factory, once per change batch for all publishers.
+ * <p>
+ * Each subscription has a buffer of <code>bufferSize</code> changes and receives them from the executor, no
+ * faster than it requests them.  Publishing never blocks the writer: when the buffer of a subscriber is full
+ * the buffered changes are discarded, counted as dropped, and the subscription ends with 
+ * {@link ChangeFlow.Subscriber#onError(Throwable)} and an {@link IllegalStateException}.  A subscriber that 
+ * receives it has missed changes and should re-read the individuals it follows before subscribing again.  
+ * Changes to one individual reach a subscriber in the order they were made.
+ * <p>
+ * Deleted individuals no longer have types, so {@link IndividualChange.Kind#DELETED} changes are sent to
+ * every publisher.  {@link IndividualChange.Kind#RETYPED} changes are sent when the individual is an instance
+ * of the interface or when one of the changed classes belongs to the interface, so that subscribers
+ * learn about individuals that stop being instances.
+ */
+public class IndividualChangePublisher<X extends WrappedIndividual> implements ChangeFlow.Publisher<IndividualChange<X>> {
+    private Class<? extends X> javaInterface;
+    private int bufferSize;
+    private Executor executor;
+    private List<ChangeSubscription> subscriptions = new CopyOnWriteArrayList<ChangeSubscription>();
+    private long dropped;
+
+    IndividualChangePublisher(Class<? extends X> javaInterface, int bufferSize, Executor executor) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.javaInterface = javaInterface;
+        this.bufferSize = bufferSize;
+        this.executor = executor;
+    }
+
+    public Class<? extends X> getJavaInterface() {
+        return javaInterface;
+    }
+
+    @Override
+    public void subscribe(ChangeFlow.Subscriber<? super IndividualChange<X>> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Null subscriber");
+        }
+        ChangeSubscription subscription = new ChangeSubscription(subscriber);
+        subscriptions.add(subscription);
+        subscriber.onSubscribe(subscription);
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * @return the number of changes not delivered to some subscriber because its buffer overflowed.
+     */
+    public synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+    private synchronized void dropped(int count) {
+        dropped += count;
+    }
+
+    void publish(IndividualChange<X> change) {
+        for (ChangeSubscription subscription : subscriptions) {
+            subscription.offer(change);
+        }
+    }
+
+    /**
+     * Completes every subscription after the changes already buffered have been delivered.
+     */
+    public void close() {
+        for (ChangeSubscription subscription : subscriptions) {
+            subscription.complete();
+        }
+    }
+
+    private class ChangeSubscription implements ChangeFlow.Subscription, Runnable {
+        private ChangeFlow.Subscriber<? super IndividualChange<X>> subscriber;
+        private Deque<IndividualChange<X>> buffer = new ArrayDeque<IndividualChange<X>>();
+        private long requested;
+        private boolean cancelled;
+        private boolean completed;
+        private boolean draining;
+        private Throwable error;
+
+        public ChangeSubscription(ChangeFlow.Subscriber<? super IndividualChange<X>> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                if (n <= 0) {
+                    error = new IllegalArgumentException("Non-positive request: " + n);
+                }
+                else {
+                    requested = requested + n < 0 ? Long.MAX_VALUE : requested + n;
+                }
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                cancelled = true;
+                buffer.clear();
+            }
+            subscriptions.remove(this);
+        }
+
+        public void offer(IndividualChange<X> change) {
+            synchronized (this) {
+                if (cancelled || completed || error != null) {
+                    return;
+                }
+                if (buffer.size() >= bufferSize) {
+                    dropped(buffer.size() + 1);
+                    buffer.clear();
+                    error = new IllegalStateException("More than " + bufferSize + " changes to " 
+                                                      + javaInterface.getName() + " were waiting for the subscriber");
+                }
+                else {
+                    buffer.add(change);
+                }
+            }
+            schedule();
+        }
+
+        public void complete() {
+            synchronized (this) {
+                completed = true;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            synchronized (this) {
+                if (draining || cancelled) {
+                    return;
+                }
+                if (error == null && (buffer.isEmpty() || requested == 0) && !(completed && buffer.isEmpty())) {
+                    return;
+                }
+                draining = true;
+            }
+            executor.execute(this);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                IndividualChange<X> change = null;
+                Throwable failure = null;
+                synchronized (this) {
+                    if (cancelled) {
+                        draining = false;
+                        return;
+                    }
+                    if (error != null || (buffer.isEmpty() && completed)) {
+                        failure = error;
+                        cancelled = true;
+                        draining = false;
+                    }
+                    else if (buffer.isEmpty() || requested == 0) {
+                        draining = false;
+                        return;
+                    }
+                    else {
+                        change = buffer.poll();
+                        if (requested != Long.MAX_VALUE) {
+                            requested--;
+                        }
+                    }
+                }
+                if (change == null) {
+                    subscriptions.remove(this);
+                    if (failure != null) {
+                        subscriber.onError(failure);
+                    }
+                    else {
+                        subscriber.onComplete();
+                    }
+                    return;
+                }
+                try {
+                    subscriber.onNext(change);
+                }
+                catch (RuntimeException e) {
+                    synchronized (this) {
+                        cancelled = true;
+                        draining = false;
+                        buffer.clear();
+                    }
+                    subscriptions.remove(this);
+                    subscriber.onError(e);
+                    return;
+                }
+            }
+        }
+    }
+
+}
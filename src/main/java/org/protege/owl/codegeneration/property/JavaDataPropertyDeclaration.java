@@ -1,14 +1,18 @@
 package org.protege.owl.codegeneration.property;
 
+import static org.protege.owl.codegeneration.SubstitutionVariable.CAPITALIZED_PRIMITIVE_TYPE;
+import static org.protege.owl.codegeneration.SubstitutionVariable.PRIMITIVE_TYPE;
 import static org.protege.owl.codegeneration.SubstitutionVariable.PROPERTY_RANGE;
 import static org.protege.owl.codegeneration.SubstitutionVariable.PROPERTY_RANGE_FOR_CLASS;
 
 import java.util.Map;
 
 import org.protege.owl.codegeneration.Constants;
-import org.protege.owl.codegeneration.HandledDatatypes;
+import org.protege.owl.codegeneration.DatatypeHandler;
+import org.protege.owl.codegeneration.DatatypeRegistry;
 import org.protege.owl.codegeneration.SubstitutionVariable;
 import org.protege.owl.codegeneration.inference.CodeGenerationInference;
+import org.protege.owl.codegeneration.names.NamingUtilities;
 import org.semanticweb.owlapi.model.OWLClass;
 import org.semanticweb.owlapi.model.OWLDataProperty;
 import org.semanticweb.owlapi.model.OWLDatatype;
@@ -21,7 +25,14 @@ import org.semanticweb.owlapi.model.OWLDatatype;
  *       void add${OwlProperty}(${propertyRange} new${OwlProperty});
  *       void remove${OwlProperty}(${propertyRange} old${OwlProperty});
  * </pre>
+ * If the range for the class has a primitive java type then an accessor returning the values as an array of 
+ * the primitive type (or a single primitive value for functional properties) is also generated.
+ * <p/>
  * Note that these methods do get specialized as we move to subclasses.
+ * For functional properties the getter returns the single value (or null) and add is replaced by
+ * <pre>
+ *       void set${OwlProperty}(${propertyRange} new${OwlProperty});
+ * </pre>
  * <p/>
  * @author tredmond
  *
@@ -49,6 +60,11 @@ public class JavaDataPropertyDeclaration implements JavaPropertyDeclaration {
 	public void configureSubstitutions(Map<SubstitutionVariable, String> substitutions) {
         substitutions.put(PROPERTY_RANGE_FOR_CLASS, getDataPropertyRangeForClass());
         substitutions.put(PROPERTY_RANGE, getDataPropertyRange());
+        DatatypeHandler handled = DatatypeRegistry.getDefault().getHandler(inference.getRange(owlClass, property));
+        if (handled != null && handled.isPrimitive()) {
+        	substitutions.put(PRIMITIVE_TYPE, handled.getJavaType());
+        	substitutions.put(CAPITALIZED_PRIMITIVE_TYPE, NamingUtilities.convertInitialLetterToUpperCase(handled.getJavaType()));
+        }
 	}
 	
 
@@ -81,10 +97,9 @@ public class JavaDataPropertyDeclaration implements JavaPropertyDeclaration {
 	 * Synchronize this with CodeGeneratorInference implementations.
 	 */
 	private String getOwlDataTypeAsJavaClassString(OWLDatatype owlDatatype) {
-		for (HandledDatatypes handled : HandledDatatypes.values()) {
-			if (handled.isMatch(owlDatatype)) {
-				return handled.getJavaClass();
-			}
+		DatatypeHandler handled = DatatypeRegistry.getDefault().getHandler(owlDatatype);
+		if (handled != null) {
+			return handled.getJavaClass();
 		}
 		return Constants.UNKNOWN_JAVA_DATA_TYPE;
 	}
@@ -21,6 +21,10 @@ import org.semanticweb.owlapi.model.OWLObjectProperty;
  *     void remove${OwlProperty}(${propertyRange} old${OwlProperty});
  * </pre>
  * Note that these methods do not get specialized as we move to subclasses.
+ * For functional properties the getter returns the single value (or null) and add is replaced by
+ * <pre>
+ *       void set${OwlProperty}(${propertyRange} new${OwlProperty});
+ * </pre>
  * <p/>
  * @author tredmond
  */
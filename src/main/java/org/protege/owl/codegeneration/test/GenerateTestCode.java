@@ -56,9 +56,12 @@ public class GenerateTestCode {
 		generateSimpleJavaCode("CodeGeneration002.owl", "inferred.propertyValues", "InferredPropertyValuesFactory", true, outputFolder);
 		generateSimpleJavaCode("CodeGeneration003.owl", "inferred.generate03", "InferredGenerate03Factory",true, outputFolder);
 		generateSimpleJavaCode("CodeGeneration004.owl", "inferred.generate04", "InferredGenerate04Factory",true, outputFolder);
+		generateSimpleJavaCode("CodeGeneration005.owl", "std.generate05", "Generate05Factory", false, outputFolder);
 		generateSimpleJavaCode("pizza.owl", "inferred.pizza", "MyInferredPizzaFactory", true, outputFolder);
 		generateSimpleJavaCode(GenerateTestCode.FEB_TBOX_ONTOLOGY, "inferred.febissue", "FebIssueFactory", true, outputFolder);
 		generateCustomJavaCode();
+		generateShardedJavaCode(outputFolder);
+		generateCompactJavaCode(outputFolder);
 	}
 	
 	private static File getOutputFolder() {
@@ -122,6 +125,38 @@ public class GenerateTestCode {
 				+ (System.currentTimeMillis() - startTime) + "ms).");
 	}
 
+	private static void generateShardedJavaCode(File outputFolder) throws IOException, OWLOntologyCreationException {
+		long startTime = System.currentTimeMillis();
+		OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+		OWLOntology owlOntology = manager.loadOntologyFromOntologyDocument(new File(GenerateTestCode.ONTOLOGY_ROOT, "pizza.owl"));
+		CodeGenerationOptions options = new CodeGenerationOptions();
+		options.setPackage("org.protege.owl.codegeneration.std.shardedPizza");
+		options.setFactoryClassName("ShardedPizzaFactory");
+		options.setVocabularyShards(8);
+		options.setOutputFolder(outputFolder);
+        CodeGenerationInference inference = new SimpleInference(owlOntology);
+        
+        DefaultWorker.generateCode(owlOntology, options, new IriNames(owlOntology, options), inference);
+		LOGGER.info("Generating source code for ontology with a sharded vocabulary " 
+				+ (System.currentTimeMillis() - startTime) + "ms).");
+	}
+
+	private static void generateCompactJavaCode(File outputFolder) throws IOException, OWLOntologyCreationException {
+		long startTime = System.currentTimeMillis();
+		OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+		OWLOntology owlOntology = manager.loadOntologyFromOntologyDocument(new File(GenerateTestCode.ONTOLOGY_ROOT, "CodeGeneration005.owl"));
+		CodeGenerationOptions options = new CodeGenerationOptions();
+		options.setPackage("org.protege.owl.codegeneration.std.compact05");
+		options.setFactoryClassName("Compact05Factory");
+		options.setCompact(true);
+		options.setOutputFolder(outputFolder);
+        CodeGenerationInference inference = new SimpleInference(owlOntology);
+        
+        DefaultWorker.generateCode(owlOntology, options, new IriNames(owlOntology, options), inference);
+		LOGGER.info("Generating source code for ontology with the compact profile " 
+				+ (System.currentTimeMillis() - startTime) + "ms).");
+	}
+
 	public static void addIRIMappers(OWLOntologyManager manager) {
 		manager.addIRIMapper(new SimpleIRIMapper(IRI.create("http://jamesnaish.wordpress.com/ROREKnowledgeModel.owl"), 
 				 IRI.create(new File(ONTOLOGY_ROOT, FEB_PATH + File.separator + "ROREKnowledgeModel.owl"))));
@@ -0,0 +1,44 @@
+package org.protege.owl.codegeneration;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+import org.protege.owl.codegeneration.std.generate05.Generate05Factory;
+import org.protege.owl.codegeneration.std.generate05.Person;
+import org.testng.annotations.Test;
+
+public class TestBuilders {
+
+	@Test
+	public void testCreate() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		int axiomCount = factory.getOwlOntology().getAxiomCount();
+		Person alice = factory.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		Person dave = factory.newPerson(TestUtilities.NS05 + "#dave").withHasMother(alice).withAge(7).create();
+		assertEquals(dave.getHasMother(), alice);
+		assertEquals(dave.getAge(), Integer.valueOf(7));
+		assertEquals(factory.getPerson(TestUtilities.NS05 + "#dave"), dave);
+		assertEquals(factory.getOwlOntology().getAxiomCount(), axiomCount + 3);
+	}
+
+	@Test
+	public void testFunctionalViolation() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		int axiomCount = factory.getOwlOntology().getAxiomCount();
+		try {
+			factory.newPerson(TestUtilities.NS05 + "#dave").withAge(7).withAge(8).create();
+			fail("Two values for a functional property");
+		}
+		catch (CodeGenerationRuntimeException expected) {
+			;
+		}
+		try {
+			factory.newPerson(TestUtilities.ONTOLOGY05_ALICE).withAge(7).create();
+			fail("Alice already has an age");
+		}
+		catch (CodeGenerationRuntimeException expected) {
+			;
+		}
+		assertEquals(factory.getOwlOntology().getAxiomCount(), axiomCount);
+	}
+}
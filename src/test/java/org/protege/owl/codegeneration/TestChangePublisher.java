@@ -0,0 +1,100 @@
+package org.protege.owl.codegeneration;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.protege.owl.codegeneration.inferred.pizza.CheeseyPizza;
+import org.protege.owl.codegeneration.inferred.pizza.FruitTopping;
+import org.protege.owl.codegeneration.inferred.pizza.MyInferredPizzaFactory;
+import org.protege.owl.codegeneration.inferred.pizza.Pizza;
+import org.protege.owl.codegeneration.inferred.pizza.Vocabulary;
+import org.protege.owl.codegeneration.impl.WrappedIndividualImpl;
+import org.protege.owl.codegeneration.listener.ChangeFlow;
+import org.protege.owl.codegeneration.listener.IndividualChange;
+import org.protege.owl.codegeneration.listener.IndividualChangePublisher;
+import org.testng.annotations.Test;
+
+public class TestChangePublisher {
+
+	@Test
+	public void testBackpressure() throws Exception {
+		MyInferredPizzaFactory factory = TestUtilities.openFactory(TestUtilities.PIZZA_ONTOLOGY, MyInferredPizzaFactory.class, false);
+		final List<Runnable> tasks = new ArrayList<Runnable>();
+		factory.getChangeDispatcher().setPublisherExecutor(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				tasks.add(command);
+			}
+		});
+		IndividualChangePublisher<Pizza> publisher = factory.getChangePublisher(Pizza.class);
+		RecordingSubscriber subscriber = new RecordingSubscriber();
+		publisher.subscribe(subscriber);
+
+		CheeseyPizza cp = factory.createCheeseyPizza(TestUtilities.PIZZA_NS + "#sundaySpecial");
+		FruitTopping pineapple = factory.createFruitTopping(TestUtilities.PIZZA_NS + "#pineapple");
+		cp.addHasTopping(pineapple);
+		assertTrue(tasks.isEmpty());
+
+		subscriber.subscription.request(1);
+		runAll(tasks);
+		assertEquals(subscriber.changes.size(), 1);
+		assertEquals(subscriber.changes.get(0).getKind(), IndividualChange.Kind.CREATED);
+		assertEquals(subscriber.changes.get(0).getIndividual(), cp);
+
+		subscriber.subscription.request(10);
+		runAll(tasks);
+		assertEquals(subscriber.changes.size(), 2);
+		IndividualChange<Pizza> modified = subscriber.changes.get(1);
+		assertEquals(modified.getKind(), IndividualChange.Kind.MODIFIED);
+		assertTrue(modified.getProperties().contains(Vocabulary.OBJECT_PROPERTY_HASTOPPING));
+
+		((WrappedIndividualImpl) cp).delete();
+		runAll(tasks);
+		IndividualChange<Pizza> deleted = subscriber.changes.get(subscriber.changes.size() - 1);
+		assertEquals(deleted.getKind(), IndividualChange.Kind.DELETED);
+		assertEquals(deleted.getOwlIndividual(), cp.getOwlIndividual());
+		assertNull(deleted.getIndividual());
+
+		publisher.close();
+		runAll(tasks);
+		assertTrue(subscriber.completed);
+		assertEquals(publisher.getSubscriberCount(), 0);
+	}
+
+	private static void runAll(List<Runnable> tasks) {
+		while (!tasks.isEmpty()) {
+			tasks.remove(0).run();
+		}
+	}
+
+	private static class RecordingSubscriber implements ChangeFlow.Subscriber<IndividualChange<Pizza>> {
+		private ChangeFlow.Subscription subscription;
+		private List<IndividualChange<Pizza>> changes = new ArrayList<IndividualChange<Pizza>>();
+		private boolean completed;
+
+		@Override
+		public void onSubscribe(ChangeFlow.Subscription subscription) {
+			this.subscription = subscription;
+		}
+
+		@Override
+		public void onNext(IndividualChange<Pizza> item) {
+			changes.add(item);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			throw new AssertionError(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			completed = true;
+		}
+	}
+}
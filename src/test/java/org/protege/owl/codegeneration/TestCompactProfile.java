@@ -0,0 +1,51 @@
+package org.protege.owl.codegeneration;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+
+import org.protege.owl.codegeneration.impl.CompactIndividualImpl;
+import org.protege.owl.codegeneration.std.compact05.Compact05Factory;
+import org.protege.owl.codegeneration.std.compact05.Person;
+import org.testng.annotations.Test;
+
+public class TestCompactProfile {
+
+	@Test
+	public void testAccessors() throws Exception {
+		Compact05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Compact05Factory.class, false);
+		Person alice = factory.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		Person bob = factory.getPerson(TestUtilities.ONTOLOGY05_BOB);
+		Person carol = factory.getPerson(TestUtilities.ONTOLOGY05_CAROL);
+		assertTrue(alice instanceof CompactIndividualImpl);
+
+		assertEquals(bob.getHasMother(), alice);
+		assertNull(alice.getHasMother());
+		assertEquals(alice.getAge(), Integer.valueOf(42));
+		assertEquals(alice.getAgeAsInt(0), 42);
+		assertEquals(alice.getScore().size(), 2);
+		assertEquals(alice.getScoreAsLongArray().length, 2);
+
+		bob.setHasMother(carol);
+		assertEquals(bob.getHasMother(), carol);
+		alice.addHasFriend(bob);
+		assertTrue(alice.getHasFriend().contains(bob));
+		assertEquals(alice.countHasFriend(), 1);
+		alice.removeHasFriend(bob);
+		assertFalse(alice.hasHasFriend());
+		alice.setAge(43);
+		assertEquals(alice.getAge(), Integer.valueOf(43));
+	}
+
+	@Test
+	public void testNoBuildersOrQueries() throws Exception {
+		for (Method method : Compact05Factory.class.getMethods()) {
+			assertFalse(method.getName().equals("newPerson") || method.getName().equals("queryPerson"), method.getName());
+		}
+		assertNull(Compact05Factory.class.getClassLoader().getResource("org/protege/owl/codegeneration/std/compact05/builder/PersonBuilder.class"));
+		assertNull(Compact05Factory.class.getClassLoader().getResource("org/protege/owl/codegeneration/std/compact05/query/PersonQuery.class"));
+	}
+}
@@ -0,0 +1,90 @@
+package org.protege.owl.codegeneration;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import org.protege.owl.codegeneration.inference.ConcurrentInference;
+import org.protege.owl.codegeneration.inference.LockingStrategy;
+import org.protege.owl.codegeneration.std.generate05.Generate05Factory;
+import org.protege.owl.codegeneration.std.generate05.Person;
+import org.testng.annotations.Test;
+
+public class TestConcurrentInference {
+
+	@Test
+	public void testReadersShareTheLock() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false).concurrent();
+		final LockingStrategy locking = ((ConcurrentInference) factory.getInference()).getLockingStrategy();
+		locking.readLock().lock();
+		try {
+			ExecutorService executor = Executors.newSingleThreadExecutor();
+			try {
+				assertTrue(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() {
+						Lock readLock = locking.readLock();
+						boolean locked = readLock.tryLock();
+						if (locked) {
+							readLock.unlock();
+						}
+						return locked;
+					}
+				}).get());
+				assertFalse(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() {
+						return locking.writeLock().tryLock();
+					}
+				}).get());
+			}
+			finally {
+				executor.shutdown();
+			}
+		}
+		finally {
+			locking.readLock().unlock();
+		}
+	}
+
+	@Test
+	public void testConcurrentReadsAndWrites() throws Exception {
+		final Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false).concurrent();
+		factory.cachePropertyValues(16);
+		final Person alice = factory.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<?>> results = new ArrayList<Future<?>>();
+		for (int t = 0; t < 4; t++) {
+			final int thread = t;
+			results.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() {
+					for (int i = 0; i < 25; i++) {
+						Person person = factory.createPerson(TestUtilities.NS05 + "#person" + thread + "_" + i);
+						person.setHasMother(alice);
+						person.setAge(i);
+						assertEquals(person.getHasMother(), alice);
+						assertEquals(person.getAge(), Integer.valueOf(i));
+						assertEquals(alice.getName(), "Alice");
+					}
+					return null;
+				}
+			}));
+		}
+		for (Future<?> result : results) {
+			result.get();
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		assertEquals(factory.getAllPersonInstances().size(), 103);
+	}
+}
@@ -0,0 +1,48 @@
+package org.protege.owl.codegeneration;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.protege.owl.codegeneration.std.generate05.Generate05Factory;
+import org.protege.owl.codegeneration.std.generate05.Person;
+import org.testng.annotations.Test;
+
+public class TestCounts {
+
+	@Test
+	public void testCounts() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		assertCounts(factory);
+		assertCounts(factory.snapshot());
+	}
+
+	@Test
+	public void testCountsFollowChanges() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		Person alice = factory.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		Person bob = factory.getPerson(TestUtilities.ONTOLOGY05_BOB);
+		alice.addHasFriend(bob);
+		assertTrue(alice.hasHasFriend());
+		assertEquals(alice.countHasFriend(), 1);
+		alice.removeScore(7L);
+		assertEquals(alice.countScore(), 1);
+		factory.createPerson(TestUtilities.NS05 + "#dave");
+		assertEquals(factory.countPersonInstances(), 4);
+	}
+
+	private void assertCounts(Generate05Factory factory) {
+		Person alice = factory.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		Person bob = factory.getPerson(TestUtilities.ONTOLOGY05_BOB);
+		assertEquals(factory.countPersonInstances(), 3);
+		assertEquals(alice.countScore(), 2);
+		assertTrue(alice.hasScore());
+		assertEquals(bob.countScore(), 0);
+		assertFalse(bob.hasScore());
+		assertTrue(bob.hasHasFriend());
+		assertEquals(bob.countHasFriend(), 1);
+		assertFalse(alice.hasHasFriend());
+		assertTrue(alice.hasAge());
+		assertFalse(bob.hasAge());
+	}
+}
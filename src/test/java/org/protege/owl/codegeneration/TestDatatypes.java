@@ -0,0 +1,149 @@
+package org.protege.owl.codegeneration;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.protege.owl.codegeneration.impl.CodeGenerationHelper;
+import org.protege.owl.codegeneration.std.generate05.Generate05Factory;
+import org.protege.owl.codegeneration.std.generate05.Person;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLDatatype;
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.semanticweb.owlapi.vocab.OWL2Datatype;
+import org.testng.annotations.Test;
+
+public class TestDatatypes {
+
+	@Test
+	public void testDeclarations() throws NoSuchMethodException, SecurityException {
+		assertEquals(Person.class.getMethod("getBalance").getReturnType(), BigDecimal.class);
+		assertEquals(Person.class.getMethod("getBirthday").getReturnType(), LocalDate.class);
+		assertEquals(Person.class.getMethod("getHeight").getReturnType(), Double.class);
+		assertEquals(Person.class.getMethod("getHeightAsDouble", double.class).getReturnType(), double.class);
+	}
+
+	@Test
+	public void testValues() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		Person alice = factory.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		assertEquals(alice.getBalance(), new BigDecimal("12.50"));
+		assertEquals(alice.getBirthday(), LocalDate.of(1970, 1, 2));
+		assertEquals(alice.getHeightAsDouble(0), 1.75, 0.0);
+
+		alice.setBirthday(LocalDate.of(1971, 3, 4));
+		assertEquals(alice.getBirthday(), LocalDate.of(1971, 3, 4));
+	}
+
+	@Test
+	public void testRegisteredHandlerTakesPrecedence() {
+		OWLDataFactory factory = OWLManager.getOWLDataFactory();
+		OWLDatatype gYear = factory.getOWLDatatype(IRI.create("http://www.w3.org/2001/XMLSchema#gYear"));
+		DatatypeRegistry registry = new DatatypeRegistry();
+		assertNull(registry.getHandler(gYear));
+		DatatypeHandler yearHandler = new YearHandler();
+		registry.register(yearHandler);
+		assertEquals(registry.getHandler(gYear), yearHandler);
+		assertEquals(registry.getHandlerForValue(Integer.valueOf(1999)), yearHandler);
+		assertEquals(registry.getHandlers().get(registry.getHandlers().size() - 1), yearHandler);
+		assertEquals(CodeGenerationHelper.getObjectFromLiteral(factory.getOWLLiteral("1999", gYear)), factory.getOWLLiteral("1999", gYear));
+	}
+
+	@Test
+	public void testHandlersOrderedBySpecificity() {
+		OWLDataFactory factory = OWLManager.getOWLDataFactory();
+		DatatypeRegistry registry = new DatatypeRegistry();
+		DatatypeHandler decimalHandler = new DecimalHandler();
+		registry.register(decimalHandler);
+		List<DatatypeHandler> handlers = registry.getHandlers();
+		assertTrue(handlers.indexOf(HandledDatatypes.BYTE) < handlers.indexOf(HandledDatatypes.SHORT));
+		assertTrue(handlers.indexOf(HandledDatatypes.LONG) < handlers.indexOf(HandledDatatypes.INTEGER));
+		assertTrue(handlers.indexOf(HandledDatatypes.INTEGER) < handlers.indexOf(decimalHandler));
+		assertEquals(registry.getHandler(OWL2Datatype.XSD_DECIMAL.getDatatype(factory)), decimalHandler);
+		assertEquals(registry.getHandler(OWL2Datatype.XSD_INT.getDatatype(factory)), HandledDatatypes.INTEGER);
+		assertEquals(registry.getHandlerForValue(new BigDecimal("1.5")), decimalHandler);
+
+		List<IRI> candidates = registry.getCandidateRanges();
+		assertTrue(candidates.indexOf(OWL2Datatype.XSD_INT.getIRI()) >= 0);
+		assertTrue(candidates.indexOf(OWL2Datatype.XSD_INT.getIRI()) < candidates.indexOf(OWL2Datatype.XSD_LONG.getIRI()));
+		assertTrue(candidates.indexOf(OWL2Datatype.XSD_LONG.getIRI()) < candidates.indexOf(OWL2Datatype.XSD_INTEGER.getIRI()));
+		assertTrue(candidates.indexOf(OWL2Datatype.XSD_INTEGER.getIRI()) < candidates.indexOf(OWL2Datatype.XSD_DECIMAL.getIRI()));
+	}
+
+	private static class DecimalHandler implements DatatypeHandler {
+
+		public IRI getIri() {
+			return OWL2Datatype.XSD_DECIMAL.getIRI();
+		}
+
+		public String getJavaType() {
+			return "java.math.BigDecimal";
+		}
+
+		public String getJavaClass() {
+			return "java.math.BigDecimal";
+		}
+
+		public Class<?> getRuntimeClass() {
+			return BigDecimal.class;
+		}
+
+		public boolean isPrimitive() {
+			return false;
+		}
+
+		public boolean isMatch(OWLDatatype dt) {
+			return dt.getIRI().equals(getIri());
+		}
+
+		public Object getObject(OWLLiteral literal) {
+			return new BigDecimal(literal.getLiteral());
+		}
+
+		public OWLLiteral getLiteral(OWLDataFactory factory, Object o) {
+			return HandledDatatypes.DECIMAL.getLiteral(factory, o);
+		}
+	}
+
+	private static class YearHandler implements DatatypeHandler {
+		private static final IRI G_YEAR = IRI.create("http://www.w3.org/2001/XMLSchema#gYear");
+
+		public IRI getIri() {
+			return G_YEAR;
+		}
+
+		public String getJavaType() {
+			return "Integer";
+		}
+
+		public String getJavaClass() {
+			return "Integer";
+		}
+
+		public Class<?> getRuntimeClass() {
+			return Integer.class;
+		}
+
+		public boolean isPrimitive() {
+			return false;
+		}
+
+		public boolean isMatch(OWLDatatype dt) {
+			return dt.getIRI().equals(G_YEAR);
+		}
+
+		public Object getObject(OWLLiteral literal) {
+			return Integer.valueOf(literal.getLiteral());
+		}
+
+		public OWLLiteral getLiteral(OWLDataFactory factory, Object o) {
+			return o instanceof Integer ? factory.getOWLLiteral(o.toString(), factory.getOWLDatatype(G_YEAR)) : null;
+		}
+	}
+}
@@ -7,8 +7,13 @@ import java.net.URI;
 
 import javax.xml.datatype.XMLGregorianCalendar;
 
+import org.protege.owl.codegeneration.impl.CodeGenerationHelper;
 import org.protege.owl.codegeneration.inferred.generate03.A;
 import org.protege.owl.codegeneration.inferred.generate03.B;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.semanticweb.owlapi.vocab.OWL2Datatype;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -40,4 +45,18 @@ public class TestDateAndURI {
 		Assert.assertTrue(returnType.getActualTypeArguments()[0] instanceof WildcardType);
 		Assert.assertEquals(((WildcardType) returnType.getActualTypeArguments()[0]).getUpperBounds()[0], XMLGregorianCalendar.class);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testDateTimeConversion() {
+		OWLDataFactory factory = OWLManager.getOWLDataFactory();
+		OWLLiteral literal = factory.getOWLLiteral("2013-02-14T10:15:30Z", OWL2Datatype.XSD_DATE_TIME);
+		XMLGregorianCalendar first = (XMLGregorianCalendar) CodeGenerationHelper.getObjectFromLiteral(literal);
+		first.setYear(1999);
+		XMLGregorianCalendar second = (XMLGregorianCalendar) CodeGenerationHelper.getObjectFromLiteral(literal);
+		Assert.assertEquals(second.getYear(), 2013);
+		Assert.assertEquals(CodeGenerationHelper.getLiteralFromObject(factory, second).getDatatype().getIRI(), OWL2Datatype.XSD_DATE_TIME.getIRI());
+		Assert.assertEquals(HandledDatatypes.getHandledDatatype(factory.getIntegerOWLDatatype()), HandledDatatypes.INTEGER);
+		Assert.assertEquals(HandledDatatypes.getHandledDatatypeForValue(second), HandledDatatypes.DATE_TIME);
+		Assert.assertEquals(DatatypeRegistry.getDefault().getHandler(factory.getOWLDatatype(OWL2Datatype.XSD_INT.getIRI())), HandledDatatypes.INTEGER);
+	}
+}
@@ -0,0 +1,80 @@
+package org.protege.owl.codegeneration;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import org.protege.owl.codegeneration.std.generate05.Generate05Factory;
+import org.protege.owl.codegeneration.std.generate05.Person;
+import org.protege.owl.codegeneration.std.generate05.Vocabulary;
+import org.semanticweb.owlapi.model.OWLDataPropertyAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLObjectPropertyAssertionAxiom;
+import org.testng.annotations.Test;
+
+public class TestFunctionalProperties {
+
+	@Test
+	public void testDeclarations() throws NoSuchMethodException, SecurityException {
+		assertEquals(Person.class.getMethod("getHasMother").getReturnType(), Person.class);
+		assertEquals(Person.class.getMethod("getName").getReturnType(), String.class);
+		assertEquals(Person.class.getMethod("getAge").getReturnType(), Integer.class);
+		TestUtilities.assertMethodNotFound(Person.class, "addHasMother", Person.class);
+		TestUtilities.assertReturnsCollectionOf(Person.class.getMethod("getHasFriend"), Person.class);
+	}
+
+	@Test
+	public void testGet() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		Person alice = factory.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		Person bob = factory.getPerson(TestUtilities.ONTOLOGY05_BOB);
+		assertEquals(bob.getHasMother(), alice);
+		assertTrue(bob.hasHasMother());
+		assertNull(alice.getHasMother());
+		assertFalse(alice.hasHasMother());
+		assertEquals(alice.getName(), "Alice");
+		assertEquals(alice.getAge(), Integer.valueOf(42));
+		assertNull(bob.getAge());
+		assertFalse(bob.hasAge());
+	}
+
+	@Test
+	public void testSetReplaces() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		Person alice = factory.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		Person bob = factory.getPerson(TestUtilities.ONTOLOGY05_BOB);
+		Person carol = factory.getPerson(TestUtilities.ONTOLOGY05_CAROL);
+
+		alice.setAge(43);
+		assertEquals(alice.getAge(), Integer.valueOf(43));
+		assertEquals(countAgeAssertions(alice), 1);
+
+		bob.setHasMother(carol);
+		assertEquals(bob.getHasMother(), carol);
+		assertEquals(countMotherAssertions(bob), 1);
+
+		bob.setHasMother(null);
+		assertNull(bob.getHasMother());
+		assertEquals(countMotherAssertions(bob), 0);
+	}
+
+	private static int countAgeAssertions(Person p) {
+		int count = 0;
+		for (OWLDataPropertyAssertionAxiom axiom : p.getOwlOntology().getDataPropertyAssertionAxioms(p.getOwlIndividual())) {
+			if (axiom.getProperty().equals(Vocabulary.DATA_PROPERTY_AGE)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static int countMotherAssertions(Person p) {
+		int count = 0;
+		for (OWLObjectPropertyAssertionAxiom axiom : p.getOwlOntology().getObjectPropertyAssertionAxioms(p.getOwlIndividual())) {
+			if (axiom.getProperty().equals(Vocabulary.OBJECT_PROPERTY_HASMOTHER)) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
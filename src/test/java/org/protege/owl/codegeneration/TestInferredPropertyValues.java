@@ -38,6 +38,18 @@ public class TestInferredPropertyValues {
         Assert.assertTrue(j.getQ().contains(new Integer(9)));
     }
     
+    @Test
+    public void testInferredCounts() throws SecurityException, OWLOntologyCreationException, IllegalArgumentException, NoSuchMethodException, InstantiationException, IllegalAccessException, ClassNotFoundException, InvocationTargetException {
+        InferredPropertyValuesFactory factory = TestUtilities.openFactory(TestUtilities.PROPERTY_VALUES_ONTOLOGY, InferredPropertyValuesFactory.class, true);
+        A i = factory.getA(TestUtilities.PROPERTY_VALUES_NS + "i");
+        B j = factory.getB(TestUtilities.PROPERTY_VALUES_NS + "j");
+        Assert.assertTrue(i.hasP());
+        Assert.assertEquals(i.getP().size(), i.countP());
+        Assert.assertTrue(j.hasQ());
+        Assert.assertEquals(j.getQ().size(), j.countQ());
+        Assert.assertEquals(factory.getAllBInstances().size(), factory.countBInstances());
+    }
+    
     @Test
     public void testAssertedPropertyValues() throws SecurityException, OWLOntologyCreationException, IllegalArgumentException, NoSuchMethodException, InstantiationException, IllegalAccessException, ClassNotFoundException, InvocationTargetException {
         InferredPropertyValuesFactory factory = TestUtilities.openFactory(TestUtilities.PROPERTY_VALUES_ONTOLOGY, InferredPropertyValuesFactory.class, false);
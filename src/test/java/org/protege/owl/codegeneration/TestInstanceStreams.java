@@ -0,0 +1,61 @@
+package org.protege.owl.codegeneration;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.protege.owl.codegeneration.std.generate05.Generate05Factory;
+import org.protege.owl.codegeneration.std.generate05.Person;
+import org.testng.annotations.Test;
+
+public class TestInstanceStreams {
+
+	@Test
+	public void testStream() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		List<String> names = factory.streamPersonInstances().map(p -> p.getOwlIndividual().getIRI().toString()).collect(Collectors.toList());
+		assertEquals(names.size(), 3);
+		assertEquals(names.get(0), TestUtilities.ONTOLOGY05_ALICE);
+		assertEquals(names.get(1), TestUtilities.ONTOLOGY05_BOB);
+		assertEquals(names.get(2), TestUtilities.ONTOLOGY05_CAROL);
+		assertEquals(factory.streamPersonInstances().parallel().filter(p -> p.hasHasMother()).count(), 2);
+	}
+
+	@Test
+	public void testCreateInstances() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		String dave = TestUtilities.NS05 + "#dave";
+		String erin = TestUtilities.NS05 + "#erin";
+		List<? extends Person> created = factory.createPersonInstances(Arrays.asList(dave, erin, dave));
+		assertEquals(created.size(), 2);
+		assertEquals(created.get(0).getOwlIndividual().getIRI().toString(), dave);
+		assertEquals(factory.countPersonInstances(), 5);
+		TestUtilities.assertMethodNotFound(Generate05Factory.class, "createPersons", Collection.class);
+	}
+
+	@Test
+	public void testPages() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		Person bob = factory.getPerson(TestUtilities.ONTOLOGY05_BOB);
+		List<? extends Person> page = factory.getPersonInstances(1, 1);
+		assertEquals(page.size(), 1);
+		assertEquals(page.get(0), bob);
+		assertEquals(factory.getPersonInstances(2, 5).size(), 1);
+		assertTrue(factory.getPersonInstances(3, 5).isEmpty());
+		assertTrue(factory.getPersonInstances(0, 0).isEmpty());
+	}
+
+	@Test
+	public void testPagesFollowChanges() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		assertTrue(factory.getPersonInstances(3, 5).isEmpty());
+		Person dave = factory.createPerson(TestUtilities.NS05 + "#dave");
+		assertEquals(factory.getPersonInstances(3, 5), Arrays.asList(dave));
+		factory.delete(Arrays.asList(dave));
+		assertTrue(factory.getPersonInstances(3, 5).isEmpty());
+	}
+}
@@ -0,0 +1,54 @@
+package org.protege.owl.codegeneration;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+
+import org.protege.owl.codegeneration.std.generate05.Generate05Factory;
+import org.protege.owl.codegeneration.std.generate05.Person;
+import org.testng.annotations.Test;
+
+public class TestInverseAccessors {
+
+	@Test
+	public void testInverse() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		Person alice = factory.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		Person bob = factory.getPerson(TestUtilities.ONTOLOGY05_BOB);
+		Person carol = factory.getPerson(TestUtilities.ONTOLOGY05_CAROL);
+		Collection<? extends Person> children = factory.getPersonInstancesWithHasMother(alice);
+		assertEquals(children.size(), 2);
+		assertTrue(children.contains(bob));
+		assertTrue(children.contains(carol));
+		assertTrue(factory.getPersonInstancesWithHasMother(bob).isEmpty());
+	}
+
+	@Test
+	public void testAccessorNames() {
+		boolean found = false;
+		for (Method m : Generate05Factory.class.getMethods()) {
+			found = found || m.getName().equals("getPersonInstancesWithHasMother");
+			assertFalse(m.getName().startsWith("getPersonsWith"), m.getName());
+		}
+		assertTrue(found);
+	}
+
+	@Test
+	public void testIndexFollowsChanges() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		Person alice = factory.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		Person bob = factory.getPerson(TestUtilities.ONTOLOGY05_BOB);
+		Person carol = factory.getPerson(TestUtilities.ONTOLOGY05_CAROL);
+		assertEquals(factory.getPersonInstancesWithHasMother(alice).size(), 2);
+
+		carol.setHasMother(null);
+		assertEquals(factory.getPersonInstancesWithHasMother(alice).size(), 1);
+		bob.addHasFriend(carol);
+		assertTrue(factory.getPersonInstancesWithHasFriend(carol).contains(bob));
+		bob.removeHasFriend(carol);
+		assertTrue(factory.getPersonInstancesWithHasFriend(carol).isEmpty());
+	}
+}
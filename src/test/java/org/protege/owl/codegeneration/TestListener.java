@@ -1,11 +1,19 @@
 package org.protege.owl.codegeneration;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import org.protege.owl.codegeneration.inferred.pizza.CheeseyPizza;
+import org.protege.owl.codegeneration.inferred.pizza.FruitTopping;
 import org.protege.owl.codegeneration.inferred.pizza.MyInferredPizzaFactory;
 import org.protege.owl.codegeneration.inferred.pizza.Pizza;
+import org.protege.owl.codegeneration.listener.AsynchronousDelivery;
+import org.protege.owl.codegeneration.listener.ChangeDispatcher;
 import org.protege.owl.codegeneration.listener.CodeGenerationListener;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -25,6 +33,121 @@ public class TestListener {
         
     }
     
+    @Test
+    public void testIncrementalSignature() throws Exception {
+        MyInferredPizzaFactory factory = TestUtilities.openFactory(TestUtilities.PIZZA_ONTOLOGY, MyInferredPizzaFactory.class, false);
+        TestCodeGenerationListener listener = new TestCodeGenerationListener(factory);
+        factory.getOwlOntology().getOWLOntologyManager().addOntologyChangeListener(listener);
+        
+        CheeseyPizza first = factory.createCheeseyPizza(TestUtilities.PIZZA_NS + "#first");
+        CheeseyPizza second = factory.createCheeseyPizza(TestUtilities.PIZZA_NS + "#second");
+        Assert.assertEquals(listener.getCreated().size(), 2);
+        listener.clear();
+        
+        first.assertOwlType(org.protege.owl.codegeneration.inferred.pizza.Vocabulary.CLASS_INTERESTINGPIZZA);
+        Assert.assertTrue(listener.getCreated().isEmpty());
+        
+        FruitTopping pineapple = factory.createFruitTopping(TestUtilities.PIZZA_NS + "#pineapple");
+        second.addHasTopping(pineapple);
+        Assert.assertTrue(listener.getCreated().isEmpty());
+        Assert.assertEquals(listener.getModified().size(), 1);
+        Assert.assertTrue(listener.getModified().contains(second));
+    }
+    
+    @Test
+    public void testDispatcher() throws Exception {
+        MyInferredPizzaFactory factory = TestUtilities.openFactory(TestUtilities.PIZZA_ONTOLOGY, MyInferredPizzaFactory.class, false);
+        TestCodeGenerationListener pizzaListener = new TestCodeGenerationListener(factory);
+        TestCodeGenerationListener otherPizzaListener = new TestCodeGenerationListener(factory);
+        ToppingListener toppingListener = new ToppingListener(factory);
+        factory.getChangeDispatcher().addListener(pizzaListener);
+        factory.getChangeDispatcher().addListener(otherPizzaListener);
+        factory.getChangeDispatcher().addListener(toppingListener);
+        
+        CheeseyPizza cp = factory.createCheeseyPizza(TestUtilities.PIZZA_NS + "#sundaySpecial");
+        FruitTopping pineapple = factory.createFruitTopping(TestUtilities.PIZZA_NS + "#pineapple");
+        Assert.assertEquals(pizzaListener.getCreated().size(), 1);
+        Assert.assertTrue(pizzaListener.getCreated().contains(cp));
+        Assert.assertEquals(otherPizzaListener.getCreated().size(), 1);
+        Assert.assertEquals(toppingListener.getCreated(), Collections.singletonList(pineapple));
+        
+        factory.getChangeDispatcher().removeListener(otherPizzaListener);
+        cp.addHasTopping(pineapple);
+        Assert.assertTrue(pizzaListener.getModified().contains(cp));
+        Assert.assertTrue(otherPizzaListener.getModified().isEmpty());
+    }
+    
+    @Test
+    public void testDisposeStopsDispatcher() throws Exception {
+        MyInferredPizzaFactory factory = TestUtilities.openFactory(TestUtilities.PIZZA_ONTOLOGY, MyInferredPizzaFactory.class, false);
+        TestCodeGenerationListener listener = new TestCodeGenerationListener(factory);
+        factory.getChangeDispatcher().addListener(listener);
+        factory.getChangeDispatcher().setAsynchronous(10);
+        factory.dispose();
+        
+        MyInferredPizzaFactory other = new MyInferredPizzaFactory(factory.getOwlOntology());
+        other.createCheeseyPizza(TestUtilities.PIZZA_NS + "#sundaySpecial");
+        Assert.assertNull(factory.getChangeDispatcher().getAsynchronousDelivery());
+        Assert.assertTrue(listener.getCreated().isEmpty());
+    }
+    
+    @Test
+    public void testAsynchronousDelivery() throws Exception {
+        MyInferredPizzaFactory factory = TestUtilities.openFactory(TestUtilities.PIZZA_ONTOLOGY, MyInferredPizzaFactory.class, false);
+        TestCodeGenerationListener listener = new TestCodeGenerationListener(factory);
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        ChangeDispatcher dispatcher = factory.getChangeDispatcher();
+        dispatcher.addListener(listener);
+        dispatcher.setAsynchronous(3, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+        AsynchronousDelivery delivery = dispatcher.getAsynchronousDelivery();
+        
+        CheeseyPizza cp = factory.createCheeseyPizza(TestUtilities.PIZZA_NS + "#sundaySpecial");
+        FruitTopping pineapple = factory.createFruitTopping(TestUtilities.PIZZA_NS + "#pineapple");
+        FruitTopping peach = factory.createFruitTopping(TestUtilities.PIZZA_NS + "#peach");
+        cp.addHasTopping(pineapple);
+        cp.addHasTopping(peach);
+        factory.createCheeseyPizza(TestUtilities.PIZZA_NS + "#mondaySpecial");
+        Assert.assertTrue(listener.getCreated().isEmpty());
+        Assert.assertEquals(delivery.getQueueDepth(), 3);
+        Assert.assertEquals(delivery.getMergedCount(), 1);
+        Assert.assertEquals(delivery.getDroppedCount(), 1);
+        Assert.assertEquals(tasks.size(), 1);
+        
+        tasks.get(0).run();
+        Assert.assertEquals(delivery.getQueueDepth(), 0);
+        Assert.assertEquals(delivery.getDeliveredCount(), 3);
+        Assert.assertEquals(listener.getCreated().size(), 1);
+        Assert.assertTrue(listener.getCreated().contains(cp));
+        Assert.assertEquals(listener.getModified().size(), 1);
+        Assert.assertTrue(delivery.awaitIdle(1, TimeUnit.SECONDS));
+    }
+    
+    private static class ToppingListener extends CodeGenerationListener<FruitTopping> {
+        private List<FruitTopping> created = new ArrayList<FruitTopping>();
+        
+        public ToppingListener(MyInferredPizzaFactory factory) {
+            super(factory, FruitTopping.class);
+        }
+
+        @Override
+        public void individualCreated(FruitTopping individual) {
+            created.add(individual);
+        }
+
+        @Override
+        public void individualModified(FruitTopping individual) {
+        }
+        
+        public List<FruitTopping> getCreated() {
+            return created;
+        }
+    }
+    
     private static class TestCodeGenerationListener extends CodeGenerationListener<Pizza> {
         
         private Set<Pizza> created = new TreeSet<Pizza>();
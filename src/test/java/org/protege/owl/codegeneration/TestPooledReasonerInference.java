@@ -0,0 +1,78 @@
+package org.protege.owl.codegeneration;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.protege.owl.codegeneration.inference.PooledReasonerInference;
+import org.protege.owl.codegeneration.inferred.propertyValues.A;
+import org.protege.owl.codegeneration.inferred.propertyValues.B;
+import org.protege.owl.codegeneration.inferred.propertyValues.InferredPropertyValuesFactory;
+import org.protege.owl.codegeneration.test.GenerateTestCode;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.AddAxiom;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.reasoner.OWLReasonerFactory;
+import org.testng.annotations.Test;
+
+public class TestPooledReasonerInference {
+
+	private PooledReasonerInference openPool(int size) throws Exception {
+		OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+		GenerateTestCode.addIRIMappers(manager);
+		OWLOntology ontology = manager.loadOntologyFromOntologyDocument(new File("src/test/resources/" + TestUtilities.PROPERTY_VALUES_ONTOLOGY));
+		OWLReasonerFactory rFactory = (OWLReasonerFactory) Class.forName("org.semanticweb.HermiT.Reasoner$ReasonerFactory").newInstance();
+		return new PooledReasonerInference(ontology, rFactory, size);
+	}
+
+	@Test
+	public void testConcurrentReads() throws Exception {
+		PooledReasonerInference pool = openPool(2);
+		final InferredPropertyValuesFactory factory = new InferredPropertyValuesFactory(pool.getOWLOntology(), pool).concurrent();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for (int t = 0; t < 8; t++) {
+				results.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() {
+						A i = factory.getA(TestUtilities.PROPERTY_VALUES_NS + "i");
+						B j = factory.getB(TestUtilities.PROPERTY_VALUES_NS + "j");
+						return i.getP().contains(j) && j.getQ().contains(Integer.valueOf(9));
+					}
+				}));
+			}
+			for (Future<Boolean> result : results) {
+				assertTrue(result.get());
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+		assertTrue(pool.getCreatedCount() <= 2);
+		assertEquals(pool.getIdleCount(), pool.getCreatedCount());
+		pool.dispose();
+	}
+
+	@Test
+	public void testFlushedOnChange() throws Exception {
+		PooledReasonerInference pool = openPool(2);
+		InferredPropertyValuesFactory factory = new InferredPropertyValuesFactory(pool.getOWLOntology(), pool);
+		A i = factory.getA(TestUtilities.PROPERTY_VALUES_NS + "i");
+		assertFalse(i.getP().contains(i));
+		OWLOntologyManager manager = factory.getOwlOntology().getOWLOntologyManager();
+		manager.applyChanges(Collections.singletonList(new AddAxiom(factory.getOwlOntology(), TestInferredPropertyValues.A_HAS_I_AXIOM)));
+		assertTrue(i.getP().contains(i));
+		pool.dispose();
+	}
+}
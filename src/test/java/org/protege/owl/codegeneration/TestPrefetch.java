@@ -0,0 +1,48 @@
+package org.protege.owl.codegeneration;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Collection;
+
+import org.protege.owl.codegeneration.inference.CachingInference;
+import org.protege.owl.codegeneration.std.generate05.Generate05Factory;
+import org.protege.owl.codegeneration.std.generate05.Person;
+import org.protege.owl.codegeneration.std.generate05.Vocabulary;
+import org.testng.annotations.Test;
+
+public class TestPrefetch {
+
+	@Test
+	public void testPrefetch() throws Exception {
+		Generate05Factory session = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false).session();
+		assertTrue(session.getInference() instanceof CachingInference);
+		Collection<? extends Person> persons = session.getAllPersonInstances();
+		session.prefetch(persons, Vocabulary.OBJECT_PROPERTY_HASMOTHER, Vocabulary.DATA_PROPERTY_NAME);
+		Person alice = session.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		Person bob = session.getPerson(TestUtilities.ONTOLOGY05_BOB);
+		Person carol = session.getPerson(TestUtilities.ONTOLOGY05_CAROL);
+		assertEquals(bob.getHasMother(), alice);
+		assertEquals(carol.getHasMother(), alice);
+		assertNull(alice.getHasMother());
+		assertEquals(alice.getName(), "Alice");
+		assertNull(carol.getName());
+		assertTrue(bob.hasHasMother());
+	}
+
+	@Test
+	public void testWritesInvalidate() throws Exception {
+		Generate05Factory session = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false).session();
+		session.prefetch(session.getAllPersonInstances(), Vocabulary.OBJECT_PROPERTY_HASMOTHER, Vocabulary.DATA_PROPERTY_AGE);
+		Person alice = session.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		Person carol = session.getPerson(TestUtilities.ONTOLOGY05_CAROL);
+		assertEquals(alice.getAge(), Integer.valueOf(42));
+
+		alice.setAge(43);
+		assertEquals(alice.getAge(), Integer.valueOf(43));
+		carol.setHasMother(null);
+		assertNull(carol.getHasMother());
+		assertEquals(session.getPerson(TestUtilities.ONTOLOGY05_BOB).getHasMother(), alice);
+	}
+}
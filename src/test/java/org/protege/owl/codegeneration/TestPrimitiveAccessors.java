@@ -0,0 +1,60 @@
+package org.protege.owl.codegeneration;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.protege.owl.codegeneration.inferred.testSimple.B2;
+import org.protege.owl.codegeneration.inferred.testSimple.MyInferredFactory;
+import org.protege.owl.codegeneration.std.generate05.Generate05Factory;
+import org.protege.owl.codegeneration.std.generate05.Person;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.vocab.OWL2Datatype;
+import org.testng.annotations.Test;
+
+public class TestPrimitiveAccessors {
+
+	@Test
+	public void testDeclarations() throws NoSuchMethodException, SecurityException {
+		assertEquals(Person.class.getMethod("getAgeAsInt", int.class).getReturnType(), int.class);
+		assertEquals(Person.class.getMethod("getScoreAsLongArray").getReturnType(), long[].class);
+		TestUtilities.assertMethodNotFound(Person.class, "getNameAsStringArray");
+		assertEquals(B2.class.getMethod("getIriQAsIntArray").getReturnType(), int[].class);
+	}
+
+	@Test
+	public void testFunctionalValue() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		Person alice = factory.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		Person bob = factory.getPerson(TestUtilities.ONTOLOGY05_BOB);
+		assertEquals(alice.getAgeAsInt(-1), 42);
+		assertEquals(bob.getAgeAsInt(-1), -1);
+	}
+
+	@Test(expectedExceptions = CodeGenerationRuntimeException.class)
+	public void testOutOfRange() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		Person dave = factory.createPerson(TestUtilities.NS05 + "#dave");
+		OWLOntology ontology = factory.getOwlOntology();
+		OWLDataFactory df = ontology.getOWLOntologyManager().getOWLDataFactory();
+		ontology.getOWLOntologyManager().addAxiom(ontology, df.getOWLDataPropertyAssertionAxiom(
+				df.getOWLDataProperty(IRI.create(TestUtilities.NS05 + "#age")), dave.getOwlIndividual(), 
+				df.getOWLLiteral("3000000000", OWL2Datatype.XSD_INTEGER)));
+		dave.getAgeAsInt(-1);
+	}
+
+	@Test
+	public void testValueArrays() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		Person alice = factory.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		long[] scores = alice.getScoreAsLongArray();
+		Arrays.sort(scores);
+		assertEquals(scores, new long[] { 7, 11 });
+
+		MyInferredFactory inferredFactory = TestUtilities.openFactory(TestUtilities.ONTOLOGY01, MyInferredFactory.class, true);
+		B2 y2 = inferredFactory.getB2(TestUtilities.NS01 + "#y2");
+		assertEquals(y2.getIriQAsIntArray(), new int[] { 8 });
+	}
+}
@@ -0,0 +1,96 @@
+package org.protege.owl.codegeneration;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.protege.owl.codegeneration.impl.PropertyValueCache;
+import org.protege.owl.codegeneration.std.generate05.Generate05Factory;
+import org.protege.owl.codegeneration.std.generate05.Person;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLDataProperty;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.vocab.OWL2Datatype;
+import org.testng.annotations.Test;
+
+public class TestPropertyValueCache {
+
+	@Test
+	public void testHitsAndEvictions() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		PropertyValueCache cache = factory.cachePropertyValues(2);
+		Person alice = factory.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		Person bob = factory.getPerson(TestUtilities.ONTOLOGY05_BOB);
+		assertEquals(alice.getName(), "Alice");
+		assertEquals(alice.getName(), "Alice");
+		assertEquals(cache.getMissCount(), 1);
+		assertEquals(cache.getHitCount(), 1);
+		assertEquals(cache.getHitRate(), 0.5);
+		assertEquals(alice.getScore().size(), 2);
+		assertEquals(bob.getHasMother(), alice);
+		assertEquals(cache.size(), 2);
+		assertEquals(cache.getEvictionCount(), 1);
+		assertTrue(bob.hasHasMother());
+		assertEquals(cache.getMissCount(), 3);
+	}
+
+	@Test
+	public void testInvalidation() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		PropertyValueCache cache = factory.cachePropertyValues(100);
+		Person alice = factory.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		Person bob = factory.getPerson(TestUtilities.ONTOLOGY05_BOB);
+		assertEquals(alice.getAge(), Integer.valueOf(42));
+		assertEquals(alice.getName(), "Alice");
+		assertEquals(bob.getHasMother(), alice);
+
+		alice.setAge(43);
+		assertEquals(cache.getInvalidationCount(), 1);
+		assertEquals(alice.getAge(), Integer.valueOf(43));
+		assertEquals(alice.getName(), "Alice");
+		bob.setHasMother(null);
+		assertNull(bob.getHasMother());
+		assertEquals(cache.getInvalidationCount(), 2);
+
+		assertNull(factory.cachePropertyValues(0));
+		assertEquals(cache.size(), 0);
+	}
+
+	@Test
+	public void testCalendarsAreCopied() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		PropertyValueCache cache = factory.cachePropertyValues(100);
+		OWLOntology ontology = factory.getOwlOntology();
+		OWLDataFactory df = ontology.getOWLOntologyManager().getOWLDataFactory();
+		OWLDataProperty born = df.getOWLDataProperty(IRI.create(TestUtilities.NS05 + "#born"));
+		Person alice = factory.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		ontology.getOWLOntologyManager().addAxiom(ontology, df.getOWLDataPropertyAssertionAxiom(born, alice.getOwlIndividual(), 
+				df.getOWLLiteral("1970-01-01T00:00:00Z", OWL2Datatype.XSD_DATE_TIME)));
+
+		((XMLGregorianCalendar) cache.getObjects(factory.getInference(), alice.getOwlIndividual(), born).get(0)).setYear(1999);
+		XMLGregorianCalendar second = (XMLGregorianCalendar) cache.getObjects(factory.getInference(), alice.getOwlIndividual(), born).get(0);
+		assertEquals(second.getYear(), 1970);
+		assertEquals(cache.getHitCount(), 1);
+	}
+
+	@Test
+	public void testDisposeDetaches() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		PropertyValueCache cache = factory.cachePropertyValues(100);
+		OWLOntologyManager manager = factory.getOwlOntology().getOWLOntologyManager();
+		Person alice = factory.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		assertEquals(alice.getAge(), Integer.valueOf(42));
+		factory.dispose();
+		assertNull(PropertyValueCache.getCache(factory.getInference()));
+
+		/* a cache still registered with the manager would count the invalidation */
+		OWLDataFactory df = manager.getOWLDataFactory();
+		OWLDataProperty age = df.getOWLDataProperty(IRI.create(TestUtilities.NS05 + "#age"));
+		manager.addAxiom(factory.getOwlOntology(), df.getOWLDataPropertyAssertionAxiom(age, alice.getOwlIndividual(), 43));
+		assertEquals(cache.getInvalidationCount(), 0);
+	}
+}
@@ -0,0 +1,64 @@
+package org.protege.owl.codegeneration;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import org.protege.owl.codegeneration.std.generate05.Generate05Factory;
+import org.protege.owl.codegeneration.std.generate05.Person;
+import org.testng.annotations.Test;
+
+public class TestQueries {
+
+	@Test
+	public void testConditions() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		Person alice = factory.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		Person bob = factory.getPerson(TestUtilities.ONTOLOGY05_BOB);
+		Person carol = factory.getPerson(TestUtilities.ONTOLOGY05_CAROL);
+		assertEquals(factory.queryPerson().count(), 3);
+		assertEquals(factory.queryPerson().whereAgeGreaterThan(40).list(), Arrays.asList(alice));
+		assertTrue(factory.queryPerson().whereAgeGreaterThan(42).list().isEmpty());
+		assertEquals(factory.queryPerson().whereAgeAtLeast(42).count(), 1);
+		assertEquals(factory.queryPerson().whereNameStartsWith("B").list(), Arrays.asList(bob));
+		assertEquals(factory.queryPerson().whereBalanceEquals(new BigDecimal("12.5")).list(), Arrays.asList(alice));
+		assertEquals(factory.queryPerson().whereBirthdayBetween(LocalDate.of(1970, 1, 1), LocalDate.of(1970, 12, 31)).count(), 1);
+		assertEquals(factory.queryPerson().whereHasMother(alice).list(), Arrays.asList(bob, carol));
+		assertEquals(factory.queryPerson().whereHasMother(alice).whereHasFriend(alice).list(), Arrays.asList(bob));
+	}
+
+	@Test
+	public void testQueriesFollowChanges() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		Person alice = factory.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		Person bob = factory.getPerson(TestUtilities.ONTOLOGY05_BOB);
+		assertEquals(factory.queryPerson().whereAgeLessThan(30).count(), 0);
+
+		bob.setAge(25);
+		List<? extends Person> young = factory.queryPerson().whereAgeLessThan(30).list();
+		assertEquals(young, Arrays.asList(bob));
+		alice.setAge(20);
+		assertEquals(factory.queryPerson().whereAgeAtMost(25).count(), 2);
+		assertEquals(factory.queryPerson().whereAgeEquals(42).count(), 0);
+		bob.setAge(26);
+		assertEquals(factory.queryPerson().whereAgeEquals(25).count(), 0);
+		assertEquals(factory.queryPerson().whereAgeBetween(21, 30).list(), Arrays.asList(bob));
+	}
+
+	@Test
+	public void testNonFiniteValues() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		Person alice = factory.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		Person bob = factory.getPerson(TestUtilities.ONTOLOGY05_BOB);
+		Person carol = factory.getPerson(TestUtilities.ONTOLOGY05_CAROL);
+		bob.setHeight(Double.POSITIVE_INFINITY);
+		carol.setHeight(Double.NaN);
+		assertEquals(factory.queryPerson().whereHeightGreaterThan(1.0).list(), Arrays.asList(alice, bob));
+		assertEquals(factory.queryPerson().whereHeightLessThan(Double.POSITIVE_INFINITY).list(), Arrays.asList(alice));
+		assertTrue(factory.queryPerson().whereHeightAtMost(Double.NaN).list().isEmpty());
+	}
+}
@@ -0,0 +1,48 @@
+package org.protege.owl.codegeneration;
+
+import static org.testng.Assert.assertEquals;
+
+import org.protege.owl.codegeneration.inference.ReasonerBasedInference;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLDataProperty;
+import org.semanticweb.owlapi.model.OWLDatatype;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.reasoner.OWLReasonerFactory;
+import org.semanticweb.owlapi.vocab.OWL2Datatype;
+import org.testng.annotations.Test;
+
+public class TestReasonerRanges {
+	private static final String NS = "http://protege.org/ontologies/ReasonerRanges.owl";
+
+	@Test
+	public void testIntRange() throws Exception {
+		OWLDatatype range = getInferredRange(OWL2Datatype.XSD_INT);
+		assertEquals(range.getIRI(), OWL2Datatype.XSD_INT.getIRI());
+		assertEquals(DatatypeRegistry.getDefault().getHandler(range), HandledDatatypes.INTEGER);
+	}
+
+	@Test
+	public void testLongRange() throws Exception {
+		OWLDatatype range = getInferredRange(OWL2Datatype.XSD_LONG);
+		assertEquals(range.getIRI(), OWL2Datatype.XSD_LONG.getIRI());
+		assertEquals(DatatypeRegistry.getDefault().getHandler(range), HandledDatatypes.LONG);
+	}
+
+	private OWLDatatype getInferredRange(OWL2Datatype declared) throws Exception {
+		OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+		OWLDataFactory factory = manager.getOWLDataFactory();
+		OWLOntology ontology = manager.createOntology(IRI.create(NS));
+		OWLClass person = factory.getOWLClass(IRI.create(NS + "#Person"));
+		OWLDataProperty p = factory.getOWLDataProperty(IRI.create(NS + "#p"));
+		manager.addAxiom(ontology, factory.getOWLDeclarationAxiom(person));
+		manager.addAxiom(ontology, factory.getOWLDataPropertyDomainAxiom(p, person));
+		manager.addAxiom(ontology, factory.getOWLDataPropertyRangeAxiom(p, declared.getDatatype(factory)));
+		OWLReasonerFactory rFactory = (OWLReasonerFactory) Class.forName("org.semanticweb.HermiT.Reasoner$ReasonerFactory").newInstance();
+		ReasonerBasedInference inference = new ReasonerBasedInference(ontology, rFactory.createReasoner(ontology));
+		return inference.getRange(person, p);
+	}
+}
@@ -0,0 +1,43 @@
+package org.protege.owl.codegeneration;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import org.protege.owl.codegeneration.std.shardedPizza.CheeseyPizza;
+import org.protege.owl.codegeneration.std.shardedPizza.HamTopping;
+import org.protege.owl.codegeneration.std.shardedPizza.ShardedPizzaFactory;
+import org.protege.owl.codegeneration.std.shardedPizza.Vocabulary;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.testng.annotations.Test;
+
+public class TestShardedVocabulary {
+
+	@Test
+	public void testLookups() {
+		assertTrue(Vocabulary.getOWLClassCount() > 8);
+		for (int index = 0; index < Vocabulary.getOWLClassCount(); index++) {
+			OWLClass owlClass = Vocabulary.getOWLClass(index);
+			assertEquals(Vocabulary.getOWLClass(owlClass.getIRI().toString()), owlClass);
+		}
+		for (int index = 0; index < Vocabulary.getOWLObjectPropertyCount(); index++) {
+			OWLObjectProperty p = Vocabulary.getOWLObjectProperty(index);
+			assertEquals(Vocabulary.getOWLObjectProperty(p.getIRI().toString()), p);
+		}
+		assertNotNull(Vocabulary.getOWLClass(TestUtilities.PIZZA_NS + "#CheeseyPizza"));
+		assertNull(Vocabulary.getOWLClass(TestUtilities.PIZZA_NS + "#NoSuchPizza"));
+	}
+
+	@Test
+	public void testGeneratedCode() throws Exception {
+		ShardedPizzaFactory factory = TestUtilities.openFactory(TestUtilities.PIZZA_ONTOLOGY, ShardedPizzaFactory.class, false);
+		CheeseyPizza myPizza = factory.createCheeseyPizza(TestUtilities.PIZZA_NS + "#myPizza");
+		HamTopping myHamTopping = factory.createHamTopping(TestUtilities.PIZZA_NS + "#myHamTopping");
+		assertEquals(factory.getCheeseyPizza(TestUtilities.PIZZA_NS + "#myPizza"), myPizza);
+		assertTrue(factory.getAllHamToppingInstances().contains(myHamTopping));
+		assertTrue(factory.canAs(myPizza, CheeseyPizza.class));
+		assertEquals(factory.getOwlClassFromJavaInterface(CheeseyPizza.class), Vocabulary.getOWLClass(TestUtilities.PIZZA_NS + "#CheeseyPizza"));
+	}
+}
@@ -0,0 +1,50 @@
+package org.protege.owl.codegeneration;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import org.protege.owl.codegeneration.inference.SnapshotInference;
+import org.protege.owl.codegeneration.std.generate05.Generate05Factory;
+import org.protege.owl.codegeneration.std.generate05.Person;
+import org.testng.annotations.Test;
+
+public class TestSnapshotInference {
+
+	@Test
+	public void testReads() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		Generate05Factory snapshot = factory.snapshot();
+		assertTrue(snapshot.getInference() instanceof SnapshotInference);
+		assertEquals(snapshot.getAllPersonInstances().size(), factory.getAllPersonInstances().size());
+		Person alice = snapshot.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		Person bob = snapshot.getPerson(TestUtilities.ONTOLOGY05_BOB);
+		assertEquals(bob.getHasMother(), alice);
+		assertEquals(alice.getName(), "Alice");
+		assertEquals(alice.getScore().size(), 2);
+		assertNull(snapshot.getPerson(TestUtilities.NS05 + "#nobody"));
+	}
+
+	@Test
+	public void testRebuiltAfterWrites() throws Exception {
+		Generate05Factory snapshot = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false).snapshot();
+		Person alice = snapshot.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		alice.setAge(43);
+		assertEquals(alice.getAge(), Integer.valueOf(43));
+		Person dave = snapshot.createPerson(TestUtilities.NS05 + "#dave");
+		dave.setHasMother(alice);
+		assertEquals(snapshot.getPerson(TestUtilities.NS05 + "#dave").getHasMother(), alice);
+		assertEquals(snapshot.getAllPersonInstances().size(), 4);
+	}
+
+	@Test
+	public void testDispose() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		Generate05Factory snapshot = factory.snapshot();
+		int count = snapshot.getAllPersonInstances().size();
+		snapshot.dispose();
+		factory.createPerson(TestUtilities.NS05 + "#dave");
+		assertEquals(snapshot.getAllPersonInstances().size(), count);
+		assertEquals(factory.getAllPersonInstances().size(), count + 1);
+	}
+}
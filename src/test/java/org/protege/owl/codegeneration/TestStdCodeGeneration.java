@@ -2,10 +2,13 @@ package org.protege.owl.codegeneration;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 
 import org.protege.owl.codegeneration.std.testSimple02.A1;
 import org.protege.owl.codegeneration.std.testSimple02.B1;
@@ -44,6 +47,30 @@ public class TestStdCodeGeneration {
 		assertTrue(factory.getAllB1Instances().contains(b1));
 	}
 	
+	@Test
+	public void testBulkCreate() throws Exception {
+		MySimpleStdFactory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY01, MySimpleStdFactory.class, false);
+		int before = factory.getAllA1Instances().size();
+		List<String> names = Arrays.asList(TestUtilities.ONTOLOGY_NEW_A1, TestUtilities.ONTOLOGY_NEW_A1 + "_2", TestUtilities.ONTOLOGY_NEW_A1);
+		List<? extends A1> created = factory.createA1s(names);
+		assertEquals(created.size(), 2);
+		assertEquals(created.get(0), factory.getA1(TestUtilities.ONTOLOGY_NEW_A1));
+		assertEquals(factory.getAllA1Instances().size(), before + 2);
+		assertEquals(factory.createA1s(Arrays.asList(TestUtilities.ONTOLOGY_NEW_A1 + "_3"), false).size(), 1);
+	}
+	
+	@Test
+	public void testBulkDelete() throws Exception {
+		MySimpleStdFactory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY01, MySimpleStdFactory.class, false);
+		int before = factory.getAllA1Instances().size();
+		List<? extends A1> created = factory.createA1s(Arrays.asList(TestUtilities.ONTOLOGY_NEW_A1, TestUtilities.ONTOLOGY_NEW_A1 + "_2"));
+		IriA x = factory.getIriA(TestUtilities.ONTOLOGY01X);
+		factory.delete(Arrays.asList(created.get(0), created.get(1), x));
+		assertEquals(factory.getAllA1Instances().size(), before);
+		assertNull(factory.getIriA(TestUtilities.ONTOLOGY01X));
+		assertTrue(factory.getOwlOntology().getReferencingAxioms(x.getOwlIndividual()).isEmpty());
+	}
+	
 	@Test
 	public void testSimpleGet() throws Exception {
 		MySimpleStdFactory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY01, MySimpleStdFactory.class, false);
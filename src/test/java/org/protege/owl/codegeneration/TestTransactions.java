@@ -0,0 +1,53 @@
+package org.protege.owl.codegeneration;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+
+import org.protege.owl.codegeneration.impl.Transaction;
+import org.protege.owl.codegeneration.std.generate05.Generate05Factory;
+import org.protege.owl.codegeneration.std.generate05.Person;
+import org.testng.annotations.Test;
+
+public class TestTransactions {
+
+	@Test
+	public void testRollback() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false);
+		int axiomCount = factory.getOwlOntology().getAxiomCount();
+		Person alice = factory.getPerson(TestUtilities.ONTOLOGY05_ALICE);
+		Transaction transaction = factory.beginTransaction();
+		try {
+			Person dave = factory.createPerson(TestUtilities.NS05 + "#dave");
+			dave.setHasMother(alice);
+			alice.setAge(43);
+			assertEquals(factory.getPerson(TestUtilities.NS05 + "#dave").getHasMother(), alice);
+			assertEquals(alice.getAge(), Integer.valueOf(43));
+			assertFalse(transaction.getChanges().isEmpty());
+		}
+		finally {
+			transaction.close();
+		}
+		assertFalse(transaction.isActive());
+		assertNull(factory.getPerson(TestUtilities.NS05 + "#dave"));
+		assertEquals(factory.getAllPersonInstances().size(), 3);
+		assertEquals(factory.getOwlOntology().getAxiomCount(), axiomCount);
+	}
+
+	@Test
+	public void testCommit() throws Exception {
+		Generate05Factory factory = TestUtilities.openFactory(TestUtilities.ONTOLOGY05, Generate05Factory.class, false).concurrent();
+		Transaction transaction = factory.beginTransaction();
+		try {
+			factory.createPerson(TestUtilities.NS05 + "#dave").setAge(7);
+			transaction.commit();
+		}
+		finally {
+			transaction.close();
+		}
+		assertEquals(factory.getPerson(TestUtilities.NS05 + "#dave").getAge(), Integer.valueOf(7));
+		Transaction second = factory.beginTransaction();
+		second.rollback();
+		assertEquals(factory.getAllPersonInstances().size(), 4);
+	}
+}
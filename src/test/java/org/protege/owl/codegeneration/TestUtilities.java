@@ -32,6 +32,12 @@ public class TestUtilities {
     public static String ONTOLOGY_NEW_A1 = NS01 + "#aNewA1";
     public static String ONTOLOGY_NEW_B1 = NS01 + "#aNewB1";
     
+    public static String NS05="http://protege.org/ontologies/CodeGeneration005.owl";
+    public static String ONTOLOGY05="CodeGeneration005.owl";
+    public static String ONTOLOGY05_ALICE = NS05 + "#alice";
+    public static String ONTOLOGY05_BOB = NS05 + "#bob";
+    public static String ONTOLOGY05_CAROL = NS05 + "#carol";
+    
     
     
     